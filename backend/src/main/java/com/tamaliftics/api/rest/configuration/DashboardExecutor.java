@@ -0,0 +1,35 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs each query of the dashboard on its own virtual thread.
+ * Like the LoginExecutor it is deliberately not an Executor bean,
+ * so it doesn't replace the default task executor of Spring Boot.
+ */
+public class DashboardExecutor implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dashboard-", 0).factory());
+
+    DashboardExecutor() {
+    }
+
+    /**
+     * Run a query on a new virtual thread
+     * @param query the query
+     * @return a future completing with the result of the query
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,18 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the executor that runs the independent queries of the dashboard concurrently.
+ * Each query runs on its own virtual thread, which is parked instead of blocking a platform thread while waiting for the database.
+ * The number of queries running at the same time is still bounded by the connection pool.
+ */
+@Configuration
+public class DashboardExecutorConfig {
+
+    @Bean
+    DashboardExecutor dashboardExecutor() {
+        return new DashboardExecutor();
+    }
+}
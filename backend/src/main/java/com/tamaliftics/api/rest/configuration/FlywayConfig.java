@@ -0,0 +1,22 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the schema migrations in src/main/resources/db/migration.
+ * Databases whose schema was created by hibernate before migrations existed are baselined at version 1,
+ * so only the migrations after the baseline schema run on them.
+ * With migrations in place, spring.jpa.hibernate.ddl-auto should be set to validate.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    FlywayConfigurationCustomizer baselineFlywayConfigurationCustomizer() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+}
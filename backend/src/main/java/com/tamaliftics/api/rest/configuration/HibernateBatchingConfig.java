@@ -0,0 +1,26 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures hibernate to send inserts and updates in JDBC batches.
+ * Inserts are ordered by entity, so a flush of many rows of the same table becomes a few batches instead of one statement per row.
+ * Ids are generated in memory (not by the database), which is what allows hibernate to batch inserts at all.
+ */
+@Configuration
+public class HibernateBatchingConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer batchingHibernatePropertiesCustomizer(
+            @Value("${application.jpa.batch-size:50}") int batchSize) {
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The bounded pool that verifies login passwords.
+ * It is deliberately not an Executor bean: Spring Boot only creates its default task executor,
+ * which runs e.g. the async MVC requests, when the context has no Executor.
+ */
+public class LoginExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+
+    LoginExecutor(int maxConcurrent, int queueCapacity) {
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+    }
+
+    /**
+     * Run a task on the pool
+     * @param task the task
+     * @return a future completing with the result of the task
+     * @throws TaskRejectedException if all threads are busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return executor.submitCompletable(task);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,21 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the executor that verifies login passwords.
+ * BCrypt is deliberately slow, so logins run on a small bounded pool instead of the servlet threads.
+ * When all threads are busy and the queue is full, new logins are rejected right away.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    @Bean
+    LoginExecutor loginExecutor(
+            @Value("${application.security.login.max-concurrent:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int maxConcurrent,
+            @Value("${application.security.login.queue-capacity:50}") int queueCapacity) {
+        return new LoginExecutor(maxConcurrent, queueCapacity);
+    }
+}
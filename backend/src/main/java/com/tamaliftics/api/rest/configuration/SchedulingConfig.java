@@ -0,0 +1,12 @@
+package com.tamaliftics.api.rest.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled maintenance jobs, e.g., the repair of the stored nutrition totals.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,68 @@
+package com.tamaliftics.api.rest.configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Configures the hibernate second-level cache for entities that are read constantly and change rarely.
+ * Every region is a bounded caffeine cache, local to this instance and to this application context. Its size is read from
+ * application.jpa.cache.[region].max-size and falls back to application.jpa.cache.max-size.
+ * Hit and miss counters per region are exposed as hibernate.second.level.cache.* metrics.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // must match the regions declared with @Cache on the entities and collections
+    private static final List<String> REGIONS = List.of(
+            "exercise-categories",
+            "exercises",
+            "dishes",
+            "meal-dishes",
+            "workout-plan-exercises"
+    );
+
+    @Bean(destroyMethod = "close")
+    CacheManager hibernateCacheManager(Environment environment,
+                                       @Value("${application.jpa.cache.max-size:10000}") long defaultMaxSize) {
+        // the default manager is shared by the whole jvm, every application context gets its own one instead
+        CachingProvider cachingProvider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = cachingProvider.getCacheManager(
+                URI.create("urn:tamaliftics:second-level-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(
+                    environment.getProperty("application.jpa.cache." + region + ".max-size", Long.class, defaultMaxSize)));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheHibernatePropertiesCustomizer(CacheManager hibernateCacheManager,
+                                                                                @Value("${application.jpa.statistics:true}") boolean statistics) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // the regions are created above, a missing one is a typo in a @Cache annotation
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            hibernateProperties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, statistics);
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.tamaliftics.api.rest.controllers;
 
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
 import com.tamaliftics.api.rest.models.Role;
 import com.tamaliftics.api.rest.models.User;
 import com.tamaliftics.api.rest.models.dtos.auth.AuthResponseDto;
@@ -8,6 +9,8 @@ import com.tamaliftics.api.rest.models.dtos.auth.SignupRequestDto;
 import com.tamaliftics.api.rest.services.JwtService;
 import com.tamaliftics.api.rest.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for handling authentication requests
@@ -36,31 +40,41 @@ public class AuthController {
     /**
      * Endpoint for user login
      * @param loginRequestDto the login request containing username and password
-     * @return JWT token and user information if authentication is successful, error otherwise
+     * @return JWT token and user information if authentication is successful, 429 if too many logins are in progress, error otherwise
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequestDto) {
-        Optional<User> userOptional = userService.authenticateUserByUsername(
-                loginRequestDto.username(),
-                loginRequestDto.password()
-        );
-
-        if (userOptional.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequestDto loginRequestDto) {
+        // the password is verified on the bounded login executor, which frees the servlet thread
+        CompletableFuture<Optional<User>> authentication;
+        try {
+            authentication = userService.authenticateUserByUsernameAsync(
+                    loginRequestDto.username(),
+                    loginRequestDto.password()
+            );
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many login attempts, please try again later"));
         }
 
-        User user = userOptional.get();
-        String token = jwtService.generateToken(user);
+        return authentication.thenApply(userOptional -> {
+            if (userOptional.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+            }
 
-        AuthResponseDto authResponseDto = new AuthResponseDto(
-                token,
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getRole().name()
-        );
+            User user = userOptional.get();
+            String token = jwtService.generateToken(user);
+
+            AuthResponseDto authResponseDto = new AuthResponseDto(
+                    token,
+                    user.getId(),
+                    user.getUsername(),
+                    user.getEmail(),
+                    user.getRole().name()
+            );
 
-        return ResponseEntity.ok(authResponseDto);
+            return ResponseEntity.ok(authResponseDto);
+        });
     }
 
     /**
@@ -135,7 +149,7 @@ public class AuthController {
     public ResponseEntity<?> deleteUser(@PathVariable String username) {
         // Get the authenticated user
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User authenticatedUser = (User) authentication.getPrincipal();
+        AuthenticatedUser authenticatedUser = (AuthenticatedUser) authentication.getPrincipal();
 
         // Check if the user exists
         Optional<User> userToDeleteOpt = userService.getUserByUsername(username);
@@ -147,7 +161,7 @@ public class AuthController {
 
         // Check if the authenticated user has permission to delete the user
         // (either it's their own account or they're an admin)
-//        if (!authenticatedUser.getUsername().equals(username) && authenticatedUser.getRole() != Role.ADMIN) {
+//        if (!authenticatedUser.username().equals(username) && authenticatedUser.role() != Role.ADMIN) {
 //            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You don't have permission to delete this user");
 //        }
 
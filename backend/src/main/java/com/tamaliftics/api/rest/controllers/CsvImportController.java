@@ -0,0 +1,79 @@
+package com.tamaliftics.api.rest.controllers;
+
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.csv.CsvImportResultDto;
+import com.tamaliftics.api.rest.services.CsvImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Controller for importing the history of a user from CSV files.
+ * The CSV is sent as the request body with the content type text/csv, encoded as UTF-8,
+ * and is read while it is uploaded instead of being buffered.
+ */
+@RestController
+@RequestMapping("/import")
+public class CsvImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final CsvImportService csvImportService;
+
+    @Autowired
+    public CsvImportController(CsvImportService csvImportService) {
+        this.csvImportService = csvImportService;
+    }
+
+    /**
+     * Import exercise track points, creating the exercises and categories that don't exist yet
+     * @param body the CSV with the columns date, exercise, sets, reps and optionally weight, description and category
+     * @param user the authenticated user
+     * @return the number of created and rejected rows, and why rows were rejected
+     * @throws IOException if reading the body fails
+     */
+    @PostMapping(value = "/exercise-track-points", consumes = TEXT_CSV)
+    public ResponseEntity<?> importExerciseTrackPoints(InputStream body, @AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+        Optional<CsvImportResultDto> result = csvImportService.importExerciseTrackPoints(reader(body), user.id());
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The header must name the columns date, exercise, sets and reps");
+        }
+
+        return ResponseEntity.ok(result.get());
+    }
+
+    /**
+     * Import daily weights, overwriting the ones of the same dates
+     * @param body the CSV with the columns date and weight
+     * @param user the authenticated user
+     * @return the number of created, updated and rejected rows, and why rows were rejected,
+     * with 409 if the user was deleted during the import
+     * @throws IOException if reading the body fails
+     */
+    @PostMapping(value = "/daily-weights", consumes = TEXT_CSV)
+    public ResponseEntity<?> importDailyWeights(InputStream body, @AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+        Optional<CsvImportResultDto> result = csvImportService.importDailyWeights(reader(body), user.id());
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The header must name the columns date and weight");
+        }
+        if (!result.get().complete()) {
+            // the rows before the user was deleted were imported
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result.get());
+        }
+
+        return ResponseEntity.ok(result.get());
+    }
+
+    private static BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+}
@@ -1,11 +1,16 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightResultDto;
 import com.tamaliftics.api.rest.models.dtos.weight.CreateDailyWeightDto;
 import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
 import com.tamaliftics.api.rest.models.dtos.weight.UpdateDailyWeightDto;
+import com.tamaliftics.api.rest.models.dtos.weight.WeightTrendPointDto;
 import com.tamaliftics.api.rest.services.DailyWeightService;
+import com.tamaliftics.api.rest.services.WeightTrendService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,10 +30,16 @@ import java.util.UUID;
 public class DailyWeightController {
 
     private final DailyWeightService dailyWeightService;
+    private final WeightTrendService weightTrendService;
+    private final int maxBulkSize;
 
     @Autowired
-    public DailyWeightController(DailyWeightService dailyWeightService) {
+    public DailyWeightController(DailyWeightService dailyWeightService,
+                                 WeightTrendService weightTrendService,
+                                 @Value("${application.daily-weights.bulk.max-size:10000}") int maxBulkSize) {
         this.dailyWeightService = dailyWeightService;
+        this.weightTrendService = weightTrendService;
+        this.maxBulkSize = maxBulkSize;
     }
 
     /**
@@ -38,8 +49,8 @@ public class DailyWeightController {
      * @return the created daily weight record
      */
     @PostMapping
-    public ResponseEntity<?> createDailyWeight(@RequestBody CreateDailyWeightDto createDailyWeightDto, @AuthenticationPrincipal User user) {
-        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.createDailyWeight(createDailyWeightDto, user.getId());
+    public ResponseEntity<?> createDailyWeight(@RequestBody CreateDailyWeightDto createDailyWeightDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.createDailyWeight(createDailyWeightDto, user.id());
         
         if (dailyWeightDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create daily weight record");
@@ -48,6 +59,27 @@ public class DailyWeightController {
         return ResponseEntity.status(HttpStatus.CREATED).body(dailyWeightDtoOptional.get());
     }
 
+    /**
+     * Create or update many daily weight records at once
+     * Readings of dates that already have a record overwrite its weight
+     * @param readings the daily weight readings
+     * @param user the authenticated user
+     * @return the outcome of every reading
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> upsertDailyWeights(@RequestBody List<CreateDailyWeightDto> readings, @AuthenticationPrincipal AuthenticatedUser user) {
+        if (readings.size() > maxBulkSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("At most " + maxBulkSize + " readings can be sent at once");
+        }
+        
+        Optional<BulkDailyWeightResultDto> result = dailyWeightService.upsertDailyWeights(readings, user.id());
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to upsert daily weight records");
+        }
+        
+        return ResponseEntity.ok(result.get());
+    }
+
     /**
      * Update an existing daily weight record
      * @param updateDailyWeightDto the DTO containing updated daily weight information
@@ -55,11 +87,11 @@ public class DailyWeightController {
      * @return the updated daily weight record
      */
     @PutMapping
-    public ResponseEntity<?> updateDailyWeight(@RequestBody UpdateDailyWeightDto updateDailyWeightDto, @AuthenticationPrincipal User user) {
-        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.updateDailyWeight(updateDailyWeightDto, user.getId());
+    public ResponseEntity<?> updateDailyWeight(@RequestBody UpdateDailyWeightDto updateDailyWeightDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.updateDailyWeight(updateDailyWeightDto, user.id());
         
         if (dailyWeightDtoOptional.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Daily weight record not found or not owned by user");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Daily weight record not found or not owned by user, or the date already has a record");
         }
         
         return ResponseEntity.ok(dailyWeightDtoOptional.get());
@@ -72,8 +104,8 @@ public class DailyWeightController {
      * @return the daily weight record
      */
     @GetMapping("/{dailyWeightId}")
-    public ResponseEntity<?> getDailyWeightById(@PathVariable UUID dailyWeightId, @AuthenticationPrincipal User user) {
-        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.getDailyWeightById(dailyWeightId, user.getId());
+    public ResponseEntity<?> getDailyWeightById(@PathVariable UUID dailyWeightId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDailyWeightDto> dailyWeightDtoOptional = dailyWeightService.getDailyWeightById(dailyWeightId, user.id());
         
         if (dailyWeightDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Daily weight record not found or not owned by user");
@@ -84,30 +116,67 @@ public class DailyWeightController {
 
     /**
      * Get all daily weight records for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of daily weight records
+     * @return a page of daily weight records
      */
     @GetMapping
-    public ResponseEntity<List<GetDailyWeightDto>> getAllDailyWeights(@AuthenticationPrincipal User user) {
-        List<GetDailyWeightDto> dailyWeights = dailyWeightService.getAllDailyWeightsForUser(user.getId());
-        return ResponseEntity.ok(dailyWeights);
+    public ResponseEntity<?> getAllDailyWeights(@RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size,
+                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetDailyWeightDto>> dailyWeights = dailyWeightService.getAllDailyWeightsForUser(user.id(), cursor, size);
+        if (dailyWeights.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(dailyWeights.get());
     }
 
     /**
      * Get daily weight records between two dates
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of daily weight records
+     * @return a page of daily weight records
      */
     @GetMapping("/range")
-    public ResponseEntity<List<GetDailyWeightDto>> getDailyWeightsBetweenDates(
+    public ResponseEntity<?> getDailyWeightsBetweenDates(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        
+        Optional<CursorPageDto<GetDailyWeightDto>> dailyWeights = dailyWeightService.getDailyWeightsBetweenDates(startDate, endDate, user.id(), cursor, size);
+        if (dailyWeights.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(dailyWeights.get());
+    }
+
+    /**
+     * Get the smoothed trend of the daily weights between two dates: 7-day moving average, exponentially weighted trend and weekly rate of change
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param user the authenticated user
+     * @return one trend point per daily weight record in the range
+     */
+    @GetMapping("/trend")
+    public ResponseEntity<?> getWeightTrend(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        if (startDate.isAfter(endDate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The start date must not be after the end date");
+        }
+        
+        List<WeightTrendPointDto> trend = weightTrendService.getTrend(user.id(), startDate, endDate);
         
-        List<GetDailyWeightDto> dailyWeights = dailyWeightService.getDailyWeightsBetweenDates(startDate, endDate, user.getId());
-        return ResponseEntity.ok(dailyWeights);
+        return ResponseEntity.ok(trend);
     }
 
     /**
@@ -117,8 +186,8 @@ public class DailyWeightController {
      * @return success or error message
      */
     @DeleteMapping("/{dailyWeightId}")
-    public ResponseEntity<String> deleteDailyWeight(@PathVariable UUID dailyWeightId, @AuthenticationPrincipal User user) {
-        boolean deleted = dailyWeightService.deleteDailyWeight(dailyWeightId, user.getId());
+    public ResponseEntity<String> deleteDailyWeight(@PathVariable UUID dailyWeightId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = dailyWeightService.deleteDailyWeight(dailyWeightId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Daily weight record not found or not owned by user");
@@ -0,0 +1,40 @@
+package com.tamaliftics.api.rest.controllers;
+
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.dashboard.GetDashboardDto;
+import com.tamaliftics.api.rest.services.DashboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Controller for the dashboard, which loads everything the start page shows in a single request
+ */
+@RestController
+@RequestMapping("/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    @Autowired
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    /**
+     * Get the dashboard of the authenticated user
+     * @param date the day of the dashboard in the time zone of the user, or null for today in the time zone of the server
+     * @param user the authenticated user
+     * @return the workout plans of the day, the latest weights and the totals of the latest diet
+     */
+    @GetMapping
+    public ResponseEntity<GetDashboardDto> getDashboard(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(dashboardService.getDashboard(user.id(), date != null ? date : LocalDate.now()));
+    }
+}
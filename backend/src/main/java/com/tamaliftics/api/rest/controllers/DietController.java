@@ -1,17 +1,21 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.diet.CreateDietDto;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.diet.GetDietDto;
 import com.tamaliftics.api.rest.models.dtos.diet.UpdateDietDto;
+import com.tamaliftics.api.rest.services.CollectionVersionService;
 import com.tamaliftics.api.rest.services.DietService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,10 +27,12 @@ import java.util.UUID;
 public class DietController {
 
     private final DietService dietService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public DietController(DietService dietService) {
+    public DietController(DietService dietService, CollectionVersionService collectionVersionService) {
         this.dietService = dietService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -36,8 +42,8 @@ public class DietController {
      * @return the created diet
      */
     @PostMapping
-    public ResponseEntity<?> createDiet(@RequestBody CreateDietDto createDietDto, @AuthenticationPrincipal User user) {
-        Optional<GetDietDto> dietDtoOptional = dietService.createDiet(createDietDto, user.getId());
+    public ResponseEntity<?> createDiet(@RequestBody CreateDietDto createDietDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDietDto> dietDtoOptional = dietService.createDiet(createDietDto, user.id());
         
         if (dietDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create diet");
@@ -53,8 +59,8 @@ public class DietController {
      * @return the updated diet
      */
     @PutMapping
-    public ResponseEntity<?> updateDiet(@RequestBody UpdateDietDto updateDietDto, @AuthenticationPrincipal User user) {
-        Optional<GetDietDto> dietDtoOptional = dietService.updateDiet(updateDietDto, user.getId());
+    public ResponseEntity<?> updateDiet(@RequestBody UpdateDietDto updateDietDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDietDto> dietDtoOptional = dietService.updateDiet(updateDietDto, user.id());
         
         if (dietDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Diet not found or not owned by user");
@@ -70,8 +76,8 @@ public class DietController {
      * @return the diet
      */
     @GetMapping("/{dietId}")
-    public ResponseEntity<?> getDietById(@PathVariable UUID dietId, @AuthenticationPrincipal User user) {
-        Optional<GetDietDto> dietDtoOptional = dietService.getDietById(dietId, user.getId());
+    public ResponseEntity<?> getDietById(@PathVariable UUID dietId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDietDto> dietDtoOptional = dietService.getDietById(dietId, user.id());
         
         if (dietDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Diet not found or not owned by user");
@@ -80,15 +86,46 @@ public class DietController {
         return ResponseEntity.ok(dietDtoOptional.get());
     }
 
+    /**
+     * Get the nutrition totals of a diet, without its meals
+     * @param dietId the ID of the diet
+     * @param user the authenticated user
+     * @return the summary of the diet
+     */
+    @GetMapping("/{dietId}/summary")
+    public ResponseEntity<?> getDietSummary(@PathVariable UUID dietId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<DietSummaryDto> summaryOptional = dietService.getDietSummary(dietId, user.id());
+        
+        if (summaryOptional.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Diet not found or not owned by user");
+        }
+        
+        return ResponseEntity.ok(summaryOptional.get());
+    }
+
     /**
      * Get all diets for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of diets
+     * @param request the request, to answer with 304 Not Modified if the client has the current page
+     * @return a page of diets
      */
     @GetMapping
-    public ResponseEntity<List<GetDietDto>> getAllDiets(@AuthenticationPrincipal User user) {
-        List<GetDietDto> diets = dietService.getAllDietsForUser(user.getId());
-        return ResponseEntity.ok(diets);
+    public ResponseEntity<?> getAllDiets(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size,
+                                         @AuthenticationPrincipal AuthenticatedUser user,
+                                         WebRequest request) {
+        if (request.checkNotModified(collectionVersionService.etag(VersionedCollection.DIETS, user.id(), cursor, size))) {
+            return null;
+        }
+
+        Optional<CursorPageDto<GetDietDto>> diets = dietService.getAllDietsForUser(user.id(), cursor, size);
+        if (diets.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(diets.get());
     }
 
     /**
@@ -98,8 +135,8 @@ public class DietController {
      * @return success or error message
      */
     @DeleteMapping("/{dietId}")
-    public ResponseEntity<String> deleteDiet(@PathVariable UUID dietId, @AuthenticationPrincipal User user) {
-        boolean deleted = dietService.deleteDiet(dietId, user.getId());
+    public ResponseEntity<String> deleteDiet(@PathVariable UUID dietId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = dietService.deleteDiet(dietId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Diet not found or not owned by user");
@@ -119,9 +156,9 @@ public class DietController {
     public ResponseEntity<?> addMealToDiet(
             @PathVariable UUID dietId,
             @PathVariable UUID mealId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetDietDto> dietDtoOptional = dietService.addMealToDiet(dietId, mealId, user.getId());
+        Optional<GetDietDto> dietDtoOptional = dietService.addMealToDiet(dietId, mealId, user.id());
         
         if (dietDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -142,9 +179,9 @@ public class DietController {
     public ResponseEntity<?> removeMealFromDiet(
             @PathVariable UUID dietId,
             @PathVariable UUID mealId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetDietDto> dietDtoOptional = dietService.removeMealFromDiet(dietId, mealId, user.getId());
+        Optional<GetDietDto> dietDtoOptional = dietService.removeMealFromDiet(dietId, mealId, user.id());
         
         if (dietDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -157,12 +194,21 @@ public class DietController {
     /**
      * Search for diets by name
      * @param name the name to search for
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of matching diets
+     * @return a page of matching diets
      */
     @GetMapping("/search")
-    public ResponseEntity<List<GetDietDto>> searchDietsByName(@RequestParam String name, @AuthenticationPrincipal User user) {
-        List<GetDietDto> diets = dietService.searchDietsByName(name, user.getId());
-        return ResponseEntity.ok(diets);
+    public ResponseEntity<?> searchDietsByName(@RequestParam String name,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetDietDto>> diets = dietService.searchDietsByName(name, user.id(), cursor, size);
+        if (diets.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(diets.get());
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.dish.CreateDishDto;
 import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
 import com.tamaliftics.api.rest.models.dtos.dish.UpdateDishDto;
@@ -11,7 +12,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,8 +36,8 @@ public class DishController {
      * @return the created dish
      */
     @PostMapping
-    public ResponseEntity<?> createDish(@RequestBody CreateDishDto createDishDto, @AuthenticationPrincipal User user) {
-        Optional<GetDishDto> dishDtoOptional = dishService.createDish(createDishDto, user.getId());
+    public ResponseEntity<?> createDish(@RequestBody CreateDishDto createDishDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDishDto> dishDtoOptional = dishService.createDish(createDishDto, user.id());
         
         if (dishDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create dish");
@@ -53,8 +53,8 @@ public class DishController {
      * @return the updated dish
      */
     @PutMapping
-    public ResponseEntity<?> updateDish(@RequestBody UpdateDishDto updateDishDto, @AuthenticationPrincipal User user) {
-        Optional<GetDishDto> dishDtoOptional = dishService.updateDish(updateDishDto, user.getId());
+    public ResponseEntity<?> updateDish(@RequestBody UpdateDishDto updateDishDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDishDto> dishDtoOptional = dishService.updateDish(updateDishDto, user.id());
         
         if (dishDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Dish not found or not owned by user");
@@ -70,8 +70,8 @@ public class DishController {
      * @return the dish
      */
     @GetMapping("/{dishId}")
-    public ResponseEntity<?> getDishById(@PathVariable UUID dishId, @AuthenticationPrincipal User user) {
-        Optional<GetDishDto> dishDtoOptional = dishService.getDishById(dishId, user.getId());
+    public ResponseEntity<?> getDishById(@PathVariable UUID dishId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetDishDto> dishDtoOptional = dishService.getDishById(dishId, user.id());
         
         if (dishDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Dish not found or not owned by user");
@@ -82,13 +82,21 @@ public class DishController {
 
     /**
      * Get all dishes for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of dishes
+     * @return a page of dishes
      */
     @GetMapping
-    public ResponseEntity<List<GetDishDto>> getAllDishes(@AuthenticationPrincipal User user) {
-        List<GetDishDto> dishes = dishService.getAllDishesForUser(user.getId());
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<?> getAllDishes(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer size,
+                                          @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetDishDto>> dishes = dishService.getAllDishesForUser(user.id(), cursor, size);
+        if (dishes.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(dishes.get());
     }
 
     /**
@@ -98,8 +106,8 @@ public class DishController {
      * @return success or error message
      */
     @DeleteMapping("/{dishId}")
-    public ResponseEntity<String> deleteDish(@PathVariable UUID dishId, @AuthenticationPrincipal User user) {
-        boolean deleted = dishService.deleteDish(dishId, user.getId());
+    public ResponseEntity<String> deleteDish(@PathVariable UUID dishId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = dishService.deleteDish(dishId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Dish not found or not owned by user");
@@ -111,12 +119,21 @@ public class DishController {
     /**
      * Search for dishes by name
      * @param name the name to search for
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of matching dishes
+     * @return a page of matching dishes
      */
     @GetMapping("/search")
-    public ResponseEntity<List<GetDishDto>> searchDishesByName(@RequestParam String name, @AuthenticationPrincipal User user) {
-        List<GetDishDto> dishes = dishService.searchDishesByName(name, user.getId());
-        return ResponseEntity.ok(dishes);
+    public ResponseEntity<?> searchDishesByName(@RequestParam String name,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size,
+                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetDishDto>> dishes = dishService.searchDishesByName(name, user.id(), cursor, size);
+        if (dishes.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(dishes.get());
     }
 }
\ No newline at end of file
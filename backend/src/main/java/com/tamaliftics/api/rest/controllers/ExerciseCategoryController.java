@@ -1,6 +1,7 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.UpdateExerciseCategoryDto;
@@ -11,7 +12,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,8 +36,8 @@ public class ExerciseCategoryController {
      * @return the created exercise category
      */
     @PostMapping
-    public ResponseEntity<?> createExerciseCategory(@RequestBody CreateExerciseCategoryDto createExerciseCategoryDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.createExerciseCategory(createExerciseCategoryDto, user.getId());
+    public ResponseEntity<?> createExerciseCategory(@RequestBody CreateExerciseCategoryDto createExerciseCategoryDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.createExerciseCategory(createExerciseCategoryDto, user.id());
         
         if (exerciseCategoryDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create exercise category");
@@ -53,8 +53,8 @@ public class ExerciseCategoryController {
      * @return the updated exercise category
      */
     @PutMapping
-    public ResponseEntity<?> updateExerciseCategory(@RequestBody UpdateExerciseCategoryDto updateExerciseCategoryDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.updateExerciseCategory(updateExerciseCategoryDto, user.getId());
+    public ResponseEntity<?> updateExerciseCategory(@RequestBody UpdateExerciseCategoryDto updateExerciseCategoryDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.updateExerciseCategory(updateExerciseCategoryDto, user.id());
         
         if (exerciseCategoryDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise category not found or not owned by user");
@@ -70,8 +70,8 @@ public class ExerciseCategoryController {
      * @return the exercise category
      */
     @GetMapping("/{exerciseCategoryId}")
-    public ResponseEntity<?> getExerciseCategoryById(@PathVariable UUID exerciseCategoryId, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.getExerciseCategoryById(exerciseCategoryId, user.getId());
+    public ResponseEntity<?> getExerciseCategoryById(@PathVariable UUID exerciseCategoryId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseCategoryDto> exerciseCategoryDtoOptional = exerciseCategoryService.getExerciseCategoryById(exerciseCategoryId, user.id());
         
         if (exerciseCategoryDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise category not found or not owned by user");
@@ -82,13 +82,21 @@ public class ExerciseCategoryController {
 
     /**
      * Get all exercise categories for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of exercise categories
+     * @return a page of exercise categories
      */
     @GetMapping
-    public ResponseEntity<List<GetExerciseCategoryDto>> getAllExerciseCategories(@AuthenticationPrincipal User user) {
-        List<GetExerciseCategoryDto> exerciseCategories = exerciseCategoryService.getAllExerciseCategoriesForUser(user.getId());
-        return ResponseEntity.ok(exerciseCategories);
+    public ResponseEntity<?> getAllExerciseCategories(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer size,
+                                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseCategoryDto>> exerciseCategories = exerciseCategoryService.getAllExerciseCategoriesForUser(user.id(), cursor, size);
+        if (exerciseCategories.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(exerciseCategories.get());
     }
 
     /**
@@ -98,8 +106,8 @@ public class ExerciseCategoryController {
      * @return success or error message
      */
     @DeleteMapping("/{exerciseCategoryId}")
-    public ResponseEntity<String> deleteExerciseCategory(@PathVariable UUID exerciseCategoryId, @AuthenticationPrincipal User user) {
-        boolean deleted = exerciseCategoryService.deleteExerciseCategory(exerciseCategoryId, user.getId());
+    public ResponseEntity<String> deleteExerciseCategory(@PathVariable UUID exerciseCategoryId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = exerciseCategoryService.deleteExerciseCategory(exerciseCategoryId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise category not found or not owned by user");
@@ -111,12 +119,21 @@ public class ExerciseCategoryController {
     /**
      * Search for exercise categories by name
      * @param name the name to search for
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of matching exercise categories
+     * @return a page of matching exercise categories
      */
     @GetMapping("/search")
-    public ResponseEntity<List<GetExerciseCategoryDto>> searchExerciseCategoriesByName(@RequestParam String name, @AuthenticationPrincipal User user) {
-        List<GetExerciseCategoryDto> exerciseCategories = exerciseCategoryService.searchExerciseCategoriesByName(name, user.getId());
-        return ResponseEntity.ok(exerciseCategories);
+    public ResponseEntity<?> searchExerciseCategoriesByName(@RequestParam String name,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size,
+                                                            @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseCategoryDto>> exerciseCategories = exerciseCategoryService.searchExerciseCategoriesByName(name, user.id(), cursor, size);
+        if (exerciseCategories.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(exerciseCategories.get());
     }
 }
\ No newline at end of file
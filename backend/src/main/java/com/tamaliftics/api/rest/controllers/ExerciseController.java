@@ -1,17 +1,20 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.UpdateExerciseDto;
+import com.tamaliftics.api.rest.services.CollectionVersionService;
 import com.tamaliftics.api.rest.services.ExerciseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,10 +26,12 @@ import java.util.UUID;
 public class ExerciseController {
 
     private final ExerciseService exerciseService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public ExerciseController(ExerciseService exerciseService) {
+    public ExerciseController(ExerciseService exerciseService, CollectionVersionService collectionVersionService) {
         this.exerciseService = exerciseService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -36,8 +41,8 @@ public class ExerciseController {
      * @return the created exercise
      */
     @PostMapping
-    public ResponseEntity<?> createExercise(@RequestBody CreateExerciseDto createExerciseDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.createExercise(createExerciseDto, user.getId());
+    public ResponseEntity<?> createExercise(@RequestBody CreateExerciseDto createExerciseDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.createExercise(createExerciseDto, user.id());
         
         if (exerciseDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create exercise. Category may not exist or not owned by user.");
@@ -53,8 +58,8 @@ public class ExerciseController {
      * @return the updated exercise
      */
     @PutMapping
-    public ResponseEntity<?> updateExercise(@RequestBody UpdateExerciseDto updateExerciseDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.updateExercise(updateExerciseDto, user.getId());
+    public ResponseEntity<?> updateExercise(@RequestBody UpdateExerciseDto updateExerciseDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.updateExercise(updateExerciseDto, user.id());
         
         if (exerciseDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise not found or not owned by user");
@@ -70,8 +75,8 @@ public class ExerciseController {
      * @return the exercise
      */
     @GetMapping("/{exerciseId}")
-    public ResponseEntity<?> getExerciseById(@PathVariable UUID exerciseId, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.getExerciseById(exerciseId, user.getId());
+    public ResponseEntity<?> getExerciseById(@PathVariable UUID exerciseId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseDto> exerciseDtoOptional = exerciseService.getExerciseById(exerciseId, user.id());
         
         if (exerciseDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise not found or not owned by user");
@@ -82,25 +87,48 @@ public class ExerciseController {
 
     /**
      * Get all exercises for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of exercises
+     * @param request the request, to answer with 304 Not Modified if the client has the current page
+     * @return a page of exercises
      */
     @GetMapping
-    public ResponseEntity<List<GetExerciseDto>> getAllExercises(@AuthenticationPrincipal User user) {
-        List<GetExerciseDto> exercises = exerciseService.getAllExercisesForUser(user.getId());
-        return ResponseEntity.ok(exercises);
+    public ResponseEntity<?> getAllExercises(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size,
+                                             @AuthenticationPrincipal AuthenticatedUser user,
+                                             WebRequest request) {
+        if (request.checkNotModified(collectionVersionService.etag(VersionedCollection.EXERCISES, user.id(), cursor, size))) {
+            return null;
+        }
+
+        Optional<CursorPageDto<GetExerciseDto>> exercises = exerciseService.getAllExercisesForUser(user.id(), cursor, size);
+        if (exercises.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(exercises.get());
     }
 
     /**
      * Get exercises by category
      * @param categoryId the ID of the category
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of exercises in the category
+     * @return a page of exercises in the category
      */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<GetExerciseDto>> getExercisesByCategory(@PathVariable UUID categoryId, @AuthenticationPrincipal User user) {
-        List<GetExerciseDto> exercises = exerciseService.getExercisesByCategory(categoryId, user.getId());
-        return ResponseEntity.ok(exercises);
+    public ResponseEntity<?> getExercisesByCategory(@PathVariable UUID categoryId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseDto>> exercises = exerciseService.getExercisesByCategory(categoryId, user.id(), cursor, size);
+        if (exercises.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(exercises.get());
     }
 
     /**
@@ -110,8 +138,8 @@ public class ExerciseController {
      * @return success or error message
      */
     @DeleteMapping("/{exerciseId}")
-    public ResponseEntity<String> deleteExercise(@PathVariable UUID exerciseId, @AuthenticationPrincipal User user) {
-        boolean deleted = exerciseService.deleteExercise(exerciseId, user.getId());
+    public ResponseEntity<String> deleteExercise(@PathVariable UUID exerciseId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = exerciseService.deleteExercise(exerciseId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise not found or not owned by user");
@@ -123,12 +151,21 @@ public class ExerciseController {
     /**
      * Search for exercises by name
      * @param name the name to search for
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of matching exercises
+     * @return a page of matching exercises
      */
     @GetMapping("/search")
-    public ResponseEntity<List<GetExerciseDto>> searchExercisesByName(@RequestParam String name, @AuthenticationPrincipal User user) {
-        List<GetExerciseDto> exercises = exerciseService.searchExercisesByName(name, user.getId());
-        return ResponseEntity.ok(exercises);
+    public ResponseEntity<?> searchExercisesByName(@RequestParam String name,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size,
+                                                   @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseDto>> exercises = exerciseService.searchExercisesByName(name, user.id(), cursor, size);
+        if (exercises.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(exercises.get());
     }
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.ProgressionBucket;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import com.tamaliftics.api.rest.models.dtos.progression.ExerciseProgressionDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.BulkExerciseTrackPointResultDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.CreateExerciseTrackPointDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.UpdateExerciseTrackPointDto;
+import com.tamaliftics.api.rest.services.ExerciseProgressionService;
+import com.tamaliftics.api.rest.services.ExerciseRollupService;
 import com.tamaliftics.api.rest.services.ExerciseTrackPointService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,10 +33,19 @@ import java.util.UUID;
 public class ExerciseTrackPointController {
 
     private final ExerciseTrackPointService exerciseTrackPointService;
+    private final ExerciseProgressionService exerciseProgressionService;
+    private final ExerciseRollupService exerciseRollupService;
+    private final int maxBulkSize;
 
     @Autowired
-    public ExerciseTrackPointController(ExerciseTrackPointService exerciseTrackPointService) {
+    public ExerciseTrackPointController(ExerciseTrackPointService exerciseTrackPointService,
+                                        ExerciseProgressionService exerciseProgressionService,
+                                        ExerciseRollupService exerciseRollupService,
+                                        @Value("${application.exercise-track-points.bulk.max-size:1000}") int maxBulkSize) {
         this.exerciseTrackPointService = exerciseTrackPointService;
+        this.exerciseProgressionService = exerciseProgressionService;
+        this.exerciseRollupService = exerciseRollupService;
+        this.maxBulkSize = maxBulkSize;
     }
 
     /**
@@ -38,8 +55,8 @@ public class ExerciseTrackPointController {
      * @return the created track point
      */
     @PostMapping
-    public ResponseEntity<?> createExerciseTrackPoint(@RequestBody CreateExerciseTrackPointDto createExerciseTrackPointDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.createExerciseTrackPoint(createExerciseTrackPointDto, user.getId());
+    public ResponseEntity<?> createExerciseTrackPoint(@RequestBody CreateExerciseTrackPointDto createExerciseTrackPointDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.createExerciseTrackPoint(createExerciseTrackPointDto, user.id());
         
         if (trackPointDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create track point. Exercise may not exist or not owned by user.");
@@ -48,6 +65,23 @@ public class ExerciseTrackPointController {
         return ResponseEntity.status(HttpStatus.CREATED).body(trackPointDtoOptional.get());
     }
 
+    /**
+     * Create the track points of a whole workout session at once
+     * @param createExerciseTrackPointDtos the DTOs containing the information of every set
+     * @param user the authenticated user
+     * @return the outcome of every set
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createExerciseTrackPoints(@RequestBody List<CreateExerciseTrackPointDto> createExerciseTrackPointDtos, @AuthenticationPrincipal AuthenticatedUser user) {
+        if (createExerciseTrackPointDtos.size() > maxBulkSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("At most " + maxBulkSize + " track points can be sent at once");
+        }
+        
+        BulkExerciseTrackPointResultDto result = exerciseTrackPointService.createExerciseTrackPoints(createExerciseTrackPointDtos, user.id());
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
     /**
      * Update an existing exercise track point
      * @param updateExerciseTrackPointDto the DTO containing updated track point information
@@ -55,8 +89,8 @@ public class ExerciseTrackPointController {
      * @return the updated track point
      */
     @PutMapping
-    public ResponseEntity<?> updateExerciseTrackPoint(@RequestBody UpdateExerciseTrackPointDto updateExerciseTrackPointDto, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.updateExerciseTrackPoint(updateExerciseTrackPointDto, user.getId());
+    public ResponseEntity<?> updateExerciseTrackPoint(@RequestBody UpdateExerciseTrackPointDto updateExerciseTrackPointDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.updateExerciseTrackPoint(updateExerciseTrackPointDto, user.id());
         
         if (trackPointDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Track point not found or not owned by user");
@@ -72,8 +106,8 @@ public class ExerciseTrackPointController {
      * @return the track point
      */
     @GetMapping("/{trackPointId}")
-    public ResponseEntity<?> getExerciseTrackPointById(@PathVariable UUID trackPointId, @AuthenticationPrincipal User user) {
-        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.getExerciseTrackPointById(trackPointId, user.getId());
+    public ResponseEntity<?> getExerciseTrackPointById(@PathVariable UUID trackPointId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetExerciseTrackPointDto> trackPointDtoOptional = exerciseTrackPointService.getExerciseTrackPointById(trackPointId, user.id());
         
         if (trackPointDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Track point not found or not owned by user");
@@ -85,25 +119,43 @@ public class ExerciseTrackPointController {
     /**
      * Get all track points for an exercise
      * @param exerciseId the ID of the exercise
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of track points
+     * @return a page of track points
      */
     @GetMapping("/exercise/{exerciseId}")
-    public ResponseEntity<List<GetExerciseTrackPointDto>> getTrackPointsForExercise(@PathVariable UUID exerciseId, @AuthenticationPrincipal User user) {
-        List<GetExerciseTrackPointDto> trackPoints = exerciseTrackPointService.getTrackPointsForExercise(exerciseId, user.getId());
-        return ResponseEntity.ok(trackPoints);
+    public ResponseEntity<?> getTrackPointsForExercise(@PathVariable UUID exerciseId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size,
+                                                       @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseTrackPointDto>> trackPoints = exerciseTrackPointService.getTrackPointsForExercise(exerciseId, user.id(), cursor, size);
+        if (trackPoints.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(trackPoints.get());
     }
 
     /**
      * Get track points for multiple exercises
      * @param exerciseIds the IDs of the exercises
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of track points
+     * @return a page of track points
      */
     @PostMapping("/exercises")
-    public ResponseEntity<List<GetExerciseTrackPointDto>> getTrackPointsForExercises(@RequestBody List<UUID> exerciseIds, @AuthenticationPrincipal User user) {
-        List<GetExerciseTrackPointDto> trackPoints = exerciseTrackPointService.getTrackPointsForExercises(exerciseIds, user.getId());
-        return ResponseEntity.ok(trackPoints);
+    public ResponseEntity<?> getTrackPointsForExercises(@RequestBody List<UUID> exerciseIds,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer size,
+                                                        @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetExerciseTrackPointDto>> trackPoints = exerciseTrackPointService.getTrackPointsForExercises(exerciseIds, user.id(), cursor, size);
+        if (trackPoints.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(trackPoints.get());
     }
 
     /**
@@ -111,18 +163,54 @@ public class ExerciseTrackPointController {
      * @param exerciseId the ID of the exercise
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of track points
+     * @return a page of track points
      */
     @GetMapping("/exercise/{exerciseId}/date-range")
-    public ResponseEntity<List<GetExerciseTrackPointDto>> getTrackPointsForExerciseBetweenDates(
+    public ResponseEntity<?> getTrackPointsForExerciseBetweenDates(
             @PathVariable UUID exerciseId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User user) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        
+        Optional<CursorPageDto<GetExerciseTrackPointDto>> trackPoints = exerciseTrackPointService.getTrackPointsForExerciseBetweenDates(exerciseId, startDate, endDate, user.id(), cursor, size);
+        if (trackPoints.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(trackPoints.get());
+    }
+
+    /**
+     * Get the progression of an exercise: volume, estimated one-rep max and personal records per day, week or month
+     * @param exerciseId the ID of the exercise
+     * @param bucket the length of the periods to sum up, weeks by default
+     * @param startDate the first day to include, or null to start at the first track point
+     * @param endDate the last day to include, or null to end at the last track point
+     * @param user the authenticated user
+     * @return the progression of the exercise
+     */
+    @GetMapping("/exercise/{exerciseId}/progression")
+    public ResponseEntity<?> getProgressionForExercise(
+            @PathVariable UUID exerciseId,
+            @RequestParam(defaultValue = "WEEK") ProgressionBucket bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The start date must not be after the end date");
+        }
         
-        List<GetExerciseTrackPointDto> trackPoints = exerciseTrackPointService.getTrackPointsForExerciseBetweenDates(exerciseId, startDate, endDate, user.getId());
-        return ResponseEntity.ok(trackPoints);
+        Optional<ExerciseProgressionDto> progression = exerciseProgressionService.getProgression(exerciseId, user.id(), bucket, startDate, endDate);
+        if (progression.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Exercise not found or not owned by user");
+        }
+        
+        return ResponseEntity.ok(progression.get());
     }
 
     /**
@@ -132,8 +220,8 @@ public class ExerciseTrackPointController {
      * @return success or error message
      */
     @DeleteMapping("/{trackPointId}")
-    public ResponseEntity<String> deleteExerciseTrackPoint(@PathVariable UUID trackPointId, @AuthenticationPrincipal User user) {
-        boolean deleted = exerciseTrackPointService.deleteExerciseTrackPoint(trackPointId, user.getId());
+    public ResponseEntity<String> deleteExerciseTrackPoint(@PathVariable UUID trackPointId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = exerciseTrackPointService.deleteExerciseTrackPoint(trackPointId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Track point not found or not owned by user");
@@ -141,4 +229,17 @@ public class ExerciseTrackPointController {
         
         return ResponseEntity.ok("Track point deleted successfully");
     }
-}
\ No newline at end of file
+
+    /**
+     * Repair the per exercise and day rollups of every user that drifted from the track points
+     * Only for admins, e.g., after track points were changed directly in the database
+     * @return the number of days whose rollups were recomputed
+     */
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildRollups() {
+        int rebuilt = exerciseRollupService.rebuildAllRollups();
+        
+        return ResponseEntity.ok(rebuilt);
+    }
+}
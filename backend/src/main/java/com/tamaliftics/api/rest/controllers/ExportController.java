@@ -0,0 +1,45 @@
+package com.tamaliftics.api.rest.controllers;
+
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.services.ExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Controller for exporting all data of a user
+ */
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final String EXPORT_FILE_NAME = "tamaliftics-export.ndjson";
+
+    private final ExportService exportService;
+
+    @Autowired
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Download all data of the authenticated user as newline-delimited JSON.
+     * The records are streamed to the response while they are read, so the export isn't held in memory,
+     * and the request isn't subject to the async request timeout however long the export takes.
+     * @param user the authenticated user
+     * @param response the response to write the export to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping
+    public void exportUserData(@AuthenticationPrincipal AuthenticatedUser user, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(EXPORT_FILE_NAME).build().toString());
+        exportService.exportUserData(user.id(), response.getOutputStream());
+    }
+}
@@ -1,6 +1,7 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.meal.CreateMealDto;
 import com.tamaliftics.api.rest.models.dtos.meal.GetMealDto;
 import com.tamaliftics.api.rest.models.dtos.meal.UpdateMealDto;
@@ -11,7 +12,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,8 +36,8 @@ public class MealController {
      * @return the created meal
      */
     @PostMapping
-    public ResponseEntity<?> createMeal(@RequestBody CreateMealDto createMealDto, @AuthenticationPrincipal User user) {
-        Optional<GetMealDto> mealDtoOptional = mealService.createMeal(createMealDto, user.getId());
+    public ResponseEntity<?> createMeal(@RequestBody CreateMealDto createMealDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetMealDto> mealDtoOptional = mealService.createMeal(createMealDto, user.id());
         
         if (mealDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create meal");
@@ -53,8 +53,8 @@ public class MealController {
      * @return the updated meal
      */
     @PutMapping
-    public ResponseEntity<?> updateMeal(@RequestBody UpdateMealDto updateMealDto, @AuthenticationPrincipal User user) {
-        Optional<GetMealDto> mealDtoOptional = mealService.updateMeal(updateMealDto, user.getId());
+    public ResponseEntity<?> updateMeal(@RequestBody UpdateMealDto updateMealDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetMealDto> mealDtoOptional = mealService.updateMeal(updateMealDto, user.id());
         
         if (mealDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Meal not found or not owned by user");
@@ -70,8 +70,8 @@ public class MealController {
      * @return the meal
      */
     @GetMapping("/{mealId}")
-    public ResponseEntity<?> getMealById(@PathVariable UUID mealId, @AuthenticationPrincipal User user) {
-        Optional<GetMealDto> mealDtoOptional = mealService.getMealById(mealId, user.getId());
+    public ResponseEntity<?> getMealById(@PathVariable UUID mealId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetMealDto> mealDtoOptional = mealService.getMealById(mealId, user.id());
         
         if (mealDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Meal not found or not owned by user");
@@ -82,13 +82,21 @@ public class MealController {
 
     /**
      * Get all meals for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of meals
+     * @return a page of meals
      */
     @GetMapping
-    public ResponseEntity<List<GetMealDto>> getAllMeals(@AuthenticationPrincipal User user) {
-        List<GetMealDto> meals = mealService.getAllMealsForUser(user.getId());
-        return ResponseEntity.ok(meals);
+    public ResponseEntity<?> getAllMeals(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size,
+                                         @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetMealDto>> meals = mealService.getAllMealsForUser(user.id(), cursor, size);
+        if (meals.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(meals.get());
     }
 
     /**
@@ -98,8 +106,8 @@ public class MealController {
      * @return success or error message
      */
     @DeleteMapping("/{mealId}")
-    public ResponseEntity<String> deleteMeal(@PathVariable UUID mealId, @AuthenticationPrincipal User user) {
-        boolean deleted = mealService.deleteMeal(mealId, user.getId());
+    public ResponseEntity<String> deleteMeal(@PathVariable UUID mealId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = mealService.deleteMeal(mealId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Meal not found or not owned by user");
@@ -119,9 +127,9 @@ public class MealController {
     public ResponseEntity<?> addDishToMeal(
             @PathVariable UUID mealId,
             @PathVariable UUID dishId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetMealDto> mealDtoOptional = mealService.addDishToMeal(mealId, dishId, user.getId());
+        Optional<GetMealDto> mealDtoOptional = mealService.addDishToMeal(mealId, dishId, user.id());
         
         if (mealDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -142,9 +150,9 @@ public class MealController {
     public ResponseEntity<?> removeDishFromMeal(
             @PathVariable UUID mealId,
             @PathVariable UUID dishId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetMealDto> mealDtoOptional = mealService.removeDishFromMeal(mealId, dishId, user.getId());
+        Optional<GetMealDto> mealDtoOptional = mealService.removeDishFromMeal(mealId, dishId, user.id());
         
         if (mealDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -1,17 +1,21 @@
 package com.tamaliftics.api.rest.controllers;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.weight.GetWeeklyWeightDto;
+import com.tamaliftics.api.rest.services.CollectionVersionService;
 import com.tamaliftics.api.rest.services.WeeklyWeightService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,10 +28,12 @@ import java.util.UUID;
 public class WeeklyWeightController {
 
     private final WeeklyWeightService weeklyWeightService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public WeeklyWeightController(WeeklyWeightService weeklyWeightService) {
+    public WeeklyWeightController(WeeklyWeightService weeklyWeightService, CollectionVersionService collectionVersionService) {
         this.weeklyWeightService = weeklyWeightService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -37,8 +43,8 @@ public class WeeklyWeightController {
      * @return the weekly weight record
      */
     @GetMapping("/{weeklyWeightId}")
-    public ResponseEntity<?> getWeeklyWeightById(@PathVariable UUID weeklyWeightId, @AuthenticationPrincipal User user) {
-        Optional<GetWeeklyWeightDto> weeklyWeightDtoOptional = weeklyWeightService.getWeeklyWeightById(weeklyWeightId, user.getId());
+    public ResponseEntity<?> getWeeklyWeightById(@PathVariable UUID weeklyWeightId, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetWeeklyWeightDto> weeklyWeightDtoOptional = weeklyWeightService.getWeeklyWeightById(weeklyWeightId, user.id());
         
         if (weeklyWeightDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Weekly weight record not found or not owned by user");
@@ -49,42 +55,73 @@ public class WeeklyWeightController {
 
     /**
      * Get all weekly weight records for the authenticated user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of weekly weight records
+     * @param request the request, to answer with 304 Not Modified if the client has the current page
+     * @return a page of weekly weight records
      */
     @GetMapping
-    public ResponseEntity<List<GetWeeklyWeightDto>> getAllWeeklyWeights(@AuthenticationPrincipal User user) {
-        List<GetWeeklyWeightDto> weeklyWeights = weeklyWeightService.getAllWeeklyWeightsForUser(user.getId());
-        return ResponseEntity.ok(weeklyWeights);
+    public ResponseEntity<?> getAllWeeklyWeights(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer size,
+                                                 @AuthenticationPrincipal AuthenticatedUser user,
+                                                 WebRequest request) {
+        if (request.checkNotModified(collectionVersionService.etag(VersionedCollection.WEEKLY_WEIGHTS, user.id(), cursor, size))) {
+            return null;
+        }
+
+        Optional<CursorPageDto<GetWeeklyWeightDto>> weeklyWeights = weeklyWeightService.getAllWeeklyWeightsForUser(user.id(), cursor, size);
+        if (weeklyWeights.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(weeklyWeights.get());
     }
 
     /**
      * Get weekly weight records for a specific year
      * @param year the year
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of weekly weight records
+     * @return a page of weekly weight records
      */
     @GetMapping("/year/{year}")
-    public ResponseEntity<List<GetWeeklyWeightDto>> getWeeklyWeightsByYear(@PathVariable int year, @AuthenticationPrincipal User user) {
-        List<GetWeeklyWeightDto> weeklyWeights = weeklyWeightService.getWeeklyWeightsByYear(year, user.getId());
-        return ResponseEntity.ok(weeklyWeights);
+    public ResponseEntity<?> getWeeklyWeightsByYear(@PathVariable int year,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetWeeklyWeightDto>> weeklyWeights = weeklyWeightService.getWeeklyWeightsByYear(year, user.id(), cursor, size);
+        if (weeklyWeights.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(weeklyWeights.get());
     }
 
     /**
      * Get weekly weight records between two dates
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of weekly weight records
+     * @return a page of weekly weight records
      */
     @GetMapping("/range")
-    public ResponseEntity<List<GetWeeklyWeightDto>> getWeeklyWeightsBetweenDates(
+    public ResponseEntity<?> getWeeklyWeightsBetweenDates(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @AuthenticationPrincipal User user) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        List<GetWeeklyWeightDto> weeklyWeights = weeklyWeightService.getWeeklyWeightsBetweenDates(startDate, endDate, user.getId());
-        return ResponseEntity.ok(weeklyWeights);
+        Optional<CursorPageDto<GetWeeklyWeightDto>> weeklyWeights = weeklyWeightService.getWeeklyWeightsBetweenDates(startDate, endDate, user.id(), cursor, size);
+        if (weeklyWeights.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(weeklyWeights.get());
     }
 
     /**
@@ -96,9 +133,9 @@ public class WeeklyWeightController {
     @GetMapping("/date")
     public ResponseEntity<?> getWeeklyWeightForDate(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetWeeklyWeightDto> weeklyWeightDtoOptional = weeklyWeightService.getWeeklyWeightForDate(date, user.getId());
+        Optional<GetWeeklyWeightDto> weeklyWeightDtoOptional = weeklyWeightService.getWeeklyWeightForDate(date, user.id());
         
         if (weeklyWeightDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No weekly weight record found for the specified date");
@@ -106,4 +143,17 @@ public class WeeklyWeightController {
         
         return ResponseEntity.ok(weeklyWeightDtoOptional.get());
     }
+
+    /**
+     * Recompute the weekly weights of every user from their daily weights
+     * Only for admins, to repair aggregates that drifted from the daily weights
+     * @return the number of weekly weight records that were created, updated or deleted
+     */
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildWeeklyWeights() {
+        int rebuilt = weeklyWeightService.rebuildAllWeeklyWeights();
+        
+        return ResponseEntity.ok(rebuilt);
+    }
 }
\ No newline at end of file
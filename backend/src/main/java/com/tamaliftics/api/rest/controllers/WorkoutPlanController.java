@@ -1,7 +1,8 @@
 package com.tamaliftics.api.rest.controllers;
 
 import com.tamaliftics.api.rest.models.Day;
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.workout.CreateWorkoutPlanDto;
 import com.tamaliftics.api.rest.models.dtos.workout.GetWorkoutPlanDto;
 import com.tamaliftics.api.rest.models.dtos.workout.UpdateWorkoutPlanDto;
@@ -12,7 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,8 +37,8 @@ public class WorkoutPlanController {
      * @return the created workout plan
      */
     @PostMapping
-    public ResponseEntity<?> createWorkoutPlan(@RequestBody CreateWorkoutPlanDto createWorkoutPlanDto, @AuthenticationPrincipal User user) {
-        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.createWorkoutPlan(createWorkoutPlanDto, user.getId());
+    public ResponseEntity<?> createWorkoutPlan(@RequestBody CreateWorkoutPlanDto createWorkoutPlanDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.createWorkoutPlan(createWorkoutPlanDto, user.id());
         
         if (workoutPlanDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Failed to create workout plan");
@@ -54,8 +54,8 @@ public class WorkoutPlanController {
      * @return the updated workout plan
      */
     @PutMapping
-    public ResponseEntity<?> updateWorkoutPlan(@RequestBody UpdateWorkoutPlanDto updateWorkoutPlanDto, @AuthenticationPrincipal User user) {
-        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.updateWorkoutPlan(updateWorkoutPlanDto, user.getId());
+    public ResponseEntity<?> updateWorkoutPlan(@RequestBody UpdateWorkoutPlanDto updateWorkoutPlanDto, @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.updateWorkoutPlan(updateWorkoutPlanDto, user.id());
         
         if (workoutPlanDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Workout plan not found or not owned by user");
@@ -67,12 +67,15 @@ public class WorkoutPlanController {
     /**
      * Get a workout plan by ID
      * @param workoutPlanId the ID of the workout plan to retrieve
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
      * @param user the authenticated user
      * @return the workout plan
      */
     @GetMapping("/{workoutPlanId}")
-    public ResponseEntity<?> getWorkoutPlanById(@PathVariable UUID workoutPlanId, @AuthenticationPrincipal User user) {
-        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.getWorkoutPlanById(workoutPlanId, user.getId());
+    public ResponseEntity<?> getWorkoutPlanById(@PathVariable UUID workoutPlanId,
+                                                @RequestParam(defaultValue = "false") boolean includeTrackPointSummary,
+                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.getWorkoutPlanById(workoutPlanId, user.id(), includeTrackPointSummary);
         
         if (workoutPlanDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Workout plan not found or not owned by user");
@@ -83,25 +86,46 @@ public class WorkoutPlanController {
 
     /**
      * Get all workout plans for the authenticated user
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of workout plans
+     * @return a page of workout plans
      */
     @GetMapping
-    public ResponseEntity<List<GetWorkoutPlanDto>> getAllWorkoutPlans(@AuthenticationPrincipal User user) {
-        List<GetWorkoutPlanDto> workoutPlans = workoutPlanService.getAllWorkoutPlansForUser(user.getId());
-        return ResponseEntity.ok(workoutPlans);
+    public ResponseEntity<?> getAllWorkoutPlans(@RequestParam(defaultValue = "false") boolean includeTrackPointSummary,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size,
+                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetWorkoutPlanDto>> workoutPlans = workoutPlanService.getAllWorkoutPlansForUser(user.id(), includeTrackPointSummary, cursor, size);
+        if (workoutPlans.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(workoutPlans.get());
     }
 
     /**
      * Get workout plans by day
      * @param day the day of the week
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
      * @param user the authenticated user
-     * @return list of workout plans for the specified day
+     * @return a page of workout plans for the specified day
      */
     @GetMapping("/day/{day}")
-    public ResponseEntity<List<GetWorkoutPlanDto>> getWorkoutPlansByDay(@PathVariable Day day, @AuthenticationPrincipal User user) {
-        List<GetWorkoutPlanDto> workoutPlans = workoutPlanService.getWorkoutPlansByDay(day, user.getId());
-        return ResponseEntity.ok(workoutPlans);
+    public ResponseEntity<?> getWorkoutPlansByDay(@PathVariable Day day,
+                                                  @RequestParam(defaultValue = "false") boolean includeTrackPointSummary,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer size,
+                                                  @AuthenticationPrincipal AuthenticatedUser user) {
+        Optional<CursorPageDto<GetWorkoutPlanDto>> workoutPlans = workoutPlanService.getWorkoutPlansByDay(day, user.id(), includeTrackPointSummary, cursor, size);
+        if (workoutPlans.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
+        }
+        
+        return ResponseEntity.ok(workoutPlans.get());
     }
 
     /**
@@ -111,8 +135,8 @@ public class WorkoutPlanController {
      * @return success or error message
      */
     @DeleteMapping("/{workoutPlanId}")
-    public ResponseEntity<String> deleteWorkoutPlan(@PathVariable UUID workoutPlanId, @AuthenticationPrincipal User user) {
-        boolean deleted = workoutPlanService.deleteWorkoutPlan(workoutPlanId, user.getId());
+    public ResponseEntity<String> deleteWorkoutPlan(@PathVariable UUID workoutPlanId, @AuthenticationPrincipal AuthenticatedUser user) {
+        boolean deleted = workoutPlanService.deleteWorkoutPlan(workoutPlanId, user.id());
         
         if (!deleted) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Workout plan not found or not owned by user");
@@ -132,9 +156,9 @@ public class WorkoutPlanController {
     public ResponseEntity<?> addExerciseToWorkoutPlan(
             @PathVariable UUID workoutPlanId,
             @PathVariable UUID exerciseId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.addExerciseToWorkoutPlan(workoutPlanId, exerciseId, user.getId());
+        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.addExerciseToWorkoutPlan(workoutPlanId, exerciseId, user.id());
         
         if (workoutPlanDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -155,9 +179,9 @@ public class WorkoutPlanController {
     public ResponseEntity<?> removeExerciseFromWorkoutPlan(
             @PathVariable UUID workoutPlanId,
             @PathVariable UUID exerciseId,
-            @AuthenticationPrincipal User user) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
         
-        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.removeExerciseFromWorkoutPlan(workoutPlanId, exerciseId, user.getId());
+        Optional<GetWorkoutPlanDto> workoutPlanDtoOptional = workoutPlanService.removeExerciseFromWorkoutPlan(workoutPlanId, exerciseId, user.id());
         
         if (workoutPlanDtoOptional.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
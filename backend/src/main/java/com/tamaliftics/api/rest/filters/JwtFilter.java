@@ -1,7 +1,9 @@
 package com.tamaliftics.api.rest.filters;
 
-import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.TokenClaims;
 import com.tamaliftics.api.rest.services.JwtService;
+import com.tamaliftics.api.rest.services.TokenCacheService;
 import com.tamaliftics.api.rest.services.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -27,10 +29,13 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final UserService userService;
 
+    private final TokenCacheService tokenCacheService;
+
     @Autowired // Inject the JwtService
-    public JwtFilter(JwtService jwtService, UserService userService) {
+    public JwtFilter(JwtService jwtService, UserService userService, TokenCacheService tokenCacheService) {
         this.jwtService = jwtService;
         this.userService = userService;
+        this.tokenCacheService = tokenCacheService;
     }
 
     /**
@@ -51,21 +56,43 @@ public class JwtFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                if (jwtService.validateToken(token)) {
-                    Optional<User> user = userService.getUserById(jwtService.extractUserId(token));
-                    if (!user.isEmpty()) {
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                user.get(), user.get().getId(), null ); // no authories i.e., roles
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                    } else {
-                        LOG.info("User sent a valid token but the user was not found in the database");
-                        filterChain.doFilter(request, response);
-                    }
-
+                Optional<AuthenticatedUser> principal = resolvePrincipal(token);
+                if (principal.isPresent()) {
+                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                            principal.get(), null, principal.get().getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             }
         }
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Resolves the principal of a token, skipping the signature check and the existence check if the token is cached.
+     * The principal is built from the token claims, so the user entity is never loaded here.
+     * @param token the raw bearer token
+     * @return the principal if the token is valid and the user exists, empty otherwise
+     */
+    private Optional<AuthenticatedUser> resolvePrincipal(String token) {
+        Optional<AuthenticatedUser> cachedPrincipal = tokenCacheService.get(token);
+        if (cachedPrincipal.isPresent()) {
+            return cachedPrincipal;
+        }
+
+        // verify the token once and reuse its claims
+        Optional<TokenClaims> claims = jwtService.parseToken(token);
+        if (claims.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (!userService.userExists(claims.get().userId())) {
+            LOG.info("User sent a valid token but the user was not found in the database");
+            return Optional.empty();
+        }
+
+        AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims.get());
+        tokenCacheService.put(token, claims.get(), principal);
+        return Optional.of(principal);
+    }
 }
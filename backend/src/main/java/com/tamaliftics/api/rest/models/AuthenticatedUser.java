@@ -0,0 +1,35 @@
+package com.tamaliftics.api.rest.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable principal of an authenticated request, built from the claims of its jwt token.
+ * Use the id to load the full {@link User} only when it is actually needed.
+ * @param id the id of the user
+ * @param username the username of the user
+ * @param role the role of the user
+ */
+public record AuthenticatedUser(
+        UUID id,
+        String username,
+        Role role
+) implements Principal {
+
+    public static AuthenticatedUser fromClaims(TokenClaims claims) {
+        return new AuthenticatedUser(claims.userId(), claims.username(), claims.role());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
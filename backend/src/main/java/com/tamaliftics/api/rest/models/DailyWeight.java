@@ -8,11 +8,12 @@ import java.util.UUID;
  * Entity representing a daily weight record for a user.
  */
 @Entity
-@Table(name = "daily_weights")
+@Table(name = "daily_weights",
+        uniqueConstraints = @UniqueConstraint(name = "uk_daily_weights_user_date", columnNames = {"user_id", "date"}))
 public class DailyWeight {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
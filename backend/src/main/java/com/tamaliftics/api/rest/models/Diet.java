@@ -1,6 +1,9 @@
 package com.tamaliftics.api.rest.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -10,11 +13,12 @@ import java.util.UUID;
  * A diet has a name, description, and a list of meals.
  */
 @Entity
-@Table(name = "diets")
+@Table(name = "diets",
+        indexes = @Index(name = "idx_diets_user_created_at", columnList = "user_id, created_at"))
 public class Diet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -27,10 +31,19 @@ public class Diet {
     @JoinColumn(name = "diet_id")
     private List<Meal> meals = new ArrayList<>();
 
+    // kept up to date on every change of the meals, so a diet summary is a single row read
+    @Embedded
+    private NutritionTotals totals = NutritionTotals.ZERO;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    // the latest diet of a user is the current one, IDs can't tell which is the latest
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
     public Diet() {
     }
 
@@ -73,14 +86,18 @@ public class Diet {
         if (meals != null) {
             this.meals.addAll(meals);
         }
+        recalculateTotals();
     }
 
     public void addMeal(Meal meal) {
         this.meals.add(meal);
+        this.totals = totals.plus(meal.getTotals());
     }
 
     public void removeMeal(Meal meal) {
-        this.meals.remove(meal);
+        if (this.meals.remove(meal)) {
+            this.totals = totals.minus(meal.getTotals());
+        }
     }
 
     public User getUser() {
@@ -91,6 +108,10 @@ public class Diet {
         this.user = user;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
     /**
      * Get the breakfast meal from the diet.
      * @return the breakfast meal, or null if not found
@@ -135,35 +156,40 @@ public class Diet {
                 .orElse(null);
     }
 
+    public NutritionTotals getTotals() {
+        return totals;
+    }
+
     /**
-     * Calculate the total calories of the diet.
-     * @return the total calories
+     * Recalculate the totals from the stored totals of the meals of the diet.
      */
-    public double getTotalCalories() {
-        return meals.stream().mapToDouble(Meal::getTotalCalories).sum();
+    public void recalculateTotals() {
+        this.totals = meals.stream()
+                .map(Meal::getTotals)
+                .reduce(NutritionTotals.ZERO, NutritionTotals::plus);
     }
 
     /**
-     * Calculate the total carbs of the diet.
-     * @return the total carbs
+     * Apply the change of the totals of one of the meals of the diet.
+     * @param delta the difference between the new and the old totals of the meal
      */
+    public void applyTotalsDelta(NutritionTotals delta) {
+        this.totals = totals.plus(delta);
+    }
+
+    public double getTotalCalories() {
+        return totals.calories();
+    }
+
     public double getTotalCarbs() {
-        return meals.stream().mapToDouble(Meal::getTotalCarbs).sum();
+        return totals.carbs();
     }
 
-    /**
-     * Calculate the total fat of the diet.
-     * @return the total fat
-     */
     public double getTotalFat() {
-        return meals.stream().mapToDouble(Meal::getTotalFat).sum();
+        return totals.fat();
     }
 
-    /**
-     * Calculate the total protein of the diet.
-     * @return the total protein
-     */
     public double getTotalProtein() {
-        return meals.stream().mapToDouble(Meal::getTotalProtein).sum();
+        return totals.protein();
     }
 }
@@ -1,6 +1,8 @@
 package com.tamaliftics.api.rest.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.UUID;
 
 /**
@@ -9,10 +11,12 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "dishes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "dishes")
 public class Dish {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -1,6 +1,8 @@
 package com.tamaliftics.api.rest.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -11,10 +13,12 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "exercises")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exercises")
 public class Exercise {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
@@ -9,11 +9,12 @@ import java.util.UUID;
  * An exercise track point records the date, reps, sets, and description for a specific exercise.
  */
 @Entity
-@Table(name = "exercise_track_points")
+@Table(name = "exercise_track_points",
+        indexes = @Index(name = "idx_exercise_track_points_exercise_date", columnList = "exercise_id, date"))
 public class ExerciseTrackPoint {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(nullable = false)
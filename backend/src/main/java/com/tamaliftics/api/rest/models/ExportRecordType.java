@@ -0,0 +1,14 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the kinds of records in an export of the data of a user.
+ */
+public enum ExportRecordType {
+    EXERCISE_CATEGORY,
+    EXERCISE,
+    EXERCISE_TRACK_POINT,
+    DAILY_WEIGHT,
+    DISH,
+    DIET,
+    MEAL
+}
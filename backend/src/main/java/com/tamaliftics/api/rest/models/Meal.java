@@ -1,6 +1,9 @@
 package com.tamaliftics.api.rest.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -14,7 +17,7 @@ import java.util.UUID;
 public class Meal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Enumerated(EnumType.STRING)
@@ -25,10 +28,17 @@ public class Meal {
     @JoinTable(
         name = "meal_dishes",
         joinColumns = @JoinColumn(name = "meal_id"),
-        inverseJoinColumns = @JoinColumn(name = "dish_id")
+        inverseJoinColumns = @JoinColumn(name = "dish_id"),
+        indexes = @Index(name = "idx_meal_dishes_dish_meal", columnList = "dish_id, meal_id")
     )
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "meal-dishes")
     private List<Dish> dishes = new ArrayList<>();
 
+    // kept up to date on every change of the dishes, so the totals can be read without loading the dishes
+    @Embedded
+    private NutritionTotals totals = NutritionTotals.ZERO;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -63,14 +73,18 @@ public class Meal {
 
     public void setDishes(List<Dish> dishes) {
         this.dishes = dishes;
+        recalculateTotals();
     }
 
     public void addDish(Dish dish) {
         this.dishes.add(dish);
+        this.totals = totals.plus(NutritionTotals.of(dish));
     }
 
     public void removeDish(Dish dish) {
-        this.dishes.remove(dish);
+        if (this.dishes.remove(dish)) {
+            this.totals = totals.minus(NutritionTotals.of(dish));
+        }
     }
 
     public User getUser() {
@@ -81,35 +95,32 @@ public class Meal {
         this.user = user;
     }
 
+    public NutritionTotals getTotals() {
+        return totals;
+    }
+
     /**
-     * Calculate the total calories of the meal.
-     * @return the total calories
+     * Recalculate the totals from the dishes of the meal.
      */
+    public void recalculateTotals() {
+        this.totals = dishes.stream()
+                .map(NutritionTotals::of)
+                .reduce(NutritionTotals.ZERO, NutritionTotals::plus);
+    }
+
     public double getTotalCalories() {
-        return dishes.stream().mapToDouble(Dish::getCalories).sum();
+        return totals.calories();
     }
 
-    /**
-     * Calculate the total carbs of the meal.
-     * @return the total carbs
-     */
     public double getTotalCarbs() {
-        return dishes.stream().mapToDouble(Dish::getCarbs).sum();
+        return totals.carbs();
     }
 
-    /**
-     * Calculate the total fat of the meal.
-     * @return the total fat
-     */
     public double getTotalFat() {
-        return dishes.stream().mapToDouble(Dish::getFat).sum();
+        return totals.fat();
     }
 
-    /**
-     * Calculate the total protein of the meal.
-     * @return the total protein
-     */
     public double getTotalProtein() {
-        return dishes.stream().mapToDouble(Dish::getProtein).sum();
+        return totals.protein();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.tamaliftics.api.rest.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * The summed up macros of a meal or a diet.
+ * Stored next to the meal or diet, so reading the totals doesn't need to load its dishes.
+ * @param calories the total calories
+ * @param carbs the total carbs
+ * @param fat the total fat
+ * @param protein the total protein
+ */
+@Embeddable
+public record NutritionTotals(
+        @Column(name = "total_calories", nullable = false)
+        double calories,
+        @Column(name = "total_carbs", nullable = false)
+        double carbs,
+        @Column(name = "total_fat", nullable = false)
+        double fat,
+        @Column(name = "total_protein", nullable = false)
+        double protein
+) {
+
+    public static final NutritionTotals ZERO = new NutritionTotals(0, 0, 0, 0);
+
+    /**
+     * Get the macros of a single dish.
+     * @param dish the dish
+     * @return the macros of the dish
+     */
+    public static NutritionTotals of(Dish dish) {
+        return new NutritionTotals(dish.getCalories(), dish.getCarbs(), dish.getFat(), dish.getProtein());
+    }
+
+    public NutritionTotals plus(NutritionTotals other) {
+        return new NutritionTotals(calories + other.calories, carbs + other.carbs, fat + other.fat, protein + other.protein);
+    }
+
+    public NutritionTotals minus(NutritionTotals other) {
+        return new NutritionTotals(calories - other.calories, carbs - other.carbs, fat - other.fat, protein - other.protein);
+    }
+}
@@ -0,0 +1,10 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the kinds of personal records of an exercise.
+ */
+public enum PersonalRecordType {
+    ESTIMATED_ONE_REP_MAX,
+    MAX_WEIGHT,
+    VOLUME
+}
@@ -0,0 +1,10 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the length of the periods an exercise progression is summed up by.
+ */
+public enum ProgressionBucket {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -0,0 +1,11 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the kinds of entities that can be searched by name.
+ */
+public enum SearchableEntity {
+    DISH,
+    DIET,
+    EXERCISE,
+    EXERCISE_CATEGORY
+}
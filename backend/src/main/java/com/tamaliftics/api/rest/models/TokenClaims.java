@@ -0,0 +1,19 @@
+package com.tamaliftics.api.rest.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The claims of a jwt token whose signature has already been verified.
+ * @param userId the id of the user the token was issued to
+ * @param username the subject of the token
+ * @param role the role of the user the token was issued to
+ * @param expiresAt the instant the token expires
+ */
+public record TokenClaims(
+        UUID userId,
+        String username,
+        Role role,
+        Instant expiresAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the outcome of a single item of a bulk upsert.
+ */
+public enum UpsertStatus {
+    CREATED,
+    UPDATED,
+    DUPLICATE,
+    INVALID
+}
@@ -0,0 +1,18 @@
+package com.tamaliftics.api.rest.models;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the id of an entity as a time-ordered version 7 uuid, see {@link UuidV7Generator}.
+ * Replaces {@code @GeneratedValue(strategy = GenerationType.UUID)}, which generates random version 4 uuids.
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface UuidV7 {
+}
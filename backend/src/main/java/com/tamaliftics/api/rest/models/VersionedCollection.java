@@ -0,0 +1,10 @@
+package com.tamaliftics.api.rest.models;
+
+/**
+ * Enum representing the collections of a user whose listings are served with an ETag.
+ */
+public enum VersionedCollection {
+    WEEKLY_WEIGHTS,
+    DIETS,
+    EXERCISES
+}
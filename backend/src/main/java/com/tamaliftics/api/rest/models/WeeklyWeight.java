@@ -8,11 +8,13 @@ import java.util.UUID;
  * Entity representing a weekly weight average for a user.
  */
 @Entity
-@Table(name = "weekly_weights")
+@Table(name = "weekly_weights",
+        uniqueConstraints = @UniqueConstraint(name = "uk_weekly_weights_user_year_week", columnNames = {"user_id", "year", "week_number"}),
+        indexes = @Index(name = "idx_weekly_weights_user_start_date", columnList = "user_id, start_date"))
 public class WeeklyWeight {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Column(name = "week_number", nullable = false)
@@ -30,6 +32,13 @@ public class WeeklyWeight {
     @Column(name = "average_weight", nullable = false)
     private double averageWeight;
 
+    // running aggregates of the daily weights of the week, so the average can be updated with a delta
+    @Column(name = "weight_sum", nullable = false)
+    private double weightSum;
+
+    @Column(name = "weight_count", nullable = false)
+    private int weightCount;
+
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -94,6 +103,22 @@ public class WeeklyWeight {
         this.averageWeight = averageWeight;
     }
 
+    public double getWeightSum() {
+        return weightSum;
+    }
+
+    public void setWeightSum(double weightSum) {
+        this.weightSum = weightSum;
+    }
+
+    public int getWeightCount() {
+        return weightCount;
+    }
+
+    public void setWeightCount(int weightCount) {
+        this.weightCount = weightCount;
+    }
+
     public User getUser() {
         return user;
     }
@@ -102,6 +127,17 @@ public class WeeklyWeight {
         this.user = user;
     }
 
+    /**
+     * Apply a change of the daily weights of this week to the running aggregates and the average.
+     * @param weightDelta the change of the sum of the daily weights
+     * @param countDelta the change of the number of daily weights
+     */
+    public void applyDelta(double weightDelta, int countDelta) {
+        this.weightSum += weightDelta;
+        this.weightCount += countDelta;
+        this.averageWeight = weightCount > 0 ? weightSum / weightCount : 0.0;
+    }
+
     /**
      * Check if a date falls within this week.
      * @param date the date to check
@@ -1,6 +1,9 @@
 package com.tamaliftics.api.rest.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -10,11 +13,12 @@ import java.util.UUID;
  * A workout plan has a type, day, description, and a list of exercises.
  */
 @Entity
-@Table(name = "workout_plans")
+@Table(name = "workout_plans",
+        indexes = @Index(name = "idx_workout_plans_user_day", columnList = "user_id, day"))
 public class WorkoutPlan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private UUID id;
 
     @Enumerated(EnumType.STRING)
@@ -34,6 +38,8 @@ public class WorkoutPlan {
         joinColumns = @JoinColumn(name = "workout_plan_id"),
         inverseJoinColumns = @JoinColumn(name = "exercise_id")
     )
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "workout-plan-exercises")
     private List<Exercise> exercises = new ArrayList<>();
 
     @ManyToOne
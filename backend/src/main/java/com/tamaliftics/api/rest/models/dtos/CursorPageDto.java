@@ -0,0 +1,15 @@
+package com.tamaliftics.api.rest.models.dtos;
+
+import java.util.List;
+
+/**
+ * DTO for a page of a list endpoint.
+ * @param items the items of the page
+ * @param nextCursor the cursor to request the next page with, or null if this is the last page
+ * @param <T> the type of the items
+ */
+public record CursorPageDto<T>(
+    List<T> items,
+    String nextCursor
+) {
+}
@@ -0,0 +1,19 @@
+package com.tamaliftics.api.rest.models.dtos.csv;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a CSV import.
+ * Rows are numbered like in a spreadsheet, the header is row 1.
+ * Only the first rejected rows are listed, rejected counts all of them.
+ * An import that stopped before the end of the file, because the user was deleted meanwhile, is not complete,
+ * the rows it created or updated until then are kept.
+ */
+public record CsvImportResultDto(
+    long created,
+    long updated,
+    long rejected,
+    List<CsvImportRowErrorDto> errors,
+    boolean complete
+) {
+}
@@ -0,0 +1,10 @@
+package com.tamaliftics.api.rest.models.dtos.csv;
+
+/**
+ * DTO for a row of a CSV import that was rejected.
+ */
+public record CsvImportRowErrorDto(
+    long row,
+    String message
+) {
+}
@@ -0,0 +1,29 @@
+package com.tamaliftics.api.rest.models.dtos.dashboard;
+
+import com.tamaliftics.api.rest.models.Day;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
+import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
+import com.tamaliftics.api.rest.models.dtos.weight.GetWeeklyWeightDto;
+import com.tamaliftics.api.rest.models.dtos.workout.GetWorkoutPlanDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for everything the start page shows for a day.
+ * @param date the day of the dashboard
+ * @param day the day of the week of the date
+ * @param workoutPlans the workout plans of the day of the week
+ * @param recentDailyWeights the latest daily weights, newest first
+ * @param recentWeeklyWeights the latest weekly weights, newest first
+ * @param currentDiet the totals of the latest diet, or null if the user has no diet
+ */
+public record GetDashboardDto(
+    LocalDate date,
+    Day day,
+    List<GetWorkoutPlanDto> workoutPlans,
+    List<GetDailyWeightDto> recentDailyWeights,
+    List<GetWeeklyWeightDto> recentWeeklyWeights,
+    DietSummaryDto currentDiet
+) {
+}
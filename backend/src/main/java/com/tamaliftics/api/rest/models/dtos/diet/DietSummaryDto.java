@@ -0,0 +1,16 @@
+package com.tamaliftics.api.rest.models.dtos.diet;
+
+import java.util.UUID;
+
+/**
+ * DTO for retrieving the nutrition totals of a diet without its meals.
+ */
+public record DietSummaryDto(
+    UUID id,
+    String name,
+    double totalCalories,
+    double totalCarbs,
+    double totalFat,
+    double totalProtein
+) {
+}
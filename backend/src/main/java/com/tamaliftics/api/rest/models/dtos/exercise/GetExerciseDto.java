@@ -1,5 +1,6 @@
 package com.tamaliftics.api.rest.models.dtos.exercise;
 
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
 
 import java.util.List;
@@ -7,6 +8,7 @@ import java.util.UUID;
 
 /**
  * DTO for retrieving exercise information.
+ * Exercises of workout plans come without track points, and with a summary of them only if requested.
  */
 public record GetExerciseDto(
     UUID id,
@@ -14,6 +16,7 @@ public record GetExerciseDto(
     String description,
     GetExerciseCategoryDto category,
     List<GetExerciseTrackPointDto> trackPoints,
+    ExerciseTrackPointSummaryDto trackPointSummary,
     UUID userId
 ) {
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.tamaliftics.api.rest.models.dtos.export;
+
+import com.tamaliftics.api.rest.models.ExportRecordType;
+
+/**
+ * DTO for one line of an export of the data of a user.
+ */
+public record ExportRecordDto(
+    ExportRecordType type,
+    Object data
+) {
+}
@@ -0,0 +1,17 @@
+package com.tamaliftics.api.rest.models.dtos.export;
+
+import java.util.UUID;
+
+/**
+ * DTO for an exported diet, its meals are exported separately and reference it.
+ */
+public record ExportedDietDto(
+    UUID id,
+    String name,
+    String description,
+    double totalCalories,
+    double totalCarbs,
+    double totalFat,
+    double totalProtein
+) {
+}
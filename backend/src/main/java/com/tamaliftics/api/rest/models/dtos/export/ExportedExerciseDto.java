@@ -0,0 +1,14 @@
+package com.tamaliftics.api.rest.models.dtos.export;
+
+import java.util.UUID;
+
+/**
+ * DTO for an exported exercise, its track points are exported separately.
+ */
+public record ExportedExerciseDto(
+    UUID id,
+    String name,
+    String description,
+    UUID categoryId
+) {
+}
@@ -0,0 +1,21 @@
+package com.tamaliftics.api.rest.models.dtos.export;
+
+import com.tamaliftics.api.rest.models.MealType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for an exported meal, its dishes are exported separately and referenced by ID.
+ */
+public record ExportedMealDto(
+    UUID id,
+    MealType type,
+    UUID dietId,
+    List<UUID> dishIds,
+    double totalCalories,
+    double totalCarbs,
+    double totalFat,
+    double totalProtein
+) {
+}
@@ -0,0 +1,22 @@
+package com.tamaliftics.api.rest.models.dtos.progression;
+
+import java.time.LocalDate;
+
+/**
+ * DTO summing up the track points of an exercise on one day.
+ * @param date the day
+ * @param volume the sum of sets times reps times weight
+ * @param bestEstimatedOneRepMax the best one-rep max estimated with the Epley formula
+ * @param maxWeight the heaviest weight
+ * @param sets the number of sets
+ * @param reps the number of reps of all sets
+ */
+public record ExerciseDailyTotalsDto(
+    LocalDate date,
+    Double volume,
+    Double bestEstimatedOneRepMax,
+    Float maxWeight,
+    Long sets,
+    Long reps
+) {
+}
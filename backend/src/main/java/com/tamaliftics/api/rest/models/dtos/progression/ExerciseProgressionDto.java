@@ -0,0 +1,21 @@
+package com.tamaliftics.api.rest.models.dtos.progression;
+
+import com.tamaliftics.api.rest.models.ProgressionBucket;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO for the progression of an exercise over time.
+ * @param exerciseId the ID of the exercise
+ * @param bucket the length of the periods the points sum up
+ * @param points one point per period with track points, oldest first
+ * @param personalRecords the personal records set in the requested range, oldest first
+ */
+public record ExerciseProgressionDto(
+    UUID exerciseId,
+    ProgressionBucket bucket,
+    List<ProgressionPointDto> points,
+    List<PersonalRecordDto> personalRecords
+) {
+}
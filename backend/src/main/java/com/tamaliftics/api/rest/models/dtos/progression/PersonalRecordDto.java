@@ -0,0 +1,20 @@
+package com.tamaliftics.api.rest.models.dtos.progression;
+
+import com.tamaliftics.api.rest.models.PersonalRecordType;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for a day on which an exercise beat one of its earlier bests.
+ * @param date the day of the record
+ * @param type what was beaten
+ * @param value the new best
+ * @param previousValue the best before that day
+ */
+public record PersonalRecordDto(
+    LocalDate date,
+    PersonalRecordType type,
+    double value,
+    double previousValue
+) {
+}
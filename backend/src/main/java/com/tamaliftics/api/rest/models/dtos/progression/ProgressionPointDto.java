@@ -0,0 +1,24 @@
+package com.tamaliftics.api.rest.models.dtos.progression;
+
+import java.time.LocalDate;
+
+/**
+ * DTO summing up the track points of an exercise in one bucket of a progression.
+ * @param startDate the first day of the bucket
+ * @param trainingDays the number of days with track points in the bucket
+ * @param volume the sum of sets times reps times weight
+ * @param bestEstimatedOneRepMax the best one-rep max estimated with the Epley formula
+ * @param maxWeight the heaviest weight
+ * @param sets the number of sets
+ * @param reps the number of reps of all sets
+ */
+public record ProgressionPointDto(
+    LocalDate startDate,
+    int trainingDays,
+    double volume,
+    double bestEstimatedOneRepMax,
+    float maxWeight,
+    long sets,
+    long reps
+) {
+}
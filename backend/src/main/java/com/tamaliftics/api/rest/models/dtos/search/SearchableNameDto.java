@@ -0,0 +1,12 @@
+package com.tamaliftics.api.rest.models.dtos.search;
+
+import java.util.UUID;
+
+/**
+ * DTO for the name of an entity that can be searched by name.
+ */
+public record SearchableNameDto(
+    UUID id,
+    String name
+) {
+}
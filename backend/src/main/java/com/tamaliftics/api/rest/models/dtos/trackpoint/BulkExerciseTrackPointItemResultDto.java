@@ -0,0 +1,16 @@
+package com.tamaliftics.api.rest.models.dtos.trackpoint;
+
+import com.tamaliftics.api.rest.models.UpsertStatus;
+
+import java.util.UUID;
+
+/**
+ * DTO for the outcome of a single set of a bulk track point creation.
+ */
+public record BulkExerciseTrackPointItemResultDto(
+    int index,
+    UpsertStatus status,
+    UUID id,
+    String message
+) {
+}
@@ -0,0 +1,13 @@
+package com.tamaliftics.api.rest.models.dtos.trackpoint;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk track point creation, with one result per set in request order.
+ */
+public record BulkExerciseTrackPointResultDto(
+    int created,
+    int rejected,
+    List<BulkExerciseTrackPointItemResultDto> results
+) {
+}
@@ -0,0 +1,13 @@
+package com.tamaliftics.api.rest.models.dtos.trackpoint;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTO for the exercise and day of a track point, the key of a rollup of track points.
+ */
+public record ExerciseTrackPointDayDto(
+    UUID exerciseId,
+    LocalDate date
+) {
+}
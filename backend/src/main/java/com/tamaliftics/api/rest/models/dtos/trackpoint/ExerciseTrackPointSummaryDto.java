@@ -0,0 +1,16 @@
+package com.tamaliftics.api.rest.models.dtos.trackpoint;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTO summarizing the track points of an exercise, instead of listing all of them.
+ */
+public record ExerciseTrackPointSummaryDto(
+    UUID exerciseId,
+    Long count,
+    LocalDate firstDate,
+    LocalDate lastDate,
+    Float maxWeight
+) {
+}
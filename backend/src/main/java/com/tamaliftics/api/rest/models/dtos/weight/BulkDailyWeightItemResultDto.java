@@ -0,0 +1,18 @@
+package com.tamaliftics.api.rest.models.dtos.weight;
+
+import com.tamaliftics.api.rest.models.UpsertStatus;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTO for the outcome of a single reading of a bulk daily weight upsert.
+ */
+public record BulkDailyWeightItemResultDto(
+    int index,
+    LocalDate date,
+    UpsertStatus status,
+    UUID id,
+    String message
+) {
+}
@@ -0,0 +1,14 @@
+package com.tamaliftics.api.rest.models.dtos.weight;
+
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk daily weight upsert, with one result per reading in request order.
+ */
+public record BulkDailyWeightResultDto(
+    int created,
+    int updated,
+    int rejected,
+    List<BulkDailyWeightItemResultDto> results
+) {
+}
@@ -0,0 +1,12 @@
+package com.tamaliftics.api.rest.models.dtos.weight;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for the date and weight of a daily weight, without the entity around it.
+ */
+public record DailyWeightReadingDto(
+    LocalDate date,
+    Double weight
+) {
+}
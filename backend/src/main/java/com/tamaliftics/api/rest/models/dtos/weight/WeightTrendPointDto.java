@@ -0,0 +1,20 @@
+package com.tamaliftics.api.rest.models.dtos.weight;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for the trend of the weight of a user on a day with a daily weight.
+ * @param date the day
+ * @param weight the daily weight of the day
+ * @param movingAverage the average of the daily weights of the last 7 days, including the day
+ * @param trend the exponentially smoothed weight
+ * @param weeklyRate the change of the trend per week, measured over the last week or since the first daily weight
+ */
+public record WeightTrendPointDto(
+    LocalDate date,
+    double weight,
+    double movingAverage,
+    double trend,
+    double weeklyRate
+) {
+}
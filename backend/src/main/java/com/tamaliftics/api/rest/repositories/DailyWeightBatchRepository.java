@@ -0,0 +1,87 @@
+package com.tamaliftics.api.rest.repositories;
+
+import com.tamaliftics.api.rest.models.DailyWeight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes many daily weights at once with JDBC batches, bypassing the persistence context.
+ * Statements take part in the surrounding JPA transaction.
+ * For MySQL, add rewriteBatchedStatements=true to the datasource url so each batch is sent as one multi-row statement.
+ */
+@Repository
+public class DailyWeightBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public DailyWeightBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Find the IDs of the daily weights of a user on some dates.
+     * The dates are looked up in batches, each batch with the unique index on the user and date.
+     * @param userId the ID of the user
+     * @param dates the dates
+     * @return the ID of the daily weight of each date that has one
+     */
+    public Map<LocalDate, UUID> findIdsByUserIdAndDateIn(UUID userId, Collection<LocalDate> dates) {
+        Map<LocalDate, UUID> ids = new HashMap<>();
+        List<LocalDate> remaining = new ArrayList<>(dates);
+        for (int i = 0; i < remaining.size(); i += BATCH_SIZE) {
+            List<LocalDate> batch = remaining.subList(i, Math.min(i + BATCH_SIZE, remaining.size()));
+            List<Object> arguments = new ArrayList<>(batch.size() + 1);
+            arguments.add(UuidBytes.toBytes(userId));
+            batch.forEach(date -> arguments.add(Date.valueOf(date)));
+            jdbcTemplate.query("select id, date from daily_weights where user_id = ? and date in ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    resultSet -> {
+                        ids.putIfAbsent(resultSet.getDate("date").toLocalDate(), UuidBytes.fromBytes(resultSet.getBytes("id")));
+                    },
+                    arguments.toArray());
+        }
+        return ids;
+    }
+
+    /**
+     * Insert new daily weights. The daily weights must already have an ID.
+     * @param dailyWeights the daily weights to insert
+     * @param userId the ID of the user the daily weights belong to
+     */
+    public void insertAll(List<DailyWeight> dailyWeights, UUID userId) {
+        byte[] user = UuidBytes.toBytes(userId);
+        jdbcTemplate.batchUpdate("insert into daily_weights (id, date, weight, user_id) values (?, ?, ?, ?)",
+                dailyWeights, BATCH_SIZE, (statement, dailyWeight) -> {
+                    statement.setBytes(1, UuidBytes.toBytes(dailyWeight.getId()));
+                    statement.setDate(2, Date.valueOf(dailyWeight.getDate()));
+                    statement.setDouble(3, dailyWeight.getWeight());
+                    statement.setBytes(4, user);
+                });
+    }
+
+    /**
+     * Overwrite the weight of existing daily weights.
+     * @param dailyWeights the daily weights to update, identified by their ID
+     */
+    public void updateWeights(List<DailyWeight> dailyWeights) {
+        jdbcTemplate.batchUpdate("update daily_weights set weight = ? where id = ?",
+                dailyWeights, BATCH_SIZE, (statement, dailyWeight) -> {
+                    statement.setDouble(1, dailyWeight.getWeight());
+                    statement.setBytes(2, UuidBytes.toBytes(dailyWeight.getId()));
+                });
+    }
+}
@@ -2,10 +2,17 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.DailyWeight;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.dtos.weight.DailyWeightReadingDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -40,6 +47,14 @@ public interface DailyWeightRepository extends JpaRepository<DailyWeight, UUID>
      */
     List<DailyWeight> findByDateBetweenAndUser(LocalDate startDate, LocalDate endDate, User user);
     
+    /**
+     * Find the daily weights of a user on some dates.
+     * @param dates the dates
+     * @param user the user
+     * @return a list of daily weights
+     */
+    List<DailyWeight> findByDateInAndUser(Collection<LocalDate> dates, User user);
+    
     /**
      * Find all daily weights after a date for a user.
      * @param date the date (exclusive)
@@ -55,4 +70,41 @@ public interface DailyWeightRepository extends JpaRepository<DailyWeight, UUID>
      * @return a list of daily weights
      */
     List<DailyWeight> findByDateBeforeAndUser(LocalDate date, User user);
+    
+    /**
+     * Find the dates and weights of all daily weights of a user, oldest first, without loading the entities.
+     * @param userId the ID of the user
+     * @return a list of readings
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.weight.DailyWeightReadingDto(d.date, d.weight) " +
+            "from DailyWeight d where d.user.id = :userId order by d.date")
+    List<DailyWeightReadingDto> findReadingsByUserId(@Param("userId") UUID userId);
+    
+    /**
+     * Find a daily weight by ID if it belongs to a user.
+     * @param id the daily weight ID
+     * @param userId the ID of the user
+     * @return an optional containing the daily weight if found and owned by the user
+     */
+    Optional<DailyWeight> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Scroll through the daily weights of a user, newest first.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of daily weights
+     */
+    Window<DailyWeight> findByUserIdOrderByDateDescIdDesc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the daily weights of a user between two dates, newest first.
+     * @param userId the ID of the user
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of daily weights
+     */
+    Window<DailyWeight> findByUserIdAndDateBetweenOrderByDateDescIdDesc(UUID userId, LocalDate startDate, LocalDate endDate, ScrollPosition position, Limit limit);
 }
\ No newline at end of file
@@ -2,9 +2,18 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.Diet;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,4 +46,88 @@ public interface DietRepository extends JpaRepository<Diet, UUID> {
      * @return a list of diets
      */
     List<Diet> findByNameContainingIgnoreCaseAndUser(String name, User user);
+    
+    /**
+     * Find a diet by ID if it belongs to a user.
+     * @param id the diet ID
+     * @param userId the ID of the user
+     * @return an optional containing the diet if found and owned by the user
+     */
+    Optional<Diet> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Find a diet by ID if it belongs to a user, together with its meals.
+     * @param id the diet ID
+     * @param userId the ID of the user
+     * @return an optional containing the diet with initialized meals if found and owned by the user
+     */
+    @Query("select d from Diet d join fetch d.user left join fetch d.meals where d.id = :id and d.user.id = :userId")
+    Optional<Diet> findWithMealsByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Scroll through the diets of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of diets
+     */
+    @EntityGraph(attributePaths = "user")
+    Window<Diet> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the diets of a user with a name containing a string, ordered by ID.
+     * @param name the name to search for
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of diets
+     */
+    @EntityGraph(attributePaths = "user")
+    Window<Diet> findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(String name, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Find all diets with the given IDs together with their meals.
+     * Diets that are already managed by the persistence context get their meals initialized by this query.
+     * @param ids the diet IDs
+     * @return a list of diets with initialized meals
+     */
+    @Query("select distinct d from Diet d left join fetch d.meals where d.id in :ids")
+    List<Diet> findWithMealsByIdIn(@Param("ids") Collection<UUID> ids);
+    
+    /**
+     * Find the diet a meal belongs to.
+     * @param mealId the meal ID
+     * @return an optional containing the diet if the meal belongs to one
+     */
+    Optional<Diet> findByMealsId(UUID mealId);
+    
+    /**
+     * Get the summary of a diet if it belongs to a user.
+     * Reads the stored totals of the diet, without loading its meals or dishes.
+     * @param id the diet ID
+     * @param userId the ID of the user
+     * @return an optional containing the summary if the diet is found and owned by the user
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto(d.id, d.name, d.totals.calories, d.totals.carbs, d.totals.fat, d.totals.protein) "
+            + "from Diet d where d.id = :id and d.user.id = :userId")
+    Optional<DietSummaryDto> findSummaryByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Get the summaries of the diets of a user, most recently created first.
+     * Older diets have random IDs, so the IDs don't order the diets by creation.
+     * @param userId the ID of the user
+     * @param limit the number of summaries
+     * @return a list of summaries
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto(d.id, d.name, d.totals.calories, d.totals.carbs, d.totals.fat, d.totals.protein) "
+            + "from Diet d where d.user.id = :userId order by d.createdAt desc, d.id desc")
+    List<DietSummaryDto> findSummariesByUserIdOrderByCreatedAtDesc(@Param("userId") UUID userId, Limit limit);
+    
+    /**
+     * Find the IDs and names of all diets of a user, e.g., to build the search index from.
+     * @param userId the ID of the user
+     * @return the IDs and names of the diets
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto(d.id, d.name) from Diet d where d.user.id = :userId")
+    List<SearchableNameDto> findNamesByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -2,10 +2,20 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.Dish;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -28,4 +38,58 @@ public interface DishRepository extends JpaRepository<Dish, UUID> {
      * @return a list of dishes
      */
     List<Dish> findByNameContainingIgnoreCaseAndUser(String name, User user);
+    
+    /**
+     * Find a dish by ID if it belongs to a user.
+     * @param id the dish ID
+     * @param userId the ID of the user
+     * @return an optional containing the dish if found and owned by the user
+     */
+    Optional<Dish> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Find all dishes with the given IDs that belong to a user.
+     * @param ids the dish IDs
+     * @param userId the ID of the user
+     * @return a list of dishes, without the ones that don't exist or belong to another user
+     */
+    List<Dish> findAllByIdInAndUserId(Collection<UUID> ids, UUID userId);
+    
+    /**
+     * Delete a dish by ID if it belongs to a user, without loading it first.
+     * @param id the dish ID
+     * @param userId the ID of the user
+     * @return the number of deleted rows, 0 if the dish doesn't exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Dish d where d.id = :id and d.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Scroll through the dishes of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of dishes
+     */
+    Window<Dish> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the dishes of a user with a name containing a string, ordered by ID.
+     * @param name the name to search for
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of dishes
+     */
+    Window<Dish> findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(String name, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Find the IDs and names of all dishes of a user, e.g., to build the search index from.
+     * @param userId the ID of the user
+     * @return the IDs and names of the dishes
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto(d.id, d.name) from Dish d where d.user.id = :userId")
+    List<SearchableNameDto> findNamesByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -2,8 +2,16 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.ExerciseCategory;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -37,4 +45,50 @@ public interface ExerciseCategoryRepository extends JpaRepository<ExerciseCatego
      * @return a list of exercise categories
      */
     List<ExerciseCategory> findByNameContainingIgnoreCaseAndUser(String name, User user);
+    
+    /**
+     * Find an exercise category by ID if it belongs to a user.
+     * @param id the exercise category ID
+     * @param userId the ID of the user
+     * @return an optional containing the exercise category if found and owned by the user
+     */
+    Optional<ExerciseCategory> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Delete an exercise category by ID if it belongs to a user, without loading it first.
+     * @param id the exercise category ID
+     * @param userId the ID of the user
+     * @return the number of deleted rows, 0 if the exercise category doesn't exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ExerciseCategory c where c.id = :id and c.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Scroll through the exercise categories of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of exercise categories
+     */
+    Window<ExerciseCategory> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the exercise categories of a user with a name containing a string, ordered by ID.
+     * @param name the name to search for
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of exercise categories
+     */
+    Window<ExerciseCategory> findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(String name, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Find the IDs and names of all exercise categories of a user, e.g., to build the search index from.
+     * @param userId the ID of the user
+     * @return the IDs and names of the exercise categories
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto(c.id, c.name) from ExerciseCategory c where c.user.id = :userId")
+    List<SearchableNameDto> findNamesByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.tamaliftics.api.rest.repositories;
+
+import com.tamaliftics.api.rest.models.dtos.progression.ExerciseDailyTotalsDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointDayDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains the per exercise and day sums of the track points in exercise_daily_rollups with set-based statements.
+ * A day is always recomputed from its track points rather than changed by a delta, as a deleted or lowered set
+ * can't be subtracted from a max. The recomputation reads the track points of the day through
+ * idx_exercise_track_points_exercise_date, so its cost doesn't depend on the history of the exercise.
+ * Statements take part in the surrounding JPA transaction, which must be flushed before.
+ */
+@Repository
+public class ExerciseDailyRollupRepository {
+
+    // the one-rep max of a set is estimated with the Epley formula, a single rep counts as its weight
+    private static final String SUM_UP_TRACK_POINTS = """
+            select exercise_id, date,
+                   sum(sets_count * reps_count * coalesce(weight, 0)) as volume,
+                   max(coalesce(weight, 0) * case when reps_count <= 1 then 1 else 1 + reps_count / 30 end) as best_estimated_one_rep_max,
+                   max(coalesce(weight, 0)) as max_weight,
+                   sum(sets_count) as total_sets,
+                   sum(sets_count * reps_count) as total_reps
+            from exercise_track_points
+            """;
+
+    // the sums are selected from a derived table, so the update clause can refer to them
+    private static final String UPSERT_ROLLUPS = """
+            insert into exercise_daily_rollups (exercise_id, date, volume, best_estimated_one_rep_max, max_weight, total_sets, total_reps)
+            select * from (%s) t
+            on duplicate key update volume = t.volume,
+                                    best_estimated_one_rep_max = t.best_estimated_one_rep_max,
+                                    max_weight = t.max_weight,
+                                    total_sets = t.total_sets,
+                                    total_reps = t.total_reps
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExerciseDailyRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Recompute the rollups of some days of some exercises from their track points.
+     * Rollups of days without track points are deleted.
+     * @param days the days to recompute, duplicates are recomputed once
+     */
+    public void refreshDays(Collection<ExerciseTrackPointDayDto> days) {
+        List<Object[]> parameters = new LinkedHashSet<>(days).stream()
+                .map(day -> new Object[]{UuidBytes.toBytes(day.exerciseId()), Date.valueOf(day.date())})
+                .toList();
+        if (parameters.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUPS.formatted(SUM_UP_TRACK_POINTS + "where exercise_id = ? and date = ? group by exercise_id, date"),
+                parameters);
+        jdbcTemplate.batchUpdate("""
+                delete from exercise_daily_rollups
+                where exercise_id = ? and date = ?
+                  and not exists (select 1 from exercise_track_points tp
+                                  where tp.exercise_id = exercise_daily_rollups.exercise_id and tp.date = exercise_daily_rollups.date)
+                """, parameters);
+    }
+
+    /**
+     * Find the IDs of the exercises after an ID, in the order of their IDs, e.g., to go through all exercises in batches.
+     * @param after the ID to start after, or null to start at the first exercise
+     * @param limit the number of IDs
+     * @return the IDs of the exercises
+     */
+    public List<UUID> findExerciseIdsAfter(UUID after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query("select id from exercises order by id limit ?",
+                    (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")), limit);
+        }
+        return jdbcTemplate.query("select id from exercises where id > ? order by id limit ?",
+                (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")), UuidBytes.toBytes(after), limit);
+    }
+
+    /**
+     * Find the days of some exercises whose rollups differ from their track points:
+     * days with track points but a missing or different rollup, and rollups of days without track points.
+     * Only reads, so the track points aren't locked while they are compared.
+     * @param exerciseIds the IDs of the exercises
+     * @return the days whose rollups have to be recomputed
+     */
+    public List<ExerciseTrackPointDayDto> findDriftedDays(Collection<UUID> exerciseIds) {
+        if (exerciseIds.isEmpty()) {
+            return List.of();
+        }
+        String ids = String.join(", ", Collections.nCopies(exerciseIds.size(), "?"));
+        List<Object> parameters = new ArrayList<>();
+        exerciseIds.forEach(id -> parameters.add(UuidBytes.toBytes(id)));
+        exerciseIds.forEach(id -> parameters.add(UuidBytes.toBytes(id)));
+        return jdbcTemplate.query("""
+                        select t.exercise_id, t.date
+                        from (%s) t
+                        left join exercise_daily_rollups r on r.exercise_id = t.exercise_id and r.date = t.date
+                        where r.exercise_id is null
+                           or r.volume <> t.volume
+                           or r.best_estimated_one_rep_max <> t.best_estimated_one_rep_max
+                           or r.max_weight <> t.max_weight
+                           or r.total_sets <> t.total_sets
+                           or r.total_reps <> t.total_reps
+                        union all
+                        select r.exercise_id, r.date
+                        from exercise_daily_rollups r
+                        where r.exercise_id in (%s)
+                          and not exists (select 1 from exercise_track_points tp
+                                          where tp.exercise_id = r.exercise_id and tp.date = r.date)
+                        """.formatted(SUM_UP_TRACK_POINTS + "where exercise_id in (" + ids + ") group by exercise_id, date", ids),
+                (resultSet, rowNum) -> new ExerciseTrackPointDayDto(
+                        UuidBytes.fromBytes(resultSet.getBytes("exercise_id")),
+                        resultSet.getDate("date").toLocalDate()),
+                parameters.toArray());
+    }
+
+    /**
+     * Find the rollups of an exercise if the exercise belongs to a user, oldest day first.
+     * @param exerciseId the exercise ID
+     * @param userId the ID of the user
+     * @return one row per day with track points, empty if the exercise doesn't exist or belongs to another user
+     */
+    public List<ExerciseDailyTotalsDto> findByExerciseIdAndUserId(UUID exerciseId, UUID userId) {
+        return jdbcTemplate.query("""
+                        select r.date, r.volume, r.best_estimated_one_rep_max, r.max_weight, r.total_sets, r.total_reps
+                        from exercise_daily_rollups r
+                        join exercises e on e.id = r.exercise_id
+                        where r.exercise_id = ? and e.user_id = ?
+                        order by r.date
+                        """,
+                (resultSet, rowNum) -> new ExerciseDailyTotalsDto(
+                        resultSet.getDate("date").toLocalDate(),
+                        resultSet.getDouble("volume"),
+                        resultSet.getDouble("best_estimated_one_rep_max"),
+                        resultSet.getFloat("max_weight"),
+                        resultSet.getLong("total_sets"),
+                        resultSet.getLong("total_reps")),
+                UuidBytes.toBytes(exerciseId), UuidBytes.toBytes(userId));
+    }
+}
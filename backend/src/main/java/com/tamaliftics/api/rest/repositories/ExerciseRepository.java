@@ -3,9 +3,16 @@ package com.tamaliftics.api.rest.repositories;
 import com.tamaliftics.api.rest.models.Exercise;
 import com.tamaliftics.api.rest.models.ExerciseCategory;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -54,4 +61,57 @@ public interface ExerciseRepository extends JpaRepository<Exercise, UUID> {
      * @return a list of exercises
      */
     List<Exercise> findByCategoryIdAndUser(UUID categoryId, User user);
+    
+    /**
+     * Find an exercise by ID if it belongs to a user.
+     * @param id the exercise ID
+     * @param userId the ID of the user
+     * @return an optional containing the exercise if found and owned by the user
+     */
+    Optional<Exercise> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Find all exercises with the given IDs that belong to a user.
+     * @param ids the exercise IDs
+     * @param userId the ID of the user
+     * @return a list of exercises, without the ones that don't exist or belong to another user
+     */
+    List<Exercise> findAllByIdInAndUserId(Collection<UUID> ids, UUID userId);
+    
+    /**
+     * Scroll through the exercises of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of exercises
+     */
+    Window<Exercise> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the exercises of a user with a name containing a string, ordered by ID.
+     * @param name the name to search for
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of exercises
+     */
+    Window<Exercise> findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(String name, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the exercises of a user in a category, ordered by ID.
+     * @param categoryId the exercise category ID
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of exercises
+     */
+    Window<Exercise> findByCategoryIdAndUserIdOrderByIdAsc(UUID categoryId, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Find the IDs and names of all exercises of a user, e.g., to build the search index from.
+     * @param userId the ID of the user
+     * @return the IDs and names of the exercises
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto(e.id, e.name) from Exercise e where e.user.id = :userId")
+    List<SearchableNameDto> findNamesByUserId(@Param("userId") UUID userId);
 }
\ No newline at end of file
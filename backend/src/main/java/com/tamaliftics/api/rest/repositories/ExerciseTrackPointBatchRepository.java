@@ -0,0 +1,45 @@
+package com.tamaliftics.api.rest.repositories;
+
+import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * Inserts the track points of a CSV import chunk with one JDBC batch, so no entity of the chunk stays in a persistence context.
+ * Exercise IDs are only written, not checked: an exercise deleted meanwhile makes the whole batch fail on its foreign key.
+ * Rollups aren't touched, the caller refreshes the days of the chunk in the same transaction.
+ */
+@Repository
+public class ExerciseTrackPointBatchRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExerciseTrackPointBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert new exercise track points. The track points must already have an ID,
+     * their exercise is only used for its ID, so it may be an uninitialized reference.
+     * @param trackPoints the track points to insert
+     */
+    public void insertAll(List<ExerciseTrackPoint> trackPoints) {
+        jdbcTemplate.batchUpdate("insert into exercise_track_points (id, date, reps_count, sets_count, description, weight, exercise_id) values (?, ?, ?, ?, ?, ?, ?)",
+                trackPoints, BATCH_SIZE, (statement, trackPoint) -> {
+                    statement.setBytes(1, UuidBytes.toBytes(trackPoint.getId()));
+                    statement.setDate(2, Date.valueOf(trackPoint.getDate()));
+                    statement.setInt(3, trackPoint.getRepsCount());
+                    statement.setInt(4, trackPoint.getSetsCount());
+                    statement.setString(5, trackPoint.getDescription());
+                    statement.setFloat(6, trackPoint.getWeight());
+                    statement.setBytes(7, UuidBytes.toBytes(trackPoint.getExercise().getId()));
+                });
+    }
+}
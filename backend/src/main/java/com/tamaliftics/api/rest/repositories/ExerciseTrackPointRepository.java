@@ -2,11 +2,22 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.Exercise;
 import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointDayDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointSummaryDto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -61,4 +72,77 @@ public interface ExerciseTrackPointRepository extends JpaRepository<ExerciseTrac
      * @return a list of track points
      */
     List<ExerciseTrackPoint> findByExerciseIdAndDateBetween(UUID exerciseId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Find a track point by ID if its exercise belongs to a user.
+     * @param id the track point ID
+     * @param userId the ID of the user
+     * @return an optional containing the track point if found and owned by the user
+     */
+    Optional<ExerciseTrackPoint> findByIdAndExerciseUserId(UUID id, UUID userId);
+    
+    /**
+     * Find the exercise and day of a track point if its exercise belongs to a user, without loading the track point.
+     * @param id the track point ID
+     * @param userId the ID of the user
+     * @return an optional containing the exercise and day if found and owned by the user
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointDayDto(t.exercise.id, t.date) " +
+            "from ExerciseTrackPoint t where t.id = :id and t.exercise.user.id = :userId")
+    Optional<ExerciseTrackPointDayDto> findDayByIdAndExerciseUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Delete a track point by ID if its exercise belongs to a user, without loading it first.
+     * @param id the track point ID
+     * @param userId the ID of the user
+     * @return the number of deleted rows, 0 if the track point doesn't exist or belongs to another user
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ExerciseTrackPoint t where t.id = :id and t.exercise.id in " +
+            "(select e.id from Exercise e where e.user.id = :userId)")
+    int deleteByIdAndExerciseUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Summarize the track points of each of the given exercises in a single aggregate query.
+     * Exercises without track points are not part of the result.
+     * @param exerciseIds the exercise IDs
+     * @return one summary per exercise that has track points
+     */
+    @Query("select new com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointSummaryDto(" +
+            "t.exercise.id, count(t), min(t.date), max(t.date), max(t.weight)) " +
+            "from ExerciseTrackPoint t where t.exercise.id in :exerciseIds group by t.exercise.id")
+    List<ExerciseTrackPointSummaryDto> summarizeByExerciseIdIn(@Param("exerciseIds") Collection<UUID> exerciseIds);
+    
+    /**
+     * Scroll through the track points of an exercise if the exercise belongs to a user, newest first.
+     * @param exerciseId the exercise ID
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of track points
+     */
+    Window<ExerciseTrackPoint> findByExerciseIdAndExerciseUserIdOrderByDateDescIdDesc(UUID exerciseId, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the track points of a list of exercises whose exercises belong to a user, newest first.
+     * @param exerciseIds the list of exercise IDs
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of track points
+     */
+    Window<ExerciseTrackPoint> findByExerciseIdInAndExerciseUserIdOrderByDateDescIdDesc(Collection<UUID> exerciseIds, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the track points of an exercise between two dates if the exercise belongs to a user, newest first.
+     * @param exerciseId the exercise ID
+     * @param userId the ID of the user
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of track points
+     */
+    Window<ExerciseTrackPoint> findByExerciseIdAndExerciseUserIdAndDateBetweenOrderByDateDescIdDesc(UUID exerciseId, UUID userId, LocalDate startDate, LocalDate endDate, ScrollPosition position, Limit limit);
 }
\ No newline at end of file
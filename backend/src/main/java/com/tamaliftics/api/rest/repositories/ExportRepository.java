@@ -0,0 +1,215 @@
+package com.tamaliftics.api.rest.repositories;
+
+import com.tamaliftics.api.rest.models.MealType;
+import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
+import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
+import com.tamaliftics.api.rest.models.dtos.export.ExportedDietDto;
+import com.tamaliftics.api.rest.models.dtos.export.ExportedExerciseDto;
+import com.tamaliftics.api.rest.models.dtos.export.ExportedMealDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
+import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads all data of a user row by row, to export it without holding it in memory.
+ * Rows are handed to the consumer as they arrive and are never collected, nor attached to a persistence context.
+ * The default fetch size of Integer.MIN_VALUE makes MySQL stream the rows one by one instead of buffering the whole result;
+ * with useCursorFetch=true in the datasource url, a positive application.export.fetch-size fetches the rows in chunks instead.
+ * A streamed result must be read to its end before the next statement on the same connection.
+ */
+@Repository
+public class ExportRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ExportRepository(DataSource dataSource,
+                            @Value("${application.export.fetch-size:#{T(java.lang.Integer).MIN_VALUE}}") int fetchSize) {
+        // a template of its own, so the fetch size doesn't apply to other queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Read the exercise categories of a user.
+     * @param userId the ID of the user
+     * @param consumer receives every exercise category
+     */
+    public void streamExerciseCategories(UUID userId, Consumer<GetExerciseCategoryDto> consumer) {
+        jdbcTemplate.query("select id, name, description from exercise_categories where user_id = ? order by id",
+                resultSet -> {
+                    consumer.accept(new GetExerciseCategoryDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getString("name"),
+                            resultSet.getString("description"),
+                            userId));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the exercises of a user.
+     * @param userId the ID of the user
+     * @param consumer receives every exercise
+     */
+    public void streamExercises(UUID userId, Consumer<ExportedExerciseDto> consumer) {
+        jdbcTemplate.query("select id, name, description, category_id from exercises where user_id = ? order by id",
+                resultSet -> {
+                    consumer.accept(new ExportedExerciseDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getString("name"),
+                            resultSet.getString("description"),
+                            UuidBytes.fromBytes(resultSet.getBytes("category_id"))));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the track points of all exercises of a user, exercise by exercise and date by date.
+     * @param userId the ID of the user
+     * @param consumer receives every track point
+     */
+    public void streamExerciseTrackPoints(UUID userId, Consumer<GetExerciseTrackPointDto> consumer) {
+        // the order matches idx_exercise_track_points_exercise_date, so the rows don't need to be sorted
+        jdbcTemplate.query("select tp.id, tp.date, tp.reps_count, tp.sets_count, tp.description, tp.weight, tp.exercise_id " +
+                        "from exercise_track_points tp join exercises e on e.id = tp.exercise_id " +
+                        "where e.user_id = ? order by tp.exercise_id, tp.date, tp.id",
+                resultSet -> {
+                    consumer.accept(new GetExerciseTrackPointDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getDate("date").toLocalDate(),
+                            resultSet.getInt("reps_count"),
+                            resultSet.getInt("sets_count"),
+                            resultSet.getString("description"),
+                            resultSet.getFloat("weight"),
+                            UuidBytes.fromBytes(resultSet.getBytes("exercise_id"))));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the daily weights of a user, oldest first.
+     * @param userId the ID of the user
+     * @param consumer receives every daily weight
+     */
+    public void streamDailyWeights(UUID userId, Consumer<GetDailyWeightDto> consumer) {
+        jdbcTemplate.query("select id, date, weight from daily_weights where user_id = ? order by date",
+                resultSet -> {
+                    consumer.accept(new GetDailyWeightDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getDate("date").toLocalDate(),
+                            resultSet.getDouble("weight"),
+                            userId));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the dishes of a user.
+     * @param userId the ID of the user
+     * @param consumer receives every dish
+     */
+    public void streamDishes(UUID userId, Consumer<GetDishDto> consumer) {
+        jdbcTemplate.query("select id, name, description, calories, carbs, fat, protein from dishes where user_id = ? order by id",
+                resultSet -> {
+                    consumer.accept(new GetDishDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getString("name"),
+                            resultSet.getString("description"),
+                            resultSet.getDouble("calories"),
+                            resultSet.getDouble("carbs"),
+                            resultSet.getDouble("fat"),
+                            resultSet.getDouble("protein"),
+                            userId));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the diets of a user.
+     * @param userId the ID of the user
+     * @param consumer receives every diet
+     */
+    public void streamDiets(UUID userId, Consumer<ExportedDietDto> consumer) {
+        jdbcTemplate.query("select id, name, description, total_calories, total_carbs, total_fat, total_protein " +
+                        "from diets where user_id = ? order by id",
+                resultSet -> {
+                    consumer.accept(new ExportedDietDto(
+                            UuidBytes.fromBytes(resultSet.getBytes("id")),
+                            resultSet.getString("name"),
+                            resultSet.getString("description"),
+                            resultSet.getDouble("total_calories"),
+                            resultSet.getDouble("total_carbs"),
+                            resultSet.getDouble("total_fat"),
+                            resultSet.getDouble("total_protein")));
+                },
+                UuidBytes.toBytes(userId));
+    }
+
+    /**
+     * Read the meals of a user with the IDs of their dishes.
+     * The meals are joined with their dishes and ordered by meal, so only the dishes of one meal are held at a time.
+     * @param userId the ID of the user
+     * @param consumer receives every meal
+     */
+    public void streamMeals(UUID userId, Consumer<ExportedMealDto> consumer) {
+        MealRows mealRows = new MealRows(consumer);
+        jdbcTemplate.query("select m.id, m.type, m.diet_id, m.total_calories, m.total_carbs, m.total_fat, m.total_protein, md.dish_id " +
+                        "from meals m left join meal_dishes md on md.meal_id = m.id " +
+                        "where m.user_id = ? order by m.id",
+                mealRows::processRow,
+                UuidBytes.toBytes(userId));
+        mealRows.finish();
+    }
+
+    /**
+     * Collects the rows of one meal at a time, and hands the meal to the consumer once its last row was read
+     */
+    private static class MealRows {
+
+        private final Consumer<ExportedMealDto> consumer;
+        private ExportedMealDto meal;
+
+        MealRows(Consumer<ExportedMealDto> consumer) {
+            this.consumer = consumer;
+        }
+
+        void processRow(ResultSet resultSet) throws SQLException {
+            UUID mealId = UuidBytes.fromBytes(resultSet.getBytes("id"));
+            if (meal == null || !meal.id().equals(mealId)) {
+                finish();
+                byte[] dietId = resultSet.getBytes("diet_id");
+                meal = new ExportedMealDto(
+                        mealId,
+                        MealType.valueOf(resultSet.getString("type")),
+                        dietId != null ? UuidBytes.fromBytes(dietId) : null,
+                        new ArrayList<>(),
+                        resultSet.getDouble("total_calories"),
+                        resultSet.getDouble("total_carbs"),
+                        resultSet.getDouble("total_fat"),
+                        resultSet.getDouble("total_protein"));
+            }
+            byte[] dishId = resultSet.getBytes("dish_id");
+            if (dishId != null) {
+                meal.dishIds().add(UuidBytes.fromBytes(dishId));
+            }
+        }
+
+        void finish() {
+            if (meal != null) {
+                consumer.accept(meal);
+                meal = null;
+            }
+        }
+    }
+}
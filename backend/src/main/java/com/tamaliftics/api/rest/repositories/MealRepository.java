@@ -3,9 +3,13 @@ package com.tamaliftics.api.rest.repositories;
 import com.tamaliftics.api.rest.models.Meal;
 import com.tamaliftics.api.rest.models.MealType;
 import com.tamaliftics.api.rest.models.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,4 +42,30 @@ public interface MealRepository extends JpaRepository<Meal, UUID> {
      * @return a list of meals
      */
     List<Meal> findAllByTypeAndUser(MealType type, User user);
+    
+    /**
+     * Find a meal by ID if it belongs to a user.
+     * @param id the meal ID
+     * @param userId the ID of the user
+     * @return an optional containing the meal if found and owned by the user
+     */
+    Optional<Meal> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Find all meals with the given IDs that belong to a user.
+     * @param ids the meal IDs
+     * @param userId the ID of the user
+     * @return a list of meals, without the ones that don't exist or belong to another user
+     */
+    List<Meal> findAllByIdInAndUserId(Collection<UUID> ids, UUID userId);
+    
+    /**
+     * Scroll through the meals of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of meals
+     */
+    Window<Meal> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+
 }
\ No newline at end of file
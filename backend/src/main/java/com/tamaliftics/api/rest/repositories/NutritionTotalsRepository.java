@@ -0,0 +1,216 @@
+package com.tamaliftics.api.rest.repositories;
+
+import com.tamaliftics.api.rest.models.NutritionTotals;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Updates the stored nutrition totals of meals and diets with set-based statements,
+ * so the number of statements doesn't depend on the number of affected meals and diets.
+ * Statements take part in the surrounding JPA transaction.
+ */
+@Repository
+public class NutritionTotalsRepository {
+
+    // differences below the tolerance are rounding noise of the incremental updates, not drift
+    private static final double TOLERANCE = 0.001;
+
+    // the sums of the meals or diets whose IDs replace the placeholder
+    private static final String SUM_UP_DISHES_OF_MEALS = """
+            select md.meal_id, sum(d.calories) as calories, sum(d.carbs) as carbs, sum(d.fat) as fat, sum(d.protein) as protein
+            from meal_dishes md
+            join dishes d on d.id = md.dish_id
+            where md.meal_id in (%s)
+            group by md.meal_id
+            """;
+    private static final String SUM_UP_MEALS_OF_DIETS = """
+            select m.diet_id, sum(m.total_calories) as calories, sum(m.total_carbs) as carbs,
+                   sum(m.total_fat) as fat, sum(m.total_protein) as protein
+            from meals m
+            where m.diet_id in (%s)
+            group by m.diet_id
+            """;
+    // compares the stored totals of the alias with the sums t, one tolerance parameter per total
+    private static final String DRIFTED = """
+            abs(%1$s.total_calories - coalesce(t.calories, 0)) > ?
+               or abs(%1$s.total_carbs - coalesce(t.carbs, 0)) > ?
+               or abs(%1$s.total_fat - coalesce(t.fat, 0)) > ?
+               or abs(%1$s.total_protein - coalesce(t.protein, 0)) > ?
+            """;
+    private static final String SET_TOTALS = """
+            %1$s.total_calories = coalesce(t.calories, 0),
+                %1$s.total_carbs = coalesce(t.carbs, 0),
+                %1$s.total_fat = coalesce(t.fat, 0),
+                %1$s.total_protein = coalesce(t.protein, 0)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NutritionTotalsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add the change of the macros of a dish to the totals of every meal containing it, and of the diets of those meals.
+     * A meal containing the dish several times gets the change once per occurrence.
+     * @param dishId the ID of the dish
+     * @param delta the difference between the new and the old macros of the dish
+     * @return the number of updated meals and diets
+     */
+    public int applyDishMacrosDelta(UUID dishId, NutritionTotals delta) {
+        byte[] dish = UuidBytes.toBytes(dishId);
+        // the diets are updated first, the meals don't need to be read back for it
+        int updatedDiets = jdbcTemplate.update("""
+                update diets d
+                join (select m.diet_id, count(*) as occurrences
+                      from meal_dishes md
+                      join meals m on m.id = md.meal_id
+                      where md.dish_id = ? and m.diet_id is not null
+                      group by m.diet_id) t on t.diet_id = d.id
+                set d.total_calories = d.total_calories + t.occurrences * ?,
+                    d.total_carbs = d.total_carbs + t.occurrences * ?,
+                    d.total_fat = d.total_fat + t.occurrences * ?,
+                    d.total_protein = d.total_protein + t.occurrences * ?
+                """, dish, delta.calories(), delta.carbs(), delta.fat(), delta.protein());
+        int updatedMeals = jdbcTemplate.update("""
+                update meals m
+                join (select md.meal_id, count(*) as occurrences
+                      from meal_dishes md
+                      where md.dish_id = ?
+                      group by md.meal_id) t on t.meal_id = m.id
+                set m.total_calories = m.total_calories + t.occurrences * ?,
+                    m.total_carbs = m.total_carbs + t.occurrences * ?,
+                    m.total_fat = m.total_fat + t.occurrences * ?,
+                    m.total_protein = m.total_protein + t.occurrences * ?
+                """, dish, delta.calories(), delta.carbs(), delta.fat(), delta.protein());
+        return updatedMeals + updatedDiets;
+    }
+
+    /**
+     * Find the IDs of the meals after an ID, in the order of their IDs, e.g., to go through all meals in batches.
+     * @param after the ID to start after, or null to start at the first meal
+     * @param limit the number of IDs
+     * @return the IDs of the meals
+     */
+    public List<UUID> findMealIdsAfter(UUID after, int limit) {
+        return findIdsAfter("meals", after, limit);
+    }
+
+    /**
+     * Find the IDs of the diets after an ID, in the order of their IDs, e.g., to go through all diets in batches.
+     * @param after the ID to start after, or null to start at the first diet
+     * @param limit the number of IDs
+     * @return the IDs of the diets
+     */
+    public List<UUID> findDietIdsAfter(UUID after, int limit) {
+        return findIdsAfter("diets", after, limit);
+    }
+
+    /**
+     * Find the meals whose stored totals differ from the sum of their dishes.
+     * Only reads, so the meals and dishes aren't locked while they are compared.
+     * @param mealIds the IDs of the meals to compare
+     * @return the IDs of the drifted meals
+     */
+    public List<UUID> findDriftedMeals(Collection<UUID> mealIds) {
+        if (mealIds.isEmpty()) {
+            return List.of();
+        }
+        String ids = String.join(", ", Collections.nCopies(mealIds.size(), "?"));
+        return jdbcTemplate.query("""
+                        select m.id
+                        from meals m
+                        left join (%s) t on t.meal_id = m.id
+                        where m.id in (%s) and (%s)
+                        """.formatted(SUM_UP_DISHES_OF_MEALS.formatted(ids), ids, DRIFTED.formatted("m")),
+                (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")),
+                driftParameters(mealIds));
+    }
+
+    /**
+     * Find the diets whose stored totals differ from the sum of the stored totals of their meals.
+     * Only reads, so the diets and meals aren't locked while they are compared.
+     * @param dietIds the IDs of the diets to compare
+     * @return the IDs of the drifted diets
+     */
+    public List<UUID> findDriftedDiets(Collection<UUID> dietIds) {
+        if (dietIds.isEmpty()) {
+            return List.of();
+        }
+        String ids = String.join(", ", Collections.nCopies(dietIds.size(), "?"));
+        return jdbcTemplate.query("""
+                        select d.id
+                        from diets d
+                        left join (%s) t on t.diet_id = d.id
+                        where d.id in (%s) and (%s)
+                        """.formatted(SUM_UP_MEALS_OF_DIETS.formatted(ids), ids, DRIFTED.formatted("d")),
+                (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")),
+                driftParameters(dietIds));
+    }
+
+    /**
+     * Set the totals of some meals to the sum of their dishes, if they still differ.
+     * The sums are taken again, so a change of the dishes since the meals were found drifted isn't overwritten.
+     * @param mealIds the IDs of the meals
+     * @return the number of repaired meals
+     */
+    public int repairMealTotals(Collection<UUID> mealIds) {
+        if (mealIds.isEmpty()) {
+            return 0;
+        }
+        String ids = String.join(", ", Collections.nCopies(mealIds.size(), "?"));
+        return jdbcTemplate.update("""
+                update meals m
+                left join (%s) t on t.meal_id = m.id
+                set %s
+                where m.id in (%s) and (%s)
+                """.formatted(SUM_UP_DISHES_OF_MEALS.formatted(ids), SET_TOTALS.formatted("m"), ids, DRIFTED.formatted("m")),
+                driftParameters(mealIds));
+    }
+
+    /**
+     * Set the totals of some diets to the sum of the stored totals of their meals, if they still differ.
+     * Meals should be repaired first.
+     * @param dietIds the IDs of the diets
+     * @return the number of repaired diets
+     */
+    public int repairDietTotals(Collection<UUID> dietIds) {
+        if (dietIds.isEmpty()) {
+            return 0;
+        }
+        String ids = String.join(", ", Collections.nCopies(dietIds.size(), "?"));
+        return jdbcTemplate.update("""
+                update diets d
+                left join (%s) t on t.diet_id = d.id
+                set %s
+                where d.id in (%s) and (%s)
+                """.formatted(SUM_UP_MEALS_OF_DIETS.formatted(ids), SET_TOTALS.formatted("d"), ids, DRIFTED.formatted("d")),
+                driftParameters(dietIds));
+    }
+
+    private List<UUID> findIdsAfter(String table, UUID after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query("select id from " + table + " order by id limit ?",
+                    (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")), limit);
+        }
+        return jdbcTemplate.query("select id from " + table + " where id > ? order by id limit ?",
+                (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes("id")), UuidBytes.toBytes(after), limit);
+    }
+
+    // the IDs for the sums, the IDs of the compared rows, and the tolerance of each total
+    private static Object[] driftParameters(Collection<UUID> ids) {
+        List<Object> parameters = new ArrayList<>();
+        ids.forEach(id -> parameters.add(UuidBytes.toBytes(id)));
+        ids.forEach(id -> parameters.add(UuidBytes.toBytes(id)));
+        parameters.addAll(Collections.nCopies(4, TOLERANCE));
+        return parameters.toArray();
+    }
+}
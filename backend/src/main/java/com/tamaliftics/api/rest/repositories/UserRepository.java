@@ -1,8 +1,12 @@
 package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +15,21 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    /**
+     * Find the IDs of the first users in the order of their IDs, e.g., to go through all users in batches.
+     * @param limit the number of IDs
+     * @return the IDs of the users
+     */
+    @Query("select u.id from User u order by u.id")
+    List<UUID> findIdsOrderById(Limit limit);
+
+    /**
+     * Find the IDs of the users after an ID, in the order of their IDs.
+     * @param after the ID to start after
+     * @param limit the number of IDs
+     * @return the IDs of the users
+     */
+    @Query("select u.id from User u where u.id > :after order by u.id")
+    List<UUID> findIdsAfterOrderById(@Param("after") UUID after, Limit limit);
 }
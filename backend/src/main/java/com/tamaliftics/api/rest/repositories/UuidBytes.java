@@ -0,0 +1,26 @@
+package com.tamaliftics.api.rest.repositories;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Converts IDs for the repositories that use plain JDBC.
+ * UUIDs are stored as binary(16), the default mapping of hibernate for MySQL, most significant bits first.
+ */
+final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -2,10 +2,16 @@ package com.tamaliftics.api.rest.repositories;
 
 import com.tamaliftics.api.rest.models.User;
 import com.tamaliftics.api.rest.models.WeeklyWeight;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,6 +38,34 @@ public interface WeeklyWeightRepository extends JpaRepository<WeeklyWeight, UUID
      */
     Optional<WeeklyWeight> findByWeekNumberAndYearAndUser(int weekNumber, int year, User user);
     
+    /**
+     * Find a weekly weight by week number, year, and user, and lock its row until the transaction ends.
+     * Concurrent updates of the same week are serialized, so no delta is lost.
+     * @param weekNumber the week number
+     * @param year the year
+     * @param userId the ID of the user
+     * @return an optional containing the locked weekly weight if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WeeklyWeight> findForUpdateByWeekNumberAndYearAndUserId(int weekNumber, int year, UUID userId);
+    
+    /**
+     * Find the weekly weights of a user that start on one of some dates, and lock their rows until the transaction ends.
+     * @param startDates the first days of the weeks
+     * @param userId the ID of the user
+     * @return a list of locked weekly weights
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<WeeklyWeight> findForUpdateByStartDateInAndUserId(Collection<LocalDate> startDates, UUID userId);
+    
+    /**
+     * Find all weekly weights of a user, and lock their rows until the transaction ends.
+     * @param userId the ID of the user
+     * @return a list of locked weekly weights
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<WeeklyWeight> findForUpdateByUserId(UUID userId);
+    
     /**
      * Find all weekly weights for a specific year and user.
      * @param year the year
@@ -56,4 +90,42 @@ public interface WeeklyWeightRepository extends JpaRepository<WeeklyWeight, UUID
      * @return a list of weekly weights
      */
     List<WeeklyWeight> findByStartDateGreaterThanEqualAndEndDateLessThanEqualAndUser(LocalDate startDate, LocalDate endDate, User user);
+    
+    /**
+     * Find a weekly weight by ID if it belongs to a user.
+     * @param id the weekly weight ID
+     * @param userId the ID of the user
+     * @return an optional containing the weekly weight if found and owned by the user
+     */
+    Optional<WeeklyWeight> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Scroll through the weekly weights of a user, newest first.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of weekly weights
+     */
+    Window<WeeklyWeight> findByUserIdOrderByStartDateDescIdDesc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the weekly weights of a user for a specific year, newest first.
+     * @param year the year
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of weekly weights
+     */
+    Window<WeeklyWeight> findByYearAndUserIdOrderByStartDateDescIdDesc(int year, UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the weekly weights of a user between two dates, newest first.
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of weekly weights
+     */
+    Window<WeeklyWeight> findByStartDateGreaterThanEqualAndEndDateLessThanEqualAndUserIdOrderByStartDateDescIdDesc(LocalDate startDate, LocalDate endDate, UUID userId, ScrollPosition position, Limit limit);
 }
\ No newline at end of file
@@ -4,7 +4,13 @@ import com.tamaliftics.api.rest.models.Day;
 import com.tamaliftics.api.rest.models.User;
 import com.tamaliftics.api.rest.models.WorkoutPlan;
 import com.tamaliftics.api.rest.models.WorkoutPlanType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -64,4 +70,43 @@ public interface WorkoutPlanRepository extends JpaRepository<WorkoutPlan, UUID>
      * @return an optional containing the workout plan if found
      */
     Optional<WorkoutPlan> findByTypeAndDayAndUser(WorkoutPlanType type, Day day, User user);
+    
+    /**
+     * Find a workout plan by ID if it belongs to a user.
+     * @param id the workout plan ID
+     * @param userId the ID of the user
+     * @return an optional containing the workout plan if found and owned by the user
+     */
+    Optional<WorkoutPlan> findByIdAndUserId(UUID id, UUID userId);
+    
+    /**
+     * Find a workout plan by ID if it belongs to a user, together with its exercises and the categories of the exercises.
+     * @param id the workout plan ID
+     * @param userId the ID of the user
+     * @return an optional containing the workout plan with initialized exercises if found and owned by the user
+     */
+    @Query("select p from WorkoutPlan p join fetch p.user " +
+            "left join fetch p.exercises e left join fetch e.category where p.id = :id and p.user.id = :userId")
+    Optional<WorkoutPlan> findWithExercisesByIdAndUserId(@Param("id") UUID id, @Param("userId") UUID userId);
+    
+    /**
+     * Scroll through the workout plans of a user, ordered by ID.
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of workout plans
+     */
+    @EntityGraph(attributePaths = "user")
+    Window<WorkoutPlan> findByUserIdOrderByIdAsc(UUID userId, ScrollPosition position, Limit limit);
+    
+    /**
+     * Scroll through the workout plans of a user for a day, ordered by ID.
+     * @param day the day
+     * @param userId the ID of the user
+     * @param position the position to continue scrolling from
+     * @param limit the size of the page
+     * @return a window of workout plans
+     */
+    @EntityGraph(attributePaths = "user")
+    Window<WorkoutPlan> findByDayAndUserIdOrderByIdAsc(Day day, UUID userId, ScrollPosition position, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.tamaliftics.api.rest.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers updates of in-memory state until the transaction that caused them committed,
+ * so a concurrent reader never sees state the database doesn't have yet, and a rollback leaves it untouched.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Run an action once the current transaction committed, or right away outside a transaction.
+     * The action is dropped if the transaction rolls back.
+     * @param action the action
+     */
+    static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
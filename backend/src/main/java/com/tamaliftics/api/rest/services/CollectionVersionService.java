@@ -0,0 +1,74 @@
+package com.tamaliftics.api.rest.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters of the collections of each user, used as ETags of their listings.
+ * A version is drawn from a single sequence the first time it is asked for, and dropped whenever the collection changes,
+ * so a version is never handed out twice and an ETag stops matching as soon as the collection changed.
+ * Evicting a version only costs one full response, it can't make a stale ETag match.
+ * The versions live in memory, so they assume that all writes go through this instance.
+ */
+@Service
+public class CollectionVersionService {
+
+    // distinguishes the versions of this process from the ones handed out before a restart
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<VersionKey, Long> versions;
+
+    @Autowired
+    public CollectionVersionService(@Value("${application.etag.max-versions:100000}") long maxVersions,
+                                    MeterRegistry meterRegistry) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxVersions)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "collection-versions");
+    }
+
+    /**
+     * Gets the ETag of a listing of a collection of a user, without touching the database
+     * @param collection the collection
+     * @param userId the ID of the user
+     * @param parameters the parameters that select the listing, e.g., the cursor and the size of a page
+     * @return the strong ETag, quoted
+     */
+    public String etag(VersionedCollection collection, UUID userId, Object... parameters) {
+        long version = versions.get(new VersionKey(collection, userId), key -> sequence.incrementAndGet());
+        return "\"" + Long.toHexString(epoch) + "-" + Long.toHexString(version) + "-" + Integer.toHexString(Arrays.hashCode(parameters)) + "\"";
+    }
+
+    /**
+     * Marks a collection of a user as changed.
+     * Inside a transaction the version is dropped once it committed, so a listing read before the commit can't get the new version.
+     * @param collection the collection
+     * @param userId the ID of the user
+     */
+    public void bump(VersionedCollection collection, UUID userId) {
+        AfterCommit.run(() -> versions.invalidate(new VersionKey(collection, userId)));
+    }
+
+    /**
+     * Marks a collection of every user as changed, e.g., after a job repaired rows of many users
+     * @param collection the collection
+     */
+    public void bumpAll(VersionedCollection collection) {
+        AfterCommit.run(() -> versions.asMap().keySet().removeIf(key -> key.collection() == collection));
+    }
+
+    private record VersionKey(VersionedCollection collection, UUID userId) {
+    }
+}
@@ -0,0 +1,399 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.models.Exercise;
+import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import com.tamaliftics.api.rest.models.UpsertStatus;
+import com.tamaliftics.api.rest.models.UuidV7Generator;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.csv.CsvImportResultDto;
+import com.tamaliftics.api.rest.models.dtos.csv.CsvImportRowErrorDto;
+import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseCategoryDto;
+import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseDto;
+import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightItemResultDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightResultDto;
+import com.tamaliftics.api.rest.models.dtos.weight.CreateDailyWeightDto;
+import com.tamaliftics.api.rest.repositories.ExerciseCategoryRepository;
+import com.tamaliftics.api.rest.repositories.ExerciseRepository;
+import com.tamaliftics.api.rest.repositories.ExerciseTrackPointBatchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service for importing the history of a user from CSV files, e.g., exported from a spreadsheet.
+ * The file is read record by record and written in chunks, each chunk in its own transaction,
+ * so the memory used depends on the chunk size and not on the size of the file.
+ * Invalid rows are reported and skipped, they don't abort the import.
+ */
+@Service
+public class CsvImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvImportService.class);
+
+    private static final int MAX_RECORD_LENGTH = 4096;
+
+    private final ExerciseRepository exerciseRepository;
+    private final ExerciseCategoryRepository exerciseCategoryRepository;
+    private final ExerciseTrackPointBatchRepository exerciseTrackPointBatchRepository;
+    private final ExerciseService exerciseService;
+    private final ExerciseCategoryService exerciseCategoryService;
+    private final DailyWeightService dailyWeightService;
+    private final CollectionVersionService collectionVersionService;
+    private final ExerciseRollupService exerciseRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public CsvImportService(ExerciseRepository exerciseRepository,
+                            ExerciseCategoryRepository exerciseCategoryRepository,
+                            ExerciseTrackPointBatchRepository exerciseTrackPointBatchRepository,
+                            ExerciseService exerciseService,
+                            ExerciseCategoryService exerciseCategoryService,
+                            DailyWeightService dailyWeightService,
+                            CollectionVersionService collectionVersionService,
+                            ExerciseRollupService exerciseRollupService,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${application.import.chunk-size:5000}") int chunkSize,
+                            @Value("${application.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.exerciseRepository = exerciseRepository;
+        this.exerciseCategoryRepository = exerciseCategoryRepository;
+        this.exerciseTrackPointBatchRepository = exerciseTrackPointBatchRepository;
+        this.exerciseService = exerciseService;
+        this.exerciseCategoryService = exerciseCategoryService;
+        this.dailyWeightService = dailyWeightService;
+        this.collectionVersionService = collectionVersionService;
+        this.exerciseRollupService = exerciseRollupService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Import exercise track points.
+     * The header names the columns, in any order: date, exercise, sets and reps are required, weight, description and category are optional.
+     * Exercises are matched by name, ignoring case. Exercises that don't exist yet are created in the category of the row,
+     * which is matched by name too and created if it doesn't exist yet.
+     * @param reader the CSV, with dates as yyyy-MM-dd
+     * @param userId the ID of the user importing the track points
+     * @return the outcome of the import, or empty if the header lacks a required column
+     * @throws IOException if reading the CSV fails
+     */
+    public Optional<CsvImportResultDto> importExerciseTrackPoints(Reader reader, UUID userId) throws IOException {
+        CsvReader csvReader = new CsvReader(reader, MAX_RECORD_LENGTH);
+        Optional<Map<String, Integer>> header = readHeader(csvReader, List.of("date", "exercise", "sets", "reps"));
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int dateColumn = header.get().get("date");
+        int exerciseColumn = header.get().get("exercise");
+        int setsColumn = header.get().get("sets");
+        int repsColumn = header.get().get("reps");
+        int weightColumn = header.get().getOrDefault("weight", -1);
+        int descriptionColumn = header.get().getOrDefault("description", -1);
+        int categoryColumn = header.get().getOrDefault("category", -1);
+
+        ImportResult result = new ImportResult();
+        ExerciseResolver exerciseResolver = new ExerciseResolver(userId);
+        List<ExerciseTrackPoint> chunk = new ArrayList<>();
+        List<Long> chunkRows = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        CsvReader.CsvRecord record;
+        while ((record = csvReader.next()) != null) {
+            if (record.tooLong()) {
+                result.reject(record.number(), "Row is longer than " + MAX_RECORD_LENGTH + " characters");
+                continue;
+            }
+
+            LocalDate date;
+            int sets;
+            int reps;
+            float weight;
+            try {
+                date = LocalDate.parse(record.get(dateColumn));
+                sets = Integer.parseInt(record.get(setsColumn));
+                reps = Integer.parseInt(record.get(repsColumn));
+                weight = record.get(weightColumn).isEmpty() ? 0f : Float.parseFloat(record.get(weightColumn));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                result.reject(record.number(), "Date must be yyyy-MM-dd, sets and reps must be whole numbers and weight must be a number");
+                continue;
+            }
+            if (reps <= 0 || sets <= 0) {
+                result.reject(record.number(), "Reps count and sets count must be positive");
+                continue;
+            }
+            if (!Float.isFinite(weight)) {
+                result.reject(record.number(), "Weight must be a finite number");
+                continue;
+            }
+            if (date.isAfter(today)) {
+                result.reject(record.number(), "Date must be in the past or present");
+                continue;
+            }
+
+            Optional<Exercise> exercise = exerciseResolver.resolve(record.get(exerciseColumn), record.get(categoryColumn));
+            if (exercise.isEmpty()) {
+                result.reject(record.number(), "Exercise is required, and so is the category of an exercise that doesn't exist yet");
+                continue;
+            }
+
+            String description = record.get(descriptionColumn);
+            ExerciseTrackPoint trackPoint = new ExerciseTrackPoint(date, reps, sets, description.isEmpty() ? null : description, weight, exercise.get());
+            trackPoint.setId(UuidV7Generator.generateUuid());
+            chunk.add(trackPoint);
+            chunkRows.add(record.number());
+            if (chunk.size() >= chunkSize) {
+                saveTrackPoints(chunk, chunkRows, result);
+            }
+        }
+        saveTrackPoints(chunk, chunkRows, result);
+
+        if (result.created > 0) {
+            // the track points are listed with their exercises
+            collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
+        }
+        return Optional.of(result.toDto());
+    }
+
+    /**
+     * Import daily weights.
+     * The header names the columns, in any order: date and weight are required.
+     * A daily weight that already exists for a date is overwritten, if several rows have the same date, the last one wins.
+     * @param reader the CSV, with dates as yyyy-MM-dd
+     * @param userId the ID of the user importing the daily weights
+     * @return the outcome of the import, or empty if the header lacks a required column.
+     * If the user doesn't exist (anymore) the import stops, the outcome is incomplete then
+     * @throws IOException if reading the CSV fails
+     */
+    public Optional<CsvImportResultDto> importDailyWeights(Reader reader, UUID userId) throws IOException {
+        CsvReader csvReader = new CsvReader(reader, MAX_RECORD_LENGTH);
+        Optional<Map<String, Integer>> header = readHeader(csvReader, List.of("date", "weight"));
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int dateColumn = header.get().get("date");
+        int weightColumn = header.get().get("weight");
+
+        ImportResult result = new ImportResult();
+        List<CreateDailyWeightDto> chunk = new ArrayList<>();
+        List<Long> chunkRows = new ArrayList<>();
+        CsvReader.CsvRecord record;
+        while ((record = csvReader.next()) != null) {
+            if (record.tooLong()) {
+                result.reject(record.number(), "Row is longer than " + MAX_RECORD_LENGTH + " characters");
+                continue;
+            }
+
+            LocalDate date;
+            double weight;
+            try {
+                date = LocalDate.parse(record.get(dateColumn));
+                weight = Double.parseDouble(record.get(weightColumn));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                result.reject(record.number(), "Date must be yyyy-MM-dd and weight must be a number");
+                continue;
+            }
+            if (!Double.isFinite(weight)) {
+                result.reject(record.number(), "Weight must be a finite number");
+                continue;
+            }
+
+            chunk.add(new CreateDailyWeightDto(date, weight));
+            chunkRows.add(record.number());
+            if (chunk.size() >= chunkSize && !saveDailyWeights(chunk, chunkRows, userId, result)) {
+                // the chunks before were committed, report them
+                return Optional.of(result.toDto());
+            }
+        }
+        saveDailyWeights(chunk, chunkRows, userId, result);
+        return Optional.of(result.toDto());
+    }
+
+    /**
+     * Read the header and find the column of every name
+     * @param csvReader the reader, positioned at the start of the CSV
+     * @param requiredColumns the names of the columns that must be present
+     * @return the index of every column by its lower-case name, or empty if a required column is missing
+     */
+    private Optional<Map<String, Integer>> readHeader(CsvReader csvReader, List<String> requiredColumns) throws IOException {
+        CsvReader.CsvRecord header = csvReader.next();
+        if (header == null) {
+            return Optional.empty();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.fields().size(); i++) {
+            // spreadsheets often start a UTF-8 file with a byte order mark
+            String name = header.get(i).replace("\uFEFF", "").toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name, i);
+        }
+        if (!columns.keySet().containsAll(requiredColumns)) {
+            return Optional.empty();
+        }
+        return Optional.of(columns);
+    }
+
+    /**
+     * Insert a chunk of track points and update the rollups of their days in one transaction, and clear it.
+     * If the chunk can't be inserted, e.g., because an exercise was deleted meanwhile, all its rows are rejected.
+     */
+    private void saveTrackPoints(List<ExerciseTrackPoint> chunk, List<Long> chunkRows, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                exerciseTrackPointBatchRepository.insertAll(chunk);
+                exerciseRollupService.refreshDaysOf(chunk);
+            });
+            result.created += chunk.size();
+        } catch (DataAccessException e) {
+            LOG.warn("Could not import a chunk of {} track points", chunk.size(), e);
+            chunkRows.forEach(row -> result.reject(row, "Could not be saved"));
+        }
+        chunk.clear();
+        chunkRows.clear();
+    }
+
+    /**
+     * Upsert a chunk of daily weights in one transaction, and clear it
+     * @return false if the user doesn't exist, the rows of the chunk are rejected and the import is marked incomplete then
+     */
+    private boolean saveDailyWeights(List<CreateDailyWeightDto> chunk, List<Long> chunkRows, UUID userId, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return true;
+        }
+        try {
+            Optional<BulkDailyWeightResultDto> upserted = dailyWeightService.upsertDailyWeights(chunk, userId);
+            if (upserted.isEmpty()) {
+                chunkRows.forEach(row -> result.reject(row, "The user doesn't exist anymore"));
+                result.complete = false;
+                chunk.clear();
+                chunkRows.clear();
+                return false;
+            }
+            result.created += upserted.get().created();
+            result.updated += upserted.get().updated();
+            for (BulkDailyWeightItemResultDto item : upserted.get().results()) {
+                if (item.status() == UpsertStatus.INVALID || item.status() == UpsertStatus.DUPLICATE) {
+                    result.reject(chunkRows.get(item.index()), item.message());
+                }
+            }
+        } catch (DataAccessException e) {
+            LOG.warn("Could not import a chunk of {} daily weights", chunk.size(), e);
+            chunkRows.forEach(row -> result.reject(row, "Could not be saved"));
+        }
+        chunk.clear();
+        chunkRows.clear();
+        return true;
+    }
+
+    /**
+     * Finds exercises and categories of a user by name, and creates the ones that don't exist yet.
+     * The names of all exercises and categories of the user are loaded once, so resolving a row doesn't query the database.
+     */
+    private class ExerciseResolver {
+
+        private final UUID userId;
+        private final Map<String, Exercise> exercisesByName = new HashMap<>();
+        private Map<String, UUID> categoryIdsByName;
+
+        ExerciseResolver(UUID userId) {
+            this.userId = userId;
+            for (SearchableNameDto exercise : exerciseRepository.findNamesByUserId(userId)) {
+                exercisesByName.putIfAbsent(normalize(exercise.name()), exerciseRepository.getReferenceById(exercise.id()));
+            }
+        }
+
+        /**
+         * @param exerciseName the name of the exercise
+         * @param categoryName the name of the category, only used if the exercise has to be created
+         * @return a reference to the exercise, or empty if the exercise has no name, or has to be created but the category has no name
+         */
+        Optional<Exercise> resolve(String exerciseName, String categoryName) {
+            if (exerciseName.isEmpty()) {
+                return Optional.empty();
+            }
+            Exercise exercise = exercisesByName.get(normalize(exerciseName));
+            if (exercise != null) {
+                return Optional.of(exercise);
+            }
+            if (categoryName.isEmpty()) {
+                return Optional.empty();
+            }
+
+            Optional<UUID> categoryId = resolveCategory(categoryName);
+            if (categoryId.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<Exercise> createdExercise = exerciseService.createExercise(new CreateExerciseDto(exerciseName, null, categoryId.get()), userId)
+                    .map(exerciseDto -> exerciseRepository.getReferenceById(exerciseDto.id()));
+            createdExercise.ifPresent(created -> exercisesByName.put(normalize(exerciseName), created));
+            return createdExercise;
+        }
+
+        private Optional<UUID> resolveCategory(String categoryName) {
+            if (categoryIdsByName == null) {
+                // only imports that create exercises need the categories
+                categoryIdsByName = new HashMap<>();
+                for (SearchableNameDto category : exerciseCategoryRepository.findNamesByUserId(userId)) {
+                    categoryIdsByName.putIfAbsent(normalize(category.name()), category.id());
+                }
+            }
+            UUID categoryId = categoryIdsByName.get(normalize(categoryName));
+            if (categoryId != null) {
+                return Optional.of(categoryId);
+            }
+            Optional<UUID> createdCategoryId = exerciseCategoryService.createExerciseCategory(new CreateExerciseCategoryDto(categoryName, null), userId)
+                    .map(GetExerciseCategoryDto::id);
+            createdCategoryId.ifPresent(created -> categoryIdsByName.put(normalize(categoryName), created));
+            return createdCategoryId;
+        }
+
+        private static String normalize(String name) {
+            return name.strip().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The counts of an import, and its first errors
+     */
+    private class ImportResult {
+
+        private long created;
+        private long updated;
+        private long rejected;
+        private boolean complete = true;
+        private final List<CsvImportRowErrorDto> errors = new ArrayList<>();
+
+        void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new CsvImportRowErrorDto(row, message));
+            }
+        }
+
+        CsvImportResultDto toDto() {
+            return new CsvImportResultDto(created, updated, rejected, List.copyOf(errors), complete);
+        }
+    }
+}
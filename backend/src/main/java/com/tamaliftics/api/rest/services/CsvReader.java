@@ -0,0 +1,122 @@
+package com.tamaliftics.api.rest.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated values record by record, as described in RFC 4180.
+ * Fields may be quoted, quoted fields may contain commas, line breaks and doubled quotes.
+ * Only one record is held at a time, and a record keeps at most a fixed number of characters and separators,
+ * so the memory used doesn't depend on the size of the input.
+ */
+final class CsvReader {
+
+    private static final int NO_LOOKAHEAD = -2;
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private long recordNumber;
+    private int lookahead = NO_LOOKAHEAD;
+
+    /**
+     * @param reader the input, should be buffered
+     * @param maxRecordLength the number of characters of a record, separators included, beyond which it is marked as too long
+     */
+    CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Read the next record. Empty lines are skipped.
+     * @return the record, or null at the end of the input
+     * @throws IOException if reading the input fails
+     */
+    CsvRecord next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int length = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (quoted) {
+                if (c != '"') {
+                    length = append(field, c, length);
+                } else if ((c = read()) == '"') {
+                    length = append(field, '"', length);
+                } else {
+                    quoted = false;
+                    lookahead = c;
+                }
+                continue;
+            }
+            if (c == '\r') {
+                continue;
+            }
+            if (c == '\n') {
+                if (empty && fields.isEmpty()) {
+                    continue;
+                }
+                break;
+            }
+            empty = false;
+            if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                // separators count too, a record of nothing but commas would add fields without limit otherwise
+                length++;
+                if (length <= maxRecordLength) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+            } else {
+                length = append(field, c, length);
+            }
+        }
+        if (empty && fields.isEmpty() && !quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        recordNumber++;
+        return new CsvRecord(recordNumber, fields, length > maxRecordLength);
+    }
+
+    private int read() throws IOException {
+        if (lookahead != NO_LOOKAHEAD) {
+            int c = lookahead;
+            lookahead = NO_LOOKAHEAD;
+            return c;
+        }
+        return reader.read();
+    }
+
+    /**
+     * Appends a character unless the record already is too long, but keeps counting
+     */
+    private int append(StringBuilder field, int c, int length) {
+        if (length < maxRecordLength) {
+            field.append((char) c);
+        }
+        return length + 1;
+    }
+
+    /**
+     * A record of the input
+     * @param number the number of the record, starting at 1 for the first one
+     * @param fields the fields of the record
+     * @param tooLong whether the record exceeded the maximum length, its fields are cut off then
+     */
+    record CsvRecord(long number, List<String> fields, boolean tooLong) {
+
+        /**
+         * @param index the index of the field
+         * @return the field without surrounding whitespace, or an empty string if the record has no such field
+         */
+        String get(int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index).strip() : "";
+        }
+    }
+}
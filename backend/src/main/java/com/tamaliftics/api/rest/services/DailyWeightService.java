@@ -1,21 +1,24 @@
 package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.DailyWeight;
+import com.tamaliftics.api.rest.models.UpsertStatus;
 import com.tamaliftics.api.rest.models.User;
-import com.tamaliftics.api.rest.models.WeeklyWeight;
+import com.tamaliftics.api.rest.models.UuidV7Generator;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightItemResultDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightResultDto;
 import com.tamaliftics.api.rest.models.dtos.weight.CreateDailyWeightDto;
 import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
 import com.tamaliftics.api.rest.models.dtos.weight.UpdateDailyWeightDto;
+import com.tamaliftics.api.rest.repositories.DailyWeightBatchRepository;
 import com.tamaliftics.api.rest.repositories.DailyWeightRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
-import com.tamaliftics.api.rest.repositories.WeeklyWeightRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.temporal.WeekFields;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for handling daily weight-related operations.
@@ -24,16 +27,25 @@ import java.util.stream.Collectors;
 public class DailyWeightService {
 
     private final DailyWeightRepository dailyWeightRepository;
-    private final WeeklyWeightRepository weeklyWeightRepository;
+    private final WeeklyWeightService weeklyWeightService;
+    private final DailyWeightBatchRepository dailyWeightBatchRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final WeightTrendService weightTrendService;
 
     @Autowired
     public DailyWeightService(DailyWeightRepository dailyWeightRepository,
-                             WeeklyWeightRepository weeklyWeightRepository,
-                             UserRepository userRepository) {
+                             WeeklyWeightService weeklyWeightService,
+                             DailyWeightBatchRepository dailyWeightBatchRepository,
+                             UserRepository userRepository,
+                             PaginationService paginationService,
+                             WeightTrendService weightTrendService) {
         this.dailyWeightRepository = dailyWeightRepository;
-        this.weeklyWeightRepository = weeklyWeightRepository;
+        this.weeklyWeightService = weeklyWeightService;
+        this.dailyWeightBatchRepository = dailyWeightBatchRepository;
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.weightTrendService = weightTrendService;
     }
 
     /**
@@ -42,6 +54,7 @@ public class DailyWeightService {
      * @param userId the ID of the user creating the daily weight record
      * @return the created daily weight record as a DTO, or empty if the user doesn't exist
      */
+    @Transactional
     public Optional<GetDailyWeightDto> createDailyWeight(CreateDailyWeightDto createDailyWeightDto, UUID userId) {
         Optional<User> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
@@ -55,9 +68,11 @@ public class DailyWeightService {
         if (existingWeight.isPresent()) {
             // Update the existing record instead of creating a new one
             DailyWeight weight = existingWeight.get();
+            double oldWeight = weight.getWeight();
             weight.setWeight(createDailyWeightDto.weight());
             DailyWeight savedWeight = dailyWeightRepository.save(weight);
-            updateWeeklyWeight(user, createDailyWeightDto.date());
+            weeklyWeightService.applyDailyWeightDelta(user, createDailyWeightDto.date(), createDailyWeightDto.weight() - oldWeight, 0);
+            weightTrendService.addDailyWeight(userId, createDailyWeightDto.date(), createDailyWeightDto.weight());
             return Optional.of(mapToGetDailyWeightDto(savedWeight));
         }
 
@@ -70,25 +85,103 @@ public class DailyWeightService {
         DailyWeight savedDailyWeight = dailyWeightRepository.save(dailyWeight);
         
         // Update or create the weekly weight record
-        updateWeeklyWeight(user, createDailyWeightDto.date());
+        weeklyWeightService.applyDailyWeightDelta(user, createDailyWeightDto.date(), createDailyWeightDto.weight(), 1);
+        weightTrendService.addDailyWeight(userId, createDailyWeightDto.date(), createDailyWeightDto.weight());
         
         return Optional.of(mapToGetDailyWeightDto(savedDailyWeight));
     }
 
+    /**
+     * Create or update many daily weight records of a user at once, e.g., when a scale syncs its history.
+     * Readings are written with JDBC batches and the weekly weight of every week with a reading is recomputed once.
+     * If several readings have the same date, the last one wins.
+     * @param readings the daily weight readings
+     * @param userId the ID of the user the readings belong to
+     * @return the outcome of every reading, or empty if the user doesn't exist
+     */
+    @Transactional
+    public Optional<BulkDailyWeightResultDto> upsertDailyWeights(List<CreateDailyWeightDto> readings, UUID userId) {
+        Optional<User> userOptional = userRepository.findById(userId);
+        if (userOptional.isEmpty()) {
+            return Optional.empty();
+        }
+
+        User user = userOptional.get();
+        BulkDailyWeightItemResultDto[] results = new BulkDailyWeightItemResultDto[readings.size()];
+        Map<LocalDate, Integer> indexByDate = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < readings.size(); i++) {
+            CreateDailyWeightDto reading = readings.get(i);
+            if (reading == null || reading.date() == null || reading.weight() == null) {
+                results[i] = new BulkDailyWeightItemResultDto(i, reading != null ? reading.date() : null, UpsertStatus.INVALID, null, "Date and weight are required");
+            } else if (reading.weight() <= 0) {
+                results[i] = new BulkDailyWeightItemResultDto(i, reading.date(), UpsertStatus.INVALID, null, "Weight must be positive");
+            } else if (reading.date().isAfter(today)) {
+                results[i] = new BulkDailyWeightItemResultDto(i, reading.date(), UpsertStatus.INVALID, null, "Date must be in the past or present");
+            } else {
+                Integer supersededIndex = indexByDate.put(reading.date(), i);
+                if (supersededIndex != null) {
+                    results[supersededIndex] = new BulkDailyWeightItemResultDto(supersededIndex, reading.date(), UpsertStatus.DUPLICATE, null, "Superseded by a later reading of the same date");
+                }
+            }
+        }
+
+        int created = 0;
+        int updated = 0;
+        if (!indexByDate.isEmpty()) {
+            Map<LocalDate, UUID> existingIds = dailyWeightBatchRepository.findIdsByUserIdAndDateIn(userId, indexByDate.keySet());
+
+            List<DailyWeight> inserts = new ArrayList<>();
+            List<DailyWeight> updates = new ArrayList<>();
+            for (Map.Entry<LocalDate, Integer> entry : indexByDate.entrySet()) {
+                int index = entry.getValue();
+                DailyWeight dailyWeight = new DailyWeight(entry.getKey(), readings.get(index).weight(), user);
+                UUID existingId = existingIds.get(entry.getKey());
+                if (existingId != null) {
+                    dailyWeight.setId(existingId);
+                    updates.add(dailyWeight);
+                    results[index] = new BulkDailyWeightItemResultDto(index, entry.getKey(), UpsertStatus.UPDATED, existingId, null);
+                } else {
+                    dailyWeight.setId(UuidV7Generator.generateUuid());
+                    inserts.add(dailyWeight);
+                    results[index] = new BulkDailyWeightItemResultDto(index, entry.getKey(), UpsertStatus.CREATED, dailyWeight.getId(), null);
+                }
+            }
+            dailyWeightBatchRepository.insertAll(inserts, userId);
+            dailyWeightBatchRepository.updateWeights(updates);
+            created = inserts.size();
+            updated = updates.size();
+
+            weeklyWeightService.rebuildWeeklyWeights(user, indexByDate.keySet());
+            weightTrendService.invalidate(userId);
+        }
+
+        return Optional.of(new BulkDailyWeightResultDto(created, updated, readings.size() - created - updated, List.of(results)));
+    }
+
     /**
      * Update an existing daily weight record.
      * @param updateDailyWeightDto the DTO containing updated daily weight information
      * @param userId the ID of the user updating the daily weight record
-     * @return the updated daily weight record as a DTO, or empty if the record doesn't exist or doesn't belong to the user
+     * @return the updated daily weight record as a DTO, or empty if the record doesn't exist, doesn't belong to the user
+     * or would be moved to a date that already has a record
      */
+    @Transactional
     public Optional<GetDailyWeightDto> updateDailyWeight(UpdateDailyWeightDto updateDailyWeightDto, UUID userId) {
-        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findById(updateDailyWeightDto.id());
-        if (dailyWeightOptional.isEmpty() || !dailyWeightOptional.get().getUser().getId().equals(userId)) {
+        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findByIdAndUserId(updateDailyWeightDto.id(), userId);
+        if (dailyWeightOptional.isEmpty()) {
             return Optional.empty();
         }
 
         DailyWeight dailyWeight = dailyWeightOptional.get();
-        LocalDate oldDate = dailyWeight.getDate(); // Store the old date to update weekly weights if needed
+        LocalDate oldDate = dailyWeight.getDate(); // Store the old date and weight to update weekly weights if needed
+        double oldWeight = dailyWeight.getWeight();
+        
+        // There can only be one daily weight per date
+        if (updateDailyWeightDto.date() != null && !updateDailyWeightDto.date().equals(oldDate)
+                && dailyWeightRepository.findByDateAndUser(updateDailyWeightDto.date(), dailyWeight.getUser()).isPresent()) {
+            return Optional.empty();
+        }
         
         if (updateDailyWeightDto.date() != null) {
             dailyWeight.setDate(updateDailyWeightDto.date());
@@ -101,11 +194,12 @@ public class DailyWeightService {
         
         // Update weekly weights for both the old and new dates if they're different
         if (updateDailyWeightDto.date() != null && !updateDailyWeightDto.date().equals(oldDate)) {
-            updateWeeklyWeight(dailyWeight.getUser(), oldDate);
-            updateWeeklyWeight(dailyWeight.getUser(), updateDailyWeightDto.date());
+            weeklyWeightService.applyDailyWeightDelta(dailyWeight.getUser(), oldDate, -oldWeight, -1);
+            weeklyWeightService.applyDailyWeightDelta(dailyWeight.getUser(), updateDailyWeightDto.date(), dailyWeight.getWeight(), 1);
         } else {
-            updateWeeklyWeight(dailyWeight.getUser(), dailyWeight.getDate());
+            weeklyWeightService.applyDailyWeightDelta(dailyWeight.getUser(), dailyWeight.getDate(), dailyWeight.getWeight() - oldWeight, 0);
         }
+        weightTrendService.invalidate(userId);
         
         return Optional.of(mapToGetDailyWeightDto(updatedDailyWeight));
     }
@@ -117,8 +211,8 @@ public class DailyWeightService {
      * @return the daily weight record as a DTO, or empty if the record doesn't exist or doesn't belong to the user
      */
     public Optional<GetDailyWeightDto> getDailyWeightById(UUID dailyWeightId, UUID userId) {
-        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findById(dailyWeightId);
-        if (dailyWeightOptional.isEmpty() || !dailyWeightOptional.get().getUser().getId().equals(userId)) {
+        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findByIdAndUserId(dailyWeightId, userId);
+        if (dailyWeightOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -128,17 +222,15 @@ public class DailyWeightService {
     /**
      * Get all daily weight records for a user.
      * @param userId the ID of the user
-     * @return a list of daily weight records as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of daily weight records as DTOs, or empty if the cursor is invalid
      */
-    public List<GetDailyWeightDto> getAllDailyWeightsForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return dailyWeightRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetDailyWeightDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetDailyWeightDto>> getAllDailyWeightsForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "date", "id")
+                .map(position -> paginationService.toPage(
+                        dailyWeightRepository.findByUserIdOrderByDateDescIdDesc(userId, position, paginationService.limit(size)),
+                        this::mapToGetDailyWeightDto));
     }
 
     /**
@@ -146,17 +238,15 @@ public class DailyWeightService {
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
      * @param userId the ID of the user
-     * @return a list of daily weight records as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of daily weight records as DTOs, or empty if the cursor is invalid
      */
-    public List<GetDailyWeightDto> getDailyWeightsBetweenDates(LocalDate startDate, LocalDate endDate, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return dailyWeightRepository.findByDateBetweenAndUser(startDate, endDate, userOptional.get()).stream()
-                .map(this::mapToGetDailyWeightDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetDailyWeightDto>> getDailyWeightsBetweenDates(LocalDate startDate, LocalDate endDate, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "date", "id")
+                .map(position -> paginationService.toPage(
+                        dailyWeightRepository.findByUserIdAndDateBetweenOrderByDateDescIdDesc(userId, startDate, endDate, position, paginationService.limit(size)),
+                        this::mapToGetDailyWeightDto));
     }
 
     /**
@@ -165,9 +255,10 @@ public class DailyWeightService {
      * @param userId the ID of the user deleting the record
      * @return true if the record was deleted, false if the record doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public boolean deleteDailyWeight(UUID dailyWeightId, UUID userId) {
-        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findById(dailyWeightId);
-        if (dailyWeightOptional.isEmpty() || !dailyWeightOptional.get().getUser().getId().equals(userId)) {
+        Optional<DailyWeight> dailyWeightOptional = dailyWeightRepository.findByIdAndUserId(dailyWeightId, userId);
+        if (dailyWeightOptional.isEmpty()) {
             return false;
         }
 
@@ -178,56 +269,12 @@ public class DailyWeightService {
         dailyWeightRepository.delete(dailyWeight);
         
         // Update the weekly weight record
-        updateWeeklyWeight(user, date);
+        weeklyWeightService.applyDailyWeightDelta(user, date, -dailyWeight.getWeight(), -1);
+        weightTrendService.invalidate(userId);
         
         return true;
     }
 
-    /**
-     * Update or create the weekly weight record for a specific date.
-     * @param user the user
-     * @param date the date
-     */
-    private void updateWeeklyWeight(User user, LocalDate date) {
-        // Get the week number and year for the date
-        WeekFields weekFields = WeekFields.of(Locale.getDefault());
-        int weekNumber = date.get(weekFields.weekOfWeekBasedYear());
-        int year = date.get(weekFields.weekBasedYear());
-        
-        // Calculate the start and end dates of the week
-        LocalDate startOfWeek = date.with(weekFields.dayOfWeek(), 1);
-        LocalDate endOfWeek = date.with(weekFields.dayOfWeek(), 7);
-        
-        // Get all daily weights for the week
-        List<DailyWeight> weeklyWeights = dailyWeightRepository.findByDateBetweenAndUser(startOfWeek, endOfWeek, user);
-        
-        if (weeklyWeights.isEmpty()) {
-            // If there are no daily weights for the week, delete the weekly weight record if it exists
-            Optional<WeeklyWeight> existingWeeklyWeight = weeklyWeightRepository.findByWeekNumberAndYearAndUser(weekNumber, year, user);
-            existingWeeklyWeight.ifPresent(weeklyWeightRepository::delete);
-            return;
-        }
-        
-        // Calculate the average weight
-        double averageWeight = weeklyWeights.stream()
-                .mapToDouble(DailyWeight::getWeight)
-                .average()
-                .orElse(0.0);
-        
-        // Update or create the weekly weight record
-        Optional<WeeklyWeight> existingWeeklyWeight = weeklyWeightRepository.findByWeekNumberAndYearAndUser(weekNumber, year, user);
-        WeeklyWeight weeklyWeight;
-        
-        if (existingWeeklyWeight.isPresent()) {
-            weeklyWeight = existingWeeklyWeight.get();
-            weeklyWeight.setAverageWeight(averageWeight);
-        } else {
-            weeklyWeight = new WeeklyWeight(weekNumber, year, startOfWeek, endOfWeek, averageWeight, user);
-        }
-        
-        weeklyWeightRepository.save(weeklyWeight);
-    }
-
     /**
      * Map a DailyWeight entity to a GetDailyWeightDto.
      * @param dailyWeight the daily weight entity
@@ -0,0 +1,90 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.configuration.DashboardExecutor;
+import com.tamaliftics.api.rest.models.Day;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import com.tamaliftics.api.rest.models.dtos.dashboard.GetDashboardDto;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
+import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
+import com.tamaliftics.api.rest.models.dtos.weight.GetWeeklyWeightDto;
+import com.tamaliftics.api.rest.models.dtos.workout.GetWorkoutPlanDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Service for assembling the dashboard of a user, i.e., everything the start page shows, in one call.
+ * The parts of the dashboard don't depend on each other, so they are loaded concurrently, each in its own transaction,
+ * and the dashboard takes about as long as its slowest part.
+ */
+@Service
+public class DashboardService {
+
+    private final WorkoutPlanService workoutPlanService;
+    private final DailyWeightService dailyWeightService;
+    private final WeeklyWeightService weeklyWeightService;
+    private final DietService dietService;
+    private final DashboardExecutor dashboardExecutor;
+    private final int recentDailyWeights;
+    private final int recentWeeklyWeights;
+
+    @Autowired
+    public DashboardService(WorkoutPlanService workoutPlanService, DailyWeightService dailyWeightService,
+                            WeeklyWeightService weeklyWeightService, DietService dietService,
+                            DashboardExecutor dashboardExecutor,
+                            @Value("${application.dashboard.recent-daily-weights:30}") int recentDailyWeights,
+                            @Value("${application.dashboard.recent-weekly-weights:12}") int recentWeeklyWeights) {
+        this.workoutPlanService = workoutPlanService;
+        this.dailyWeightService = dailyWeightService;
+        this.weeklyWeightService = weeklyWeightService;
+        this.dietService = dietService;
+        this.dashboardExecutor = dashboardExecutor;
+        this.recentDailyWeights = recentDailyWeights;
+        this.recentWeeklyWeights = recentWeeklyWeights;
+    }
+
+    /**
+     * Get the dashboard of a user for a day.
+     * @param userId the ID of the user
+     * @param date the day, in the time zone of the user
+     * @return the dashboard
+     */
+    public GetDashboardDto getDashboard(UUID userId, LocalDate date) {
+        Day day = Day.valueOf(date.getDayOfWeek().name());
+
+        CompletableFuture<List<GetWorkoutPlanDto>> workoutPlans = load(() -> workoutPlanService
+                .getWorkoutPlansByDay(day, userId, true, null, null)
+                .map(CursorPageDto::items)
+                .orElse(List.of()));
+        CompletableFuture<List<GetDailyWeightDto>> dailyWeights = load(() -> dailyWeightService
+                .getAllDailyWeightsForUser(userId, null, recentDailyWeights)
+                .map(CursorPageDto::items)
+                .orElse(List.of()));
+        CompletableFuture<List<GetWeeklyWeightDto>> weeklyWeights = load(() -> weeklyWeightService
+                .getAllWeeklyWeightsForUser(userId, null, recentWeeklyWeights)
+                .map(CursorPageDto::items)
+                .orElse(List.of()));
+        CompletableFuture<DietSummaryDto> currentDiet = load(() -> dietService
+                .getLatestDietSummary(userId)
+                .orElse(null));
+
+        return new GetDashboardDto(
+                date,
+                day,
+                workoutPlans.join(),
+                dailyWeights.join(),
+                weeklyWeights.join(),
+                currentDiet.join()
+        );
+    }
+
+    private <T> CompletableFuture<T> load(Supplier<T> part) {
+        return dashboardExecutor.supply(part);
+    }
+}
@@ -2,20 +2,31 @@ package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.Diet;
 import com.tamaliftics.api.rest.models.Meal;
+import com.tamaliftics.api.rest.models.SearchableEntity;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.diet.CreateDietDto;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.diet.GetDietDto;
 import com.tamaliftics.api.rest.models.dtos.diet.UpdateDietDto;
 import com.tamaliftics.api.rest.models.dtos.meal.GetMealDto;
 import com.tamaliftics.api.rest.repositories.DietRepository;
 import com.tamaliftics.api.rest.repositories.MealRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,14 +39,22 @@ public class DietService {
     private final MealRepository mealRepository;
     private final UserRepository userRepository;
     private final MealService mealService;
+    private final PaginationService paginationService;
+    private final NameSearchService nameSearchService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
     public DietService(DietRepository dietRepository, MealRepository mealRepository,
-                      UserRepository userRepository, MealService mealService) {
+                      UserRepository userRepository, MealService mealService,
+                      PaginationService paginationService, NameSearchService nameSearchService,
+                      CollectionVersionService collectionVersionService) {
         this.dietRepository = dietRepository;
         this.mealRepository = mealRepository;
         this.userRepository = userRepository;
         this.mealService = mealService;
+        this.paginationService = paginationService;
+        this.nameSearchService = nameSearchService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -44,6 +63,7 @@ public class DietService {
      * @param userId the ID of the user creating the diet
      * @return the created diet as a DTO, or empty if the user doesn't exist
      */
+    @Transactional
     public Optional<GetDietDto> createDiet(CreateDietDto createDietDto, UUID userId) {
         Optional<User> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
@@ -55,13 +75,13 @@ public class DietService {
 
         // Add meals to the diet if meal IDs are provided
         if (createDietDto.mealIds() != null && !createDietDto.mealIds().isEmpty()) {
-            List<Meal> meals = mealRepository.findAllById(createDietDto.mealIds()).stream()
-                    .filter(meal -> meal.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Meal> meals = mealRepository.findAllByIdInAndUserId(createDietDto.mealIds(), userId);
             diet.setMeals(meals);
         }
 
         Diet savedDiet = dietRepository.save(diet);
+        nameSearchService.put(SearchableEntity.DIET, userId, savedDiet.getId(), savedDiet.getName());
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetDietDto(savedDiet));
     }
 
@@ -71,9 +91,10 @@ public class DietService {
      * @param userId the ID of the user updating the diet
      * @return the updated diet as a DTO, or empty if the diet doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetDietDto> updateDiet(UpdateDietDto updateDietDto, UUID userId) {
-        Optional<Diet> dietOptional = dietRepository.findById(updateDietDto.id());
-        if (dietOptional.isEmpty() || !dietOptional.get().getUser().getId().equals(userId)) {
+        Optional<Diet> dietOptional = dietRepository.findByIdAndUserId(updateDietDto.id(), userId);
+        if (dietOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -87,13 +108,13 @@ public class DietService {
 
         // Update meals if meal IDs are provided
         if (updateDietDto.mealIds() != null) {
-            List<Meal> meals = mealRepository.findAllById(updateDietDto.mealIds()).stream()
-                    .filter(meal -> meal.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Meal> meals = mealRepository.findAllByIdInAndUserId(updateDietDto.mealIds(), userId);
             diet.setMeals(meals);
         }
 
         Diet updatedDiet = dietRepository.save(diet);
+        nameSearchService.put(SearchableEntity.DIET, userId, updatedDiet.getId(), updatedDiet.getName());
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetDietDto(updatedDiet));
     }
 
@@ -103,29 +124,47 @@ public class DietService {
      * @param userId the ID of the user requesting the diet
      * @return the diet as a DTO, or empty if the diet doesn't exist or doesn't belong to the user
      */
+    @Transactional(readOnly = true)
     public Optional<GetDietDto> getDietById(UUID dietId, UUID userId) {
-        Optional<Diet> dietOptional = dietRepository.findById(dietId);
-        if (dietOptional.isEmpty() || !dietOptional.get().getUser().getId().equals(userId)) {
+        Optional<Diet> dietOptional = dietRepository.findWithMealsByIdAndUserId(dietId, userId);
+        if (dietOptional.isEmpty()) {
             return Optional.empty();
         }
 
+        fetchDishesOfMeals(List.of(dietOptional.get()));
         return Optional.of(mapToGetDietDto(dietOptional.get()));
     }
 
     /**
-     * Get all diets for a user.
+     * Get the summary of a diet, read from its stored totals.
+     * @param dietId the ID of the diet
+     * @param userId the ID of the user requesting the summary
+     * @return the summary of the diet, or empty if the diet doesn't exist or doesn't belong to the user
+     */
+    public Optional<DietSummaryDto> getDietSummary(UUID dietId, UUID userId) {
+        return dietRepository.findSummaryByIdAndUserId(dietId, userId);
+    }
+
+    /**
+     * Get the summary of the latest diet of a user.
      * @param userId the ID of the user
-     * @return a list of diets as DTOs
+     * @return the summary of the most recently created diet, or empty if the user has no diet
      */
-    public List<GetDietDto> getAllDietsForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
+    public Optional<DietSummaryDto> getLatestDietSummary(UUID userId) {
+        return dietRepository.findSummariesByUserIdOrderByCreatedAtDesc(userId, Limit.of(1)).stream().findFirst();
+    }
 
-        return dietRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetDietDto)
-                .collect(Collectors.toList());
+    /**
+     * Get all diets for a user.
+     * @param userId the ID of the user
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of diets as DTOs, or empty if the cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDto<GetDietDto>> getAllDietsForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> toPage(dietRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size))));
     }
 
     /**
@@ -134,13 +173,16 @@ public class DietService {
      * @param userId the ID of the user deleting the diet
      * @return true if the diet was deleted, false if the diet doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public boolean deleteDiet(UUID dietId, UUID userId) {
-        Optional<Diet> dietOptional = dietRepository.findById(dietId);
-        if (dietOptional.isEmpty() || !dietOptional.get().getUser().getId().equals(userId)) {
+        Optional<Diet> dietOptional = dietRepository.findByIdAndUserId(dietId, userId);
+        if (dietOptional.isEmpty()) {
             return false;
         }
 
         dietRepository.delete(dietOptional.get());
+        nameSearchService.remove(SearchableEntity.DIET, userId, dietId);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return true;
     }
 
@@ -151,13 +193,12 @@ public class DietService {
      * @param userId the ID of the user
      * @return the updated diet as a DTO, or empty if the diet or meal doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetDietDto> addMealToDiet(UUID dietId, UUID mealId, UUID userId) {
-        Optional<Diet> dietOptional = dietRepository.findById(dietId);
-        Optional<Meal> mealOptional = mealRepository.findById(mealId);
+        Optional<Diet> dietOptional = dietRepository.findByIdAndUserId(dietId, userId);
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(mealId, userId);
 
-        if (dietOptional.isEmpty() || mealOptional.isEmpty() || 
-            !dietOptional.get().getUser().getId().equals(userId) || 
-            !mealOptional.get().getUser().getId().equals(userId)) {
+        if (dietOptional.isEmpty() || mealOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -166,6 +207,7 @@ public class DietService {
         diet.addMeal(meal);
 
         Diet updatedDiet = dietRepository.save(diet);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetDietDto(updatedDiet));
     }
 
@@ -176,36 +218,91 @@ public class DietService {
      * @param userId the ID of the user
      * @return the updated diet as a DTO, or empty if the diet doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetDietDto> removeMealFromDiet(UUID dietId, UUID mealId, UUID userId) {
-        Optional<Diet> dietOptional = dietRepository.findById(dietId);
-        if (dietOptional.isEmpty() || !dietOptional.get().getUser().getId().equals(userId)) {
+        Optional<Diet> dietOptional = dietRepository.findByIdAndUserId(dietId, userId);
+        if (dietOptional.isEmpty()) {
             return Optional.empty();
         }
 
         Diet diet = dietOptional.get();
-        diet.getMeals().removeIf(meal -> meal.getId().equals(mealId));
+        diet.getMeals().stream()
+                .filter(meal -> meal.getId().equals(mealId))
+                .toList()
+                .forEach(diet::removeMeal);
 
         Diet updatedDiet = dietRepository.save(diet);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetDietDto(updatedDiet));
     }
 
     /**
      * Search for diets by name for a user.
+     * Best matches come first if the diets of the user are indexed, otherwise the diets are searched in the database.
      * @param name the name to search for
      * @param userId the ID of the user
-     * @return a list of diets as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of diets as DTOs, or empty if the cursor is invalid
      */
-    public List<GetDietDto> searchDietsByName(String name, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDto<GetDietDto>> searchDietsByName(String name, UUID userId, String cursor, Integer size) {
+        return paginationService.toSearchPage(cursor, size,
+                waitForIndex -> nameSearchService.search(SearchableEntity.DIET, userId, name, waitForIndex, () -> dietRepository.findNamesByUserId(userId)),
+                this::findDietsInOrder,
+                (position, limit) -> toPage(dietRepository.findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(name, userId, position, limit)));
+    }
+
+    /**
+     * Load diets by ID together with their meals, keeping the order of the IDs.
+     * Must be called within a transaction.
+     * @param dietIds the IDs of the diets
+     * @return the diets as DTOs, without the ones that don't exist anymore
+     */
+    private List<GetDietDto> findDietsInOrder(List<UUID> dietIds) {
+        if (dietIds.isEmpty()) {
             return List.of();
         }
-
-        return dietRepository.findByNameContainingIgnoreCaseAndUser(name, userOptional.get()).stream()
+        List<Diet> found = dietRepository.findWithMealsByIdIn(dietIds);
+        fetchDishesOfMeals(found);
+        Map<UUID, Diet> diets = found.stream()
+                .collect(Collectors.toMap(Diet::getId, Function.identity()));
+        return dietIds.stream()
+                .map(diets::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToGetDietDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Map a window of diets to a page, fetching the meals of the whole page with a single query.
+     * Must be called in the same transaction the diets were loaded in.
+     * @param diets the window of diets
+     * @return the page of diets as DTOs
+     */
+    private CursorPageDto<GetDietDto> toPage(Window<Diet> diets) {
+        List<UUID> dietIds = diets.stream()
+                .map(Diet::getId)
+                .collect(Collectors.toList());
+        if (!dietIds.isEmpty()) {
+            dietRepository.findWithMealsByIdIn(dietIds);
+        }
+        fetchDishesOfMeals(diets.getContent());
+        return paginationService.toPage(diets, this::mapToGetDietDto);
+    }
+
+    /**
+     * Initialize the dishes of all meals of the given diets, instead of one lazy load per meal.
+     * Dishes that are in the second-level cache are taken from there, the others are loaded in batches of 50 meals.
+     * Must be called in the same transaction the diets were loaded in.
+     * @param diets the diets whose meals were already fetched
+     */
+    private void fetchDishesOfMeals(List<Diet> diets) {
+        diets.stream()
+                .flatMap(diet -> diet.getMeals().stream())
+                .forEach(meal -> Hibernate.initialize(meal.getDishes()));
+    }
+
     /**
      * Map a Diet entity to a GetDietDto.
      * @param diet the diet entity
@@ -213,11 +310,7 @@ public class DietService {
      */
     private GetDietDto mapToGetDietDto(Diet diet) {
         List<GetMealDto> mealDtos = diet.getMeals().stream()
-                .map(meal -> {
-                    Optional<GetMealDto> mealDto = mealService.getMealById(meal.getId(), diet.getUser().getId());
-                    return mealDto.orElse(null);
-                })
-                .filter(mealDto -> mealDto != null)
+                .map(mealService::mapToGetMealDto)
                 .collect(Collectors.toList());
 
         return new GetDietDto(
@@ -1,7 +1,11 @@
 package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.Dish;
+import com.tamaliftics.api.rest.models.NutritionTotals;
+import com.tamaliftics.api.rest.models.SearchableEntity;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.dish.CreateDishDto;
 import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
 import com.tamaliftics.api.rest.models.dtos.dish.UpdateDishDto;
@@ -9,10 +13,14 @@ import com.tamaliftics.api.rest.repositories.DishRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,11 +31,21 @@ public class DishService {
 
     private final DishRepository dishRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final NutritionTotalsService nutritionTotalsService;
+    private final NameSearchService nameSearchService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public DishService(DishRepository dishRepository, UserRepository userRepository) {
+    public DishService(DishRepository dishRepository, UserRepository userRepository, PaginationService paginationService,
+                       NutritionTotalsService nutritionTotalsService, NameSearchService nameSearchService,
+                       CollectionVersionService collectionVersionService) {
         this.dishRepository = dishRepository;
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.nutritionTotalsService = nutritionTotalsService;
+        this.nameSearchService = nameSearchService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -36,6 +54,7 @@ public class DishService {
      * @param userId the ID of the user creating the dish
      * @return the created dish as a DTO, or empty if the user doesn't exist
      */
+    @Transactional
     public Optional<GetDishDto> createDish(CreateDishDto createDishDto, UUID userId) {
         Optional<User> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
@@ -54,6 +73,7 @@ public class DishService {
         );
 
         Dish savedDish = dishRepository.save(dish);
+        nameSearchService.put(SearchableEntity.DISH, userId, savedDish.getId(), savedDish.getName());
         return Optional.of(mapToGetDishDto(savedDish));
     }
 
@@ -63,13 +83,15 @@ public class DishService {
      * @param userId the ID of the user updating the dish
      * @return the updated dish as a DTO, or empty if the dish doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetDishDto> updateDish(UpdateDishDto updateDishDto, UUID userId) {
-        Optional<Dish> dishOptional = dishRepository.findById(updateDishDto.id());
-        if (dishOptional.isEmpty() || !dishOptional.get().getUser().getId().equals(userId)) {
+        Optional<Dish> dishOptional = dishRepository.findByIdAndUserId(updateDishDto.id(), userId);
+        if (dishOptional.isEmpty()) {
             return Optional.empty();
         }
 
         Dish dish = dishOptional.get();
+        NutritionTotals previousMacros = NutritionTotals.of(dish);
         if (updateDishDto.name() != null) {
             dish.setName(updateDishDto.name());
         }
@@ -90,6 +112,11 @@ public class DishService {
         }
 
         Dish updatedDish = dishRepository.save(dish);
+        // the totals of the meals containing the dish, and of their diets, include the old macros
+        nutritionTotalsService.updateMealsOfDish(updatedDish, previousMacros);
+        nameSearchService.put(SearchableEntity.DISH, userId, updatedDish.getId(), updatedDish.getName());
+        // the dishes are listed with the meals of the diets
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetDishDto(updatedDish));
     }
 
@@ -100,8 +127,8 @@ public class DishService {
      * @return the dish as a DTO, or empty if the dish doesn't exist or doesn't belong to the user
      */
     public Optional<GetDishDto> getDishById(UUID dishId, UUID userId) {
-        Optional<Dish> dishOptional = dishRepository.findById(dishId);
-        if (dishOptional.isEmpty() || !dishOptional.get().getUser().getId().equals(userId)) {
+        Optional<Dish> dishOptional = dishRepository.findByIdAndUserId(dishId, userId);
+        if (dishOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -111,17 +138,15 @@ public class DishService {
     /**
      * Get all dishes for a user.
      * @param userId the ID of the user
-     * @return a list of dishes as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of dishes as DTOs, or empty if the cursor is invalid
      */
-    public List<GetDishDto> getAllDishesForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return dishRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetDishDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetDishDto>> getAllDishesForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> paginationService.toPage(
+                        dishRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size)),
+                        this::mapToGetDishDto));
     }
 
     /**
@@ -130,29 +155,44 @@ public class DishService {
      * @param userId the ID of the user deleting the dish
      * @return true if the dish was deleted, false if the dish doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public boolean deleteDish(UUID dishId, UUID userId) {
-        Optional<Dish> dishOptional = dishRepository.findById(dishId);
-        if (dishOptional.isEmpty() || !dishOptional.get().getUser().getId().equals(userId)) {
+        if (dishRepository.deleteByIdAndUserId(dishId, userId) == 0) {
             return false;
         }
 
-        dishRepository.delete(dishOptional.get());
+        nameSearchService.remove(SearchableEntity.DISH, userId, dishId);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return true;
     }
 
     /**
      * Search for dishes by name for a user.
+     * Best matches come first if the dishes of the user are indexed, otherwise the dishes are searched in the database.
      * @param name the name to search for
      * @param userId the ID of the user
-     * @return a list of dishes as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of dishes as DTOs, or empty if the cursor is invalid
      */
-    public List<GetDishDto> searchDishesByName(String name, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
+    public Optional<CursorPageDto<GetDishDto>> searchDishesByName(String name, UUID userId, String cursor, Integer size) {
+        return paginationService.toSearchPage(cursor, size,
+                waitForIndex -> nameSearchService.search(SearchableEntity.DISH, userId, name, waitForIndex, () -> dishRepository.findNamesByUserId(userId)),
+                this::findDishesInOrder,
+                (position, limit) -> paginationService.toPage(dishRepository.findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(name, userId, position, limit), this::mapToGetDishDto));
+    }
 
-        return dishRepository.findByNameContainingIgnoreCaseAndUser(name, userOptional.get()).stream()
+    /**
+     * Load dishes by ID, keeping the order of the IDs.
+     * @param dishIds the IDs of the dishes
+     * @return the dishes as DTOs, without the ones that don't exist anymore
+     */
+    private List<GetDishDto> findDishesInOrder(List<UUID> dishIds) {
+        Map<UUID, Dish> dishes = dishRepository.findAllById(dishIds).stream()
+                .collect(Collectors.toMap(Dish::getId, Function.identity()));
+        return dishIds.stream()
+                .map(dishes::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToGetDishDto)
                 .collect(Collectors.toList());
     }
@@ -1,7 +1,10 @@
 package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.ExerciseCategory;
+import com.tamaliftics.api.rest.models.SearchableEntity;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.UpdateExerciseCategoryDto;
@@ -11,8 +14,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -23,11 +29,19 @@ public class ExerciseCategoryService {
 
     private final ExerciseCategoryRepository exerciseCategoryRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final NameSearchService nameSearchService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
-    public ExerciseCategoryService(ExerciseCategoryRepository exerciseCategoryRepository, UserRepository userRepository) {
+    public ExerciseCategoryService(ExerciseCategoryRepository exerciseCategoryRepository, UserRepository userRepository, PaginationService paginationService,
+                                   NameSearchService nameSearchService,
+                                   CollectionVersionService collectionVersionService) {
         this.exerciseCategoryRepository = exerciseCategoryRepository;
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.nameSearchService = nameSearchService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -50,6 +64,7 @@ public class ExerciseCategoryService {
         );
 
         ExerciseCategory savedExerciseCategory = exerciseCategoryRepository.save(exerciseCategory);
+        nameSearchService.put(SearchableEntity.EXERCISE_CATEGORY, userId, savedExerciseCategory.getId(), savedExerciseCategory.getName());
         return Optional.of(mapToGetExerciseCategoryDto(savedExerciseCategory));
     }
 
@@ -60,8 +75,8 @@ public class ExerciseCategoryService {
      * @return the updated exercise category as a DTO, or empty if the category doesn't exist or doesn't belong to the user
      */
     public Optional<GetExerciseCategoryDto> updateExerciseCategory(UpdateExerciseCategoryDto updateExerciseCategoryDto, UUID userId) {
-        Optional<ExerciseCategory> exerciseCategoryOptional = exerciseCategoryRepository.findById(updateExerciseCategoryDto.id());
-        if (exerciseCategoryOptional.isEmpty() || !exerciseCategoryOptional.get().getUser().getId().equals(userId)) {
+        Optional<ExerciseCategory> exerciseCategoryOptional = exerciseCategoryRepository.findByIdAndUserId(updateExerciseCategoryDto.id(), userId);
+        if (exerciseCategoryOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -74,6 +89,9 @@ public class ExerciseCategoryService {
         }
 
         ExerciseCategory updatedExerciseCategory = exerciseCategoryRepository.save(exerciseCategory);
+        nameSearchService.put(SearchableEntity.EXERCISE_CATEGORY, userId, updatedExerciseCategory.getId(), updatedExerciseCategory.getName());
+        // the categories are listed with their exercises
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return Optional.of(mapToGetExerciseCategoryDto(updatedExerciseCategory));
     }
 
@@ -84,8 +102,8 @@ public class ExerciseCategoryService {
      * @return the exercise category as a DTO, or empty if the category doesn't exist or doesn't belong to the user
      */
     public Optional<GetExerciseCategoryDto> getExerciseCategoryById(UUID exerciseCategoryId, UUID userId) {
-        Optional<ExerciseCategory> exerciseCategoryOptional = exerciseCategoryRepository.findById(exerciseCategoryId);
-        if (exerciseCategoryOptional.isEmpty() || !exerciseCategoryOptional.get().getUser().getId().equals(userId)) {
+        Optional<ExerciseCategory> exerciseCategoryOptional = exerciseCategoryRepository.findByIdAndUserId(exerciseCategoryId, userId);
+        if (exerciseCategoryOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -95,17 +113,15 @@ public class ExerciseCategoryService {
     /**
      * Get all exercise categories for a user.
      * @param userId the ID of the user
-     * @return a list of exercise categories as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of exercise categories as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseCategoryDto> getAllExerciseCategoriesForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return exerciseCategoryRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetExerciseCategoryDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseCategoryDto>> getAllExerciseCategoriesForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> paginationService.toPage(
+                        exerciseCategoryRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size)),
+                        this::mapToGetExerciseCategoryDto));
     }
 
     /**
@@ -115,28 +131,42 @@ public class ExerciseCategoryService {
      * @return true if the category was deleted, false if the category doesn't exist or doesn't belong to the user
      */
     public boolean deleteExerciseCategory(UUID exerciseCategoryId, UUID userId) {
-        Optional<ExerciseCategory> exerciseCategoryOptional = exerciseCategoryRepository.findById(exerciseCategoryId);
-        if (exerciseCategoryOptional.isEmpty() || !exerciseCategoryOptional.get().getUser().getId().equals(userId)) {
+        if (exerciseCategoryRepository.deleteByIdAndUserId(exerciseCategoryId, userId) == 0) {
             return false;
         }
 
-        exerciseCategoryRepository.delete(exerciseCategoryOptional.get());
+        nameSearchService.remove(SearchableEntity.EXERCISE_CATEGORY, userId, exerciseCategoryId);
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return true;
     }
 
     /**
      * Search for exercise categories by name for a user.
+     * Best matches come first if the exercise categories of the user are indexed, otherwise the categories are searched in the database.
      * @param name the name to search for
      * @param userId the ID of the user
-     * @return a list of exercise categories as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of exercise categories as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseCategoryDto> searchExerciseCategoriesByName(String name, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
+    public Optional<CursorPageDto<GetExerciseCategoryDto>> searchExerciseCategoriesByName(String name, UUID userId, String cursor, Integer size) {
+        return paginationService.toSearchPage(cursor, size,
+                waitForIndex -> nameSearchService.search(SearchableEntity.EXERCISE_CATEGORY, userId, name, waitForIndex, () -> exerciseCategoryRepository.findNamesByUserId(userId)),
+                this::findExerciseCategoriesInOrder,
+                (position, limit) -> paginationService.toPage(exerciseCategoryRepository.findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(name, userId, position, limit), this::mapToGetExerciseCategoryDto));
+    }
 
-        return exerciseCategoryRepository.findByNameContainingIgnoreCaseAndUser(name, userOptional.get()).stream()
+    /**
+     * Load exercise categories by ID, keeping the order of the IDs.
+     * @param categoryIds the IDs of the exercise categories
+     * @return the exercise categories as DTOs, without the ones that don't exist anymore
+     */
+    private List<GetExerciseCategoryDto> findExerciseCategoriesInOrder(List<UUID> categoryIds) {
+        Map<UUID, ExerciseCategory> categories = exerciseCategoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(ExerciseCategory::getId, Function.identity()));
+        return categoryIds.stream()
+                .map(categories::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToGetExerciseCategoryDto)
                 .collect(Collectors.toList());
     }
@@ -146,7 +176,7 @@ public class ExerciseCategoryService {
      * @param exerciseCategory the exercise category entity
      * @return the exercise category DTO
      */
-    private GetExerciseCategoryDto mapToGetExerciseCategoryDto(ExerciseCategory exerciseCategory) {
+    GetExerciseCategoryDto mapToGetExerciseCategoryDto(ExerciseCategory exerciseCategory) {
         return new GetExerciseCategoryDto(
                 exerciseCategory.getId(),
                 exerciseCategory.getName(),
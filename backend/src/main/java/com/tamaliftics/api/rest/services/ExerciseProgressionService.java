@@ -0,0 +1,150 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.models.PersonalRecordType;
+import com.tamaliftics.api.rest.models.ProgressionBucket;
+import com.tamaliftics.api.rest.models.dtos.progression.ExerciseDailyTotalsDto;
+import com.tamaliftics.api.rest.models.dtos.progression.ExerciseProgressionDto;
+import com.tamaliftics.api.rest.models.dtos.progression.PersonalRecordDto;
+import com.tamaliftics.api.rest.models.dtos.progression.ProgressionPointDto;
+import com.tamaliftics.api.rest.repositories.ExerciseDailyRollupRepository;
+import com.tamaliftics.api.rest.repositories.ExerciseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service for the progression of an exercise over time: volume, estimated one-rep max and personal records.
+ * The days are read from the per exercise and day rollups and folded into buckets in a single pass,
+ * so neither the track points nor their entities are loaded.
+ */
+@Service
+public class ExerciseProgressionService {
+
+    private final ExerciseDailyRollupRepository exerciseDailyRollupRepository;
+    private final ExerciseRepository exerciseRepository;
+
+    @Autowired
+    public ExerciseProgressionService(ExerciseDailyRollupRepository exerciseDailyRollupRepository,
+                                      ExerciseRepository exerciseRepository) {
+        this.exerciseDailyRollupRepository = exerciseDailyRollupRepository;
+        this.exerciseRepository = exerciseRepository;
+    }
+
+    /**
+     * Get the progression of an exercise.
+     * Personal records are measured against the whole history, also against the days before the start date.
+     * A day is a personal record when it beats every earlier day, so the first day of an exercise is none.
+     * @param exerciseId the ID of the exercise
+     * @param userId the ID of the user
+     * @param bucket the length of the periods to sum up
+     * @param startDate the first day to include, or null to start at the first track point
+     * @param endDate the last day to include, or null to end at the last track point
+     * @return the progression, or empty if the exercise doesn't exist or belongs to another user
+     */
+    @Transactional(readOnly = true)
+    public Optional<ExerciseProgressionDto> getProgression(UUID exerciseId, UUID userId, ProgressionBucket bucket, LocalDate startDate, LocalDate endDate) {
+        List<ExerciseDailyTotalsDto> days = exerciseDailyRollupRepository.findByExerciseIdAndUserId(exerciseId, userId);
+        if (days.isEmpty() && exerciseRepository.findByIdAndUserId(exerciseId, userId).isEmpty()) {
+            return Optional.empty();
+        }
+
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        List<ProgressionPointDto> points = new ArrayList<>();
+        List<PersonalRecordDto> personalRecords = new ArrayList<>();
+
+        // the bests of all days before the current one
+        double bestEstimatedOneRepMax = 0;
+        double bestWeight = 0;
+        double bestVolume = 0;
+        boolean firstDay = true;
+
+        // the bucket being summed up
+        LocalDate bucketStart = null;
+        int trainingDays = 0;
+        double volume = 0;
+        double estimatedOneRepMax = 0;
+        float maxWeight = 0;
+        long sets = 0;
+        long reps = 0;
+
+        // the days come oldest first
+        for (ExerciseDailyTotalsDto day : days) {
+            LocalDate date = day.date();
+            if (endDate != null && date.isAfter(endDate)) {
+                break;
+            }
+            double dayVolume = valueOf(day.volume());
+            double dayEstimatedOneRepMax = valueOf(day.bestEstimatedOneRepMax());
+            float dayMaxWeight = day.maxWeight() != null ? day.maxWeight() : 0f;
+
+            boolean inRange = startDate == null || !date.isBefore(startDate);
+            if (inRange) {
+                if (!firstDay) {
+                    addPersonalRecord(personalRecords, date, PersonalRecordType.ESTIMATED_ONE_REP_MAX, dayEstimatedOneRepMax, bestEstimatedOneRepMax);
+                    addPersonalRecord(personalRecords, date, PersonalRecordType.MAX_WEIGHT, dayMaxWeight, bestWeight);
+                    addPersonalRecord(personalRecords, date, PersonalRecordType.VOLUME, dayVolume, bestVolume);
+                }
+
+                LocalDate dayBucketStart = bucketStart(date, bucket, weekFields);
+                if (!dayBucketStart.equals(bucketStart)) {
+                    if (bucketStart != null) {
+                        points.add(new ProgressionPointDto(bucketStart, trainingDays, volume, estimatedOneRepMax, maxWeight, sets, reps));
+                    }
+                    bucketStart = dayBucketStart;
+                    trainingDays = 0;
+                    volume = 0;
+                    estimatedOneRepMax = 0;
+                    maxWeight = 0;
+                    sets = 0;
+                    reps = 0;
+                }
+                trainingDays++;
+                volume += dayVolume;
+                estimatedOneRepMax = Math.max(estimatedOneRepMax, dayEstimatedOneRepMax);
+                maxWeight = Math.max(maxWeight, dayMaxWeight);
+                sets += day.sets() != null ? day.sets() : 0;
+                reps += day.reps() != null ? day.reps() : 0;
+            }
+
+            bestEstimatedOneRepMax = Math.max(bestEstimatedOneRepMax, dayEstimatedOneRepMax);
+            bestWeight = Math.max(bestWeight, dayMaxWeight);
+            bestVolume = Math.max(bestVolume, dayVolume);
+            firstDay = false;
+        }
+        if (bucketStart != null) {
+            points.add(new ProgressionPointDto(bucketStart, trainingDays, volume, estimatedOneRepMax, maxWeight, sets, reps));
+        }
+
+        return Optional.of(new ExerciseProgressionDto(exerciseId, bucket, points, personalRecords));
+    }
+
+    private static void addPersonalRecord(List<PersonalRecordDto> personalRecords, LocalDate date, PersonalRecordType type, double value, double previousValue) {
+        if (value > previousValue) {
+            personalRecords.add(new PersonalRecordDto(date, type, value, previousValue));
+        }
+    }
+
+    /**
+     * Get the first day of the bucket a day falls into.
+     * Weeks start on the first day of the week of the default locale, like the weekly weights.
+     */
+    private static LocalDate bucketStart(LocalDate date, ProgressionBucket bucket, WeekFields weekFields) {
+        return switch (bucket) {
+            case DAY -> date;
+            case WEEK -> date.with(weekFields.dayOfWeek(), 1);
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0;
+    }
+}
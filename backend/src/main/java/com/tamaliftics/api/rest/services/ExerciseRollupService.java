@@ -0,0 +1,84 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointDayDto;
+import com.tamaliftics.api.rest.repositories.ExerciseDailyRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service for keeping the per exercise and day rollups of the track points up to date.
+ * Every change of track points recomputes the rollups of the days it touched,
+ * and all rollups are periodically compared with the track points and repaired, e.g., after track points were changed directly in the database.
+ */
+@Service
+public class ExerciseRollupService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExerciseRollupService.class);
+
+    // the track points of a batch of exercises are compared with their rollups in one query
+    private static final int EXERCISES_PER_BATCH = 100;
+
+    private final ExerciseDailyRollupRepository exerciseDailyRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ExerciseRollupService(ExerciseDailyRollupRepository exerciseDailyRollupRepository, TransactionTemplate transactionTemplate) {
+        this.exerciseDailyRollupRepository = exerciseDailyRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Recompute the rollups of some days of some exercises.
+     * Must be called within the transaction that changed the track points, after they were flushed.
+     * @param days the exercises and days to recompute
+     */
+    @Transactional
+    public void refreshDays(ExerciseTrackPointDayDto... days) {
+        exerciseDailyRollupRepository.refreshDays(List.of(days));
+    }
+
+    /**
+     * Recompute the rollups of the days of some track points.
+     * Must be called within the transaction that changed the track points, after they were flushed.
+     * @param trackPoints the changed track points, their exercises are only used for their IDs
+     */
+    @Transactional
+    public void refreshDaysOf(Collection<ExerciseTrackPoint> trackPoints) {
+        exerciseDailyRollupRepository.refreshDays(trackPoints.stream()
+                .map(trackPoint -> new ExerciseTrackPointDayDto(trackPoint.getExercise().getId(), trackPoint.getDate()))
+                .toList());
+    }
+
+    /**
+     * Repair the rollups of every exercise that drifted from the track points.
+     * The exercises are compared in batches by plain reads, and only the drifted days of a batch are recomputed,
+     * each batch in its own short transaction, so the track points are never locked for the whole run.
+     * Runs nightly by default, configurable with application.exercises.rollup-rebuild-cron.
+     * @return the number of days whose rollups were recomputed
+     */
+    @Scheduled(cron = "${application.exercises.rollup-rebuild-cron:0 45 3 * * *}")
+    public int rebuildAllRollups() {
+        int repaired = 0;
+        List<UUID> exerciseIds = exerciseDailyRollupRepository.findExerciseIdsAfter(null, EXERCISES_PER_BATCH);
+        while (!exerciseIds.isEmpty()) {
+            List<ExerciseTrackPointDayDto> driftedDays = exerciseDailyRollupRepository.findDriftedDays(exerciseIds);
+            if (!driftedDays.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> exerciseDailyRollupRepository.refreshDays(driftedDays));
+                repaired += driftedDays.size();
+            }
+            exerciseIds = exerciseDailyRollupRepository.findExerciseIdsAfter(exerciseIds.getLast(), EXERCISES_PER_BATCH);
+        }
+        LOG.info("Rebuilt the exercise rollups, {} days had drifted from their track points", repaired);
+        return repaired;
+    }
+}
@@ -3,11 +3,15 @@ package com.tamaliftics.api.rest.services;
 import com.tamaliftics.api.rest.models.Exercise;
 import com.tamaliftics.api.rest.models.ExerciseCategory;
 import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import com.tamaliftics.api.rest.models.SearchableEntity;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.CreateExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.UpdateExerciseDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
 import com.tamaliftics.api.rest.repositories.ExerciseCategoryRepository;
 import com.tamaliftics.api.rest.repositories.ExerciseRepository;
@@ -17,8 +21,11 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,16 +38,25 @@ public class ExerciseService {
     private final ExerciseCategoryRepository exerciseCategoryRepository;
     private final UserRepository userRepository;
     private final ExerciseCategoryService exerciseCategoryService;
+    private final PaginationService paginationService;
+    private final NameSearchService nameSearchService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
     public ExerciseService(ExerciseRepository exerciseRepository,
                           ExerciseCategoryRepository exerciseCategoryRepository,
                           UserRepository userRepository,
-                          ExerciseCategoryService exerciseCategoryService) {
+                          ExerciseCategoryService exerciseCategoryService,
+                          PaginationService paginationService,
+                          NameSearchService nameSearchService,
+                          CollectionVersionService collectionVersionService) {
         this.exerciseRepository = exerciseRepository;
         this.exerciseCategoryRepository = exerciseCategoryRepository;
         this.userRepository = userRepository;
         this.exerciseCategoryService = exerciseCategoryService;
+        this.paginationService = paginationService;
+        this.nameSearchService = nameSearchService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -50,15 +66,14 @@ public class ExerciseService {
      * @return the created exercise as a DTO, or empty if the user or category doesn't exist
      */
     public Optional<GetExerciseDto> createExercise(CreateExerciseDto createExerciseDto, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        Optional<ExerciseCategory> categoryOptional = exerciseCategoryRepository.findById(createExerciseDto.categoryId());
-
-        if (userOptional.isEmpty() || categoryOptional.isEmpty() || !categoryOptional.get().getUser().getId().equals(userId)) {
+        Optional<ExerciseCategory> categoryOptional = exerciseCategoryRepository.findByIdAndUserId(createExerciseDto.categoryId(), userId);
+        if (categoryOptional.isEmpty()) {
             return Optional.empty();
         }
 
-        User user = userOptional.get();
+        // the category is owned by the user, so its owner is the user creating the exercise
         ExerciseCategory category = categoryOptional.get();
+        User user = category.getUser();
 
         Exercise exercise = new Exercise(
                 createExerciseDto.name(),
@@ -68,6 +83,8 @@ public class ExerciseService {
         );
 
         Exercise savedExercise = exerciseRepository.save(exercise);
+        nameSearchService.put(SearchableEntity.EXERCISE, userId, savedExercise.getId(), savedExercise.getName());
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return Optional.of(mapToGetExerciseDto(savedExercise));
     }
 
@@ -78,8 +95,8 @@ public class ExerciseService {
      * @return the updated exercise as a DTO, or empty if the exercise doesn't exist or doesn't belong to the user
      */
     public Optional<GetExerciseDto> updateExercise(UpdateExerciseDto updateExerciseDto, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(updateExerciseDto.id());
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
+        Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(updateExerciseDto.id(), userId);
+        if (exerciseOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -93,13 +110,15 @@ public class ExerciseService {
 
         // Update category if provided
         if (updateExerciseDto.categoryId() != null) {
-            Optional<ExerciseCategory> categoryOptional = exerciseCategoryRepository.findById(updateExerciseDto.categoryId());
-            if (categoryOptional.isPresent() && categoryOptional.get().getUser().getId().equals(userId)) {
+            Optional<ExerciseCategory> categoryOptional = exerciseCategoryRepository.findByIdAndUserId(updateExerciseDto.categoryId(), userId);
+            if (categoryOptional.isPresent()) {
                 exercise.setCategory(categoryOptional.get());
             }
         }
 
         Exercise updatedExercise = exerciseRepository.save(exercise);
+        nameSearchService.put(SearchableEntity.EXERCISE, userId, updatedExercise.getId(), updatedExercise.getName());
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return Optional.of(mapToGetExerciseDto(updatedExercise));
     }
 
@@ -110,8 +129,8 @@ public class ExerciseService {
      * @return the exercise as a DTO, or empty if the exercise doesn't exist or doesn't belong to the user
      */
     public Optional<GetExerciseDto> getExerciseById(UUID exerciseId, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(exerciseId);
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
+        Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(exerciseId, userId);
+        if (exerciseOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -121,34 +140,30 @@ public class ExerciseService {
     /**
      * Get all exercises for a user.
      * @param userId the ID of the user
-     * @return a list of exercises as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of exercises as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseDto> getAllExercisesForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return exerciseRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetExerciseDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseDto>> getAllExercisesForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> paginationService.toPage(
+                        exerciseRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size)),
+                        this::mapToGetExerciseDto));
     }
 
     /**
      * Get all exercises for a category.
      * @param categoryId the ID of the category
      * @param userId the ID of the user
-     * @return a list of exercises as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of exercises as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseDto> getExercisesByCategory(UUID categoryId, UUID userId) {
-        Optional<ExerciseCategory> categoryOptional = exerciseCategoryRepository.findById(categoryId);
-        if (categoryOptional.isEmpty() || !categoryOptional.get().getUser().getId().equals(userId)) {
-            return List.of();
-        }
-
-        return exerciseRepository.findByCategoryAndUser(categoryOptional.get(), categoryOptional.get().getUser()).stream()
-                .map(this::mapToGetExerciseDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseDto>> getExercisesByCategory(UUID categoryId, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> paginationService.toPage(
+                        exerciseRepository.findByCategoryIdAndUserIdOrderByIdAsc(categoryId, userId, position, paginationService.limit(size)),
+                        this::mapToGetExerciseDto));
     }
 
     /**
@@ -158,28 +173,44 @@ public class ExerciseService {
      * @return true if the exercise was deleted, false if the exercise doesn't exist or doesn't belong to the user
      */
     public boolean deleteExercise(UUID exerciseId, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(exerciseId);
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
+        Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(exerciseId, userId);
+        if (exerciseOptional.isEmpty()) {
             return false;
         }
 
         exerciseRepository.delete(exerciseOptional.get());
+        nameSearchService.remove(SearchableEntity.EXERCISE, userId, exerciseId);
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return true;
     }
 
     /**
      * Search for exercises by name for a user.
+     * Best matches come first if the exercises of the user are indexed, otherwise the exercises are searched in the database.
      * @param name the name to search for
      * @param userId the ID of the user
-     * @return a list of exercises as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of exercises as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseDto> searchExercisesByName(String name, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
+    public Optional<CursorPageDto<GetExerciseDto>> searchExercisesByName(String name, UUID userId, String cursor, Integer size) {
+        return paginationService.toSearchPage(cursor, size,
+                waitForIndex -> nameSearchService.search(SearchableEntity.EXERCISE, userId, name, waitForIndex, () -> exerciseRepository.findNamesByUserId(userId)),
+                this::findExercisesInOrder,
+                (position, limit) -> paginationService.toPage(exerciseRepository.findByNameContainingIgnoreCaseAndUserIdOrderByIdAsc(name, userId, position, limit), this::mapToGetExerciseDto));
+    }
 
-        return exerciseRepository.findByNameContainingIgnoreCaseAndUser(name, userOptional.get()).stream()
+    /**
+     * Load exercises by ID, keeping the order of the IDs.
+     * @param exerciseIds the IDs of the exercises
+     * @return the exercises as DTOs, without the ones that don't exist anymore
+     */
+    private List<GetExerciseDto> findExercisesInOrder(List<UUID> exerciseIds) {
+        Map<UUID, Exercise> exercises = exerciseRepository.findAllById(exerciseIds).stream()
+                .collect(Collectors.toMap(Exercise::getId, Function.identity()));
+        return exerciseIds.stream()
+                .map(exercises::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToGetExerciseDto)
                 .collect(Collectors.toList());
     }
@@ -190,8 +221,7 @@ public class ExerciseService {
      * @return the exercise DTO
      */
     private GetExerciseDto mapToGetExerciseDto(Exercise exercise) {
-        GetExerciseCategoryDto categoryDto = exerciseCategoryService.getExerciseCategoryById(
-                exercise.getCategory().getId(), exercise.getUser().getId()).orElse(null);
+        GetExerciseCategoryDto categoryDto = exerciseCategoryService.mapToGetExerciseCategoryDto(exercise.getCategory());
 
         List<GetExerciseTrackPointDto> trackPointDtos = exercise.getTrackPoints().stream()
                 .map(this::mapToGetExerciseTrackPointDto)
@@ -203,6 +233,25 @@ public class ExerciseService {
                 exercise.getDescription(),
                 categoryDto,
                 trackPointDtos,
+                null,
+                exercise.getUser().getId()
+        );
+    }
+
+    /**
+     * Map an Exercise entity to a GetExerciseDto without touching its track points.
+     * @param exercise the exercise entity, with its category already loaded
+     * @param trackPointSummary the summary of the track points, or null if it wasn't requested
+     * @return the exercise DTO with an empty list of track points
+     */
+    GetExerciseDto mapToGetExerciseDtoWithoutTrackPoints(Exercise exercise, ExerciseTrackPointSummaryDto trackPointSummary) {
+        return new GetExerciseDto(
+                exercise.getId(),
+                exercise.getName(),
+                exercise.getDescription(),
+                exerciseCategoryService.mapToGetExerciseCategoryDto(exercise.getCategory()),
+                List.of(),
+                trackPointSummary,
                 exercise.getUser().getId()
         );
     }
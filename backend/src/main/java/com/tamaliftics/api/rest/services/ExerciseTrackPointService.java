@@ -2,8 +2,14 @@ package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.Exercise;
 import com.tamaliftics.api.rest.models.ExerciseTrackPoint;
+import com.tamaliftics.api.rest.models.UpsertStatus;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.BulkExerciseTrackPointItemResultDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.BulkExerciseTrackPointResultDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.CreateExerciseTrackPointDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointDayDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.UpdateExerciseTrackPointDto;
 import com.tamaliftics.api.rest.repositories.ExerciseRepository;
@@ -11,11 +17,16 @@ import com.tamaliftics.api.rest.repositories.ExerciseTrackPointRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,14 +38,23 @@ public class ExerciseTrackPointService {
     private final ExerciseTrackPointRepository exerciseTrackPointRepository;
     private final ExerciseRepository exerciseRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final CollectionVersionService collectionVersionService;
+    private final ExerciseRollupService exerciseRollupService;
 
     @Autowired
     public ExerciseTrackPointService(ExerciseTrackPointRepository exerciseTrackPointRepository,
                                     ExerciseRepository exerciseRepository,
-                                    UserRepository userRepository) {
+                                    UserRepository userRepository,
+                                    PaginationService paginationService,
+                                    CollectionVersionService collectionVersionService,
+                                    ExerciseRollupService exerciseRollupService) {
         this.exerciseTrackPointRepository = exerciseTrackPointRepository;
         this.exerciseRepository = exerciseRepository;
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.collectionVersionService = collectionVersionService;
+        this.exerciseRollupService = exerciseRollupService;
     }
 
     /**
@@ -43,9 +63,10 @@ public class ExerciseTrackPointService {
      * @param userId the ID of the user creating the track point
      * @return the created track point as a DTO, or empty if the user or exercise doesn't exist
      */
+    @Transactional
     public Optional<GetExerciseTrackPointDto> createExerciseTrackPoint(CreateExerciseTrackPointDto createExerciseTrackPointDto, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(createExerciseTrackPointDto.exerciseId());
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
+        Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(createExerciseTrackPointDto.exerciseId(), userId);
+        if (exerciseOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -59,23 +80,93 @@ public class ExerciseTrackPointService {
                 exercise
         );
 
-        ExerciseTrackPoint savedTrackPoint = exerciseTrackPointRepository.save(trackPoint);
+        // flushed, so the rollup of the day is recomputed with the new track point
+        ExerciseTrackPoint savedTrackPoint = exerciseTrackPointRepository.saveAndFlush(trackPoint);
+        exerciseRollupService.refreshDaysOf(List.of(savedTrackPoint));
+        // the track points are listed with their exercises
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return Optional.of(mapToGetExerciseTrackPointDto(savedTrackPoint));
     }
 
+    /**
+     * Create the track points of a whole workout session at once.
+     * All referenced exercises are validated with one query and the track points are inserted in JDBC batches.
+     * Sets that are invalid or reference an exercise the user doesn't own are rejected, the others are created.
+     * @param createExerciseTrackPointDtos the DTOs containing the information of every set
+     * @param userId the ID of the user creating the track points
+     * @return the outcome of every set
+     */
+    @Transactional
+    public BulkExerciseTrackPointResultDto createExerciseTrackPoints(List<CreateExerciseTrackPointDto> createExerciseTrackPointDtos, UUID userId) {
+        Set<UUID> exerciseIds = createExerciseTrackPointDtos.stream()
+                .filter(dto -> dto != null && dto.exerciseId() != null)
+                .map(CreateExerciseTrackPointDto::exerciseId)
+                .collect(Collectors.toSet());
+        Map<UUID, Exercise> exercisesById = exerciseIds.isEmpty() ? Map.of() : exerciseRepository.findAllByIdInAndUserId(exerciseIds, userId).stream()
+                .collect(Collectors.toMap(Exercise::getId, Function.identity()));
+
+        BulkExerciseTrackPointItemResultDto[] results = new BulkExerciseTrackPointItemResultDto[createExerciseTrackPointDtos.size()];
+        List<ExerciseTrackPoint> trackPoints = new ArrayList<>();
+        List<Integer> trackPointIndexes = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < createExerciseTrackPointDtos.size(); i++) {
+            CreateExerciseTrackPointDto dto = createExerciseTrackPointDtos.get(i);
+            String error = null;
+            if (dto == null || dto.date() == null || dto.repsCount() == null || dto.setsCount() == null || dto.exerciseId() == null) {
+                error = "Date, reps count, sets count and exercise ID are required";
+            } else if (dto.repsCount() <= 0 || dto.setsCount() <= 0) {
+                error = "Reps count and sets count must be positive";
+            } else if (dto.date().isAfter(today)) {
+                error = "Date must be in the past or present";
+            } else if (!exercisesById.containsKey(dto.exerciseId())) {
+                error = "Exercise may not exist or not owned by user";
+            }
+            if (error != null) {
+                results[i] = new BulkExerciseTrackPointItemResultDto(i, UpsertStatus.INVALID, null, error);
+                continue;
+            }
+
+            trackPoints.add(new ExerciseTrackPoint(
+                    dto.date(),
+                    dto.repsCount(),
+                    dto.setsCount(),
+                    dto.description(),
+                    dto.weight() != null ? dto.weight() : 0f,
+                    exercisesById.get(dto.exerciseId())
+            ));
+            trackPointIndexes.add(i);
+        }
+
+        List<ExerciseTrackPoint> savedTrackPoints = exerciseTrackPointRepository.saveAll(trackPoints);
+        for (int i = 0; i < savedTrackPoints.size(); i++) {
+            int index = trackPointIndexes.get(i);
+            results[index] = new BulkExerciseTrackPointItemResultDto(index, UpsertStatus.CREATED, savedTrackPoints.get(i).getId(), null);
+        }
+        if (!savedTrackPoints.isEmpty()) {
+            exerciseTrackPointRepository.flush();
+            exerciseRollupService.refreshDaysOf(savedTrackPoints);
+            collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
+        }
+
+        return new BulkExerciseTrackPointResultDto(savedTrackPoints.size(), results.length - savedTrackPoints.size(), List.of(results));
+    }
+
     /**
      * Update an existing exercise track point.
      * @param updateExerciseTrackPointDto the DTO containing updated track point information
      * @param userId the ID of the user updating the track point
      * @return the updated track point as a DTO, or empty if the track point doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetExerciseTrackPointDto> updateExerciseTrackPoint(UpdateExerciseTrackPointDto updateExerciseTrackPointDto, UUID userId) {
-        Optional<ExerciseTrackPoint> trackPointOptional = exerciseTrackPointRepository.findById(updateExerciseTrackPointDto.id());
-        if (trackPointOptional.isEmpty() || !trackPointOptional.get().getExercise().getUser().getId().equals(userId)) {
+        Optional<ExerciseTrackPoint> trackPointOptional = exerciseTrackPointRepository.findByIdAndExerciseUserId(updateExerciseTrackPointDto.id(), userId);
+        if (trackPointOptional.isEmpty()) {
             return Optional.empty();
         }
 
         ExerciseTrackPoint trackPoint = trackPointOptional.get();
+        // the track point may move to another day or exercise, the rollups of both days change
+        ExerciseTrackPointDayDto previousDay = new ExerciseTrackPointDayDto(trackPoint.getExercise().getId(), trackPoint.getDate());
         if (updateExerciseTrackPointDto.date() != null) {
             trackPoint.setDate(updateExerciseTrackPointDto.date());
         }
@@ -94,13 +185,15 @@ public class ExerciseTrackPointService {
 
         // Update exercise if provided
         if (updateExerciseTrackPointDto.exerciseId() != null) {
-            Optional<Exercise> exerciseOptional = exerciseRepository.findById(updateExerciseTrackPointDto.exerciseId());
-            if (exerciseOptional.isPresent() && exerciseOptional.get().getUser().getId().equals(userId)) {
+            Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(updateExerciseTrackPointDto.exerciseId(), userId);
+            if (exerciseOptional.isPresent()) {
                 trackPoint.setExercise(exerciseOptional.get());
             }
         }
 
-        ExerciseTrackPoint updatedTrackPoint = exerciseTrackPointRepository.save(trackPoint);
+        ExerciseTrackPoint updatedTrackPoint = exerciseTrackPointRepository.saveAndFlush(trackPoint);
+        exerciseRollupService.refreshDays(previousDay, new ExerciseTrackPointDayDto(updatedTrackPoint.getExercise().getId(), updatedTrackPoint.getDate()));
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return Optional.of(mapToGetExerciseTrackPointDto(updatedTrackPoint));
     }
 
@@ -111,8 +204,8 @@ public class ExerciseTrackPointService {
      * @return the track point as a DTO, or empty if the track point doesn't exist or doesn't belong to the user
      */
     public Optional<GetExerciseTrackPointDto> getExerciseTrackPointById(UUID trackPointId, UUID userId) {
-        Optional<ExerciseTrackPoint> trackPointOptional = exerciseTrackPointRepository.findById(trackPointId);
-        if (trackPointOptional.isEmpty() || !trackPointOptional.get().getExercise().getUser().getId().equals(userId)) {
+        Optional<ExerciseTrackPoint> trackPointOptional = exerciseTrackPointRepository.findByIdAndExerciseUserId(trackPointId, userId);
+        if (trackPointOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -123,41 +216,30 @@ public class ExerciseTrackPointService {
      * Get all track points for an exercise.
      * @param exerciseId the ID of the exercise
      * @param userId the ID of the user
-     * @return a list of track points as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of track points as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseTrackPointDto> getTrackPointsForExercise(UUID exerciseId, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(exerciseId);
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
-            return List.of();
-        }
-
-        return exerciseTrackPointRepository.findByExercise(exerciseOptional.get()).stream()
-                .map(this::mapToGetExerciseTrackPointDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseTrackPointDto>> getTrackPointsForExercise(UUID exerciseId, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "date", "id")
+                .map(position -> paginationService.toPage(
+                        exerciseTrackPointRepository.findByExerciseIdAndExerciseUserIdOrderByDateDescIdDesc(exerciseId, userId, position, paginationService.limit(size)),
+                        this::mapToGetExerciseTrackPointDto));
     }
 
     /**
      * Get track points for multiple exercises.
      * @param exerciseIds the IDs of the exercises
      * @param userId the ID of the user
-     * @return a list of track points as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of track points as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseTrackPointDto> getTrackPointsForExercises(List<UUID> exerciseIds, UUID userId) {
-        List<Exercise> exercises = exerciseRepository.findAllById(exerciseIds).stream()
-                .filter(exercise -> exercise.getUser().getId().equals(userId))
-                .collect(Collectors.toList());
-
-        if (exercises.isEmpty()) {
-            return List.of();
-        }
-
-        List<UUID> validExerciseIds = exercises.stream()
-                .map(Exercise::getId)
-                .collect(Collectors.toList());
-
-        return exerciseTrackPointRepository.findByExerciseIdIn(validExerciseIds).stream()
-                .map(this::mapToGetExerciseTrackPointDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseTrackPointDto>> getTrackPointsForExercises(List<UUID> exerciseIds, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "date", "id")
+                .map(position -> paginationService.toPage(
+                        exerciseTrackPointRepository.findByExerciseIdInAndExerciseUserIdOrderByDateDescIdDesc(exerciseIds, userId, position, paginationService.limit(size)),
+                        this::mapToGetExerciseTrackPointDto));
     }
 
     /**
@@ -166,17 +248,16 @@ public class ExerciseTrackPointService {
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
      * @param userId the ID of the user
-     * @return a list of track points as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of track points as DTOs, or empty if the cursor is invalid
      */
-    public List<GetExerciseTrackPointDto> getTrackPointsForExerciseBetweenDates(UUID exerciseId, LocalDate startDate, LocalDate endDate, UUID userId) {
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(exerciseId);
-        if (exerciseOptional.isEmpty() || !exerciseOptional.get().getUser().getId().equals(userId)) {
-            return List.of();
-        }
-
-        return exerciseTrackPointRepository.findByExerciseAndDateBetween(exerciseOptional.get(), startDate, endDate).stream()
-                .map(this::mapToGetExerciseTrackPointDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetExerciseTrackPointDto>> getTrackPointsForExerciseBetweenDates(UUID exerciseId, LocalDate startDate, LocalDate endDate, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "date", "id")
+                .map(position -> paginationService.toPage(
+                        exerciseTrackPointRepository.findByExerciseIdAndExerciseUserIdAndDateBetweenOrderByDateDescIdDesc(
+                                exerciseId, userId, startDate, endDate, position, paginationService.limit(size)),
+                        this::mapToGetExerciseTrackPointDto));
     }
 
     /**
@@ -185,13 +266,15 @@ public class ExerciseTrackPointService {
      * @param userId the ID of the user deleting the track point
      * @return true if the track point was deleted, false if the track point doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public boolean deleteExerciseTrackPoint(UUID trackPointId, UUID userId) {
-        Optional<ExerciseTrackPoint> trackPointOptional = exerciseTrackPointRepository.findById(trackPointId);
-        if (trackPointOptional.isEmpty() || !trackPointOptional.get().getExercise().getUser().getId().equals(userId)) {
+        Optional<ExerciseTrackPointDayDto> day = exerciseTrackPointRepository.findDayByIdAndExerciseUserId(trackPointId, userId);
+        if (day.isEmpty() || exerciseTrackPointRepository.deleteByIdAndExerciseUserId(trackPointId, userId) == 0) {
             return false;
         }
+        exerciseRollupService.refreshDays(day.get());
 
-        exerciseTrackPointRepository.delete(trackPointOptional.get());
+        collectionVersionService.bump(VersionedCollection.EXERCISES, userId);
         return true;
     }
 
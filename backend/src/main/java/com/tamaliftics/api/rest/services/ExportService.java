@@ -0,0 +1,81 @@
+package com.tamaliftics.api.rest.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tamaliftics.api.rest.models.ExportRecordType;
+import com.tamaliftics.api.rest.models.dtos.export.ExportRecordDto;
+import com.tamaliftics.api.rest.repositories.ExportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Service for exporting all data of a user as newline-delimited JSON, one record per line.
+ * Every record is written to the output as soon as its row is read, so the memory used doesn't depend on the amount of data.
+ * Referenced records come before the records referencing them, e.g., exercises before their track points.
+ */
+@Service
+public class ExportService {
+
+    private final ExportRepository exportRepository;
+    private final ObjectWriter writer;
+
+    @Autowired
+    public ExportService(ExportRepository exportRepository, ObjectMapper objectMapper) {
+        this.exportRepository = exportRepository;
+        // the generator buffers the output and flushes it when its buffer is full, not after every record
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write all data of a user to an output stream.
+     * All records are read in one read-only transaction, so the export is a consistent snapshot.
+     * @param userId the ID of the user
+     * @param outputStream the stream to write to, it is flushed but not closed
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public void exportUserData(UUID userId, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // records are separated by the newline written after each of them
+            generator.setRootValueSeparator(null);
+
+            exportRepository.streamExerciseCategories(userId, recordWriter(generator, ExportRecordType.EXERCISE_CATEGORY));
+            exportRepository.streamExercises(userId, recordWriter(generator, ExportRecordType.EXERCISE));
+            exportRepository.streamExerciseTrackPoints(userId, recordWriter(generator, ExportRecordType.EXERCISE_TRACK_POINT));
+            exportRepository.streamDailyWeights(userId, recordWriter(generator, ExportRecordType.DAILY_WEIGHT));
+            exportRepository.streamDishes(userId, recordWriter(generator, ExportRecordType.DISH));
+            exportRepository.streamDiets(userId, recordWriter(generator, ExportRecordType.DIET));
+            exportRepository.streamMeals(userId, recordWriter(generator, ExportRecordType.MEAL));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get a consumer that writes every record it receives as one line
+     * @param generator the generator writing to the output stream
+     * @param type the type of the records
+     * @return the consumer
+     */
+    private <T> Consumer<T> recordWriter(JsonGenerator generator, ExportRecordType type) {
+        return data -> {
+            try {
+                writer.writeValue(generator, new ExportRecordDto(type, data));
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                // aborts the running query, e.g., when the client went away
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
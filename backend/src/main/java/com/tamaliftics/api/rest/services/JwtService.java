@@ -1,7 +1,12 @@
 package com.tamaliftics.api.rest.services;
 
+import com.tamaliftics.api.rest.models.Role;
+import com.tamaliftics.api.rest.models.TokenClaims;
 import com.tamaliftics.api.rest.models.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -15,6 +20,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -26,46 +32,58 @@ public class JwtService {
 
     Logger LOG = LoggerFactory.getLogger(JwtService.class);
 
+    private final long expiration;
 
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey; // read the value from application.properties
+    // the key and the parser are immutable and thread-safe, so they are built once at startup
+    private final SecretKey signKey;
+    private final JwtParser parser;
 
-    @Value("${application.security.jwt.expiration}")
-    private long expiration;
-
-    public boolean validateToken(String token) {
+    public JwtService(@Value("${application.security.jwt.secret-key}") String secretKey, // read the value from application.properties
+                      @Value("${application.security.jwt.expiration}") long expiration) {
+        this.expiration = expiration;
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser()
+                .verifyWith(signKey)
+                .build();
+    }
 
+    /**
+     * Verifies the signature and expiration of the token and extracts its claims.
+     * The token is parsed exactly once.
+     * @param token the jwt token
+     * @return the claims of the token, or empty if the token is invalid, expired, or lacks the userId or expiration claim
+     */
+    public Optional<TokenClaims> parseToken(String token) {
         try {
-            String userIdAsString = (String) Jwts.parser()
-                    .verifyWith(getSignKey())
-                    .build()
-                    .parseSignedClaims(token).getPayload().get("userId");
-            UUID userId = UUID.fromString(userIdAsString);
-
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            String userIdClaim = claims.get("userId", String.class);
+            if (userIdClaim == null || claims.getExpiration() == null) {
+                LOG.debug("Received a token without a userId or expiration claim");
+                return Optional.empty();
+            }
+            UUID userId = UUID.fromString(userIdClaim);
+            // tokens issued before the role claim was added belong to regular users
+            String role = claims.get("role", String.class);
+            LOG.debug("Extracted userId for authentication: {}", userId);
+            return Optional.of(new TokenClaims(
+                    userId,
+                    claims.getSubject(),
+                    role != null ? Role.valueOf(role) : Role.USER,
+                    claims.getExpiration().toInstant()));
         } catch (ExpiredJwtException e) {
-            return false; // TODO: add custom return value
-        } catch (Exception e) {
-            return false; // TODO: add custom return value
+            LOG.debug("Received an expired token");
+            return Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            LOG.debug("Received an invalid token: {}", e.getMessage());
+            return Optional.empty();
         }
-        return true; // TODO: add custom return value
     }
 
-    public UUID extractUserId(String token) {
-       String userIdA = (String) Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token).getPayload().get("userId");
-       LOG.info("Extracted userId for authentication: {}", userIdA);
-
-        return UUID.fromString(userIdA);
-    }
-
-
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
+        claims.put("role", (user.getRole() != null ? user.getRole() : Role.USER).name());
 //        claims.put("email", user.getEmail());
-//        claims.put("roles", user.getAuthorities());
         return createToken(claims, user.getUsername());
     }
 
@@ -81,12 +99,7 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256) // sign it with the secret key
+                .signWith(signKey, SignatureAlgorithm.HS256) // sign it with the secret key
                 .compact();
     }
-
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
@@ -2,7 +2,10 @@ package com.tamaliftics.api.rest.services;
 
 import com.tamaliftics.api.rest.models.Dish;
 import com.tamaliftics.api.rest.models.Meal;
+import com.tamaliftics.api.rest.models.NutritionTotals;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
 import com.tamaliftics.api.rest.models.dtos.meal.CreateMealDto;
 import com.tamaliftics.api.rest.models.dtos.meal.GetMealDto;
@@ -10,8 +13,11 @@ import com.tamaliftics.api.rest.models.dtos.meal.UpdateMealDto;
 import com.tamaliftics.api.rest.repositories.DishRepository;
 import com.tamaliftics.api.rest.repositories.MealRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,14 +35,22 @@ public class MealService {
     private final DishRepository dishRepository;
     private final UserRepository userRepository;
     private final DishService dishService;
+    private final PaginationService paginationService;
+    private final NutritionTotalsService nutritionTotalsService;
+    private final CollectionVersionService collectionVersionService;
 
     @Autowired
     public MealService(MealRepository mealRepository, DishRepository dishRepository, 
-                      UserRepository userRepository, DishService dishService) {
+                      UserRepository userRepository, DishService dishService, PaginationService paginationService,
+                      NutritionTotalsService nutritionTotalsService,
+                      CollectionVersionService collectionVersionService) {
         this.mealRepository = mealRepository;
         this.dishRepository = dishRepository;
         this.userRepository = userRepository;
         this.dishService = dishService;
+        this.paginationService = paginationService;
+        this.nutritionTotalsService = nutritionTotalsService;
+        this.collectionVersionService = collectionVersionService;
     }
 
     /**
@@ -45,6 +59,7 @@ public class MealService {
      * @param userId the ID of the user creating the meal
      * @return the created meal as a DTO, or empty if the user doesn't exist
      */
+    @Transactional
     public Optional<GetMealDto> createMeal(CreateMealDto createMealDto, UUID userId) {
         Optional<User> userOptional = userRepository.findById(userId);
         if (userOptional.isEmpty()) {
@@ -56,9 +71,7 @@ public class MealService {
 
         // Add dishes to the meal if dish IDs are provided
         if (createMealDto.dishIds() != null && !createMealDto.dishIds().isEmpty()) {
-            List<Dish> dishes = dishRepository.findAllById(createMealDto.dishIds()).stream()
-                    .filter(dish -> dish.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Dish> dishes = dishRepository.findAllByIdInAndUserId(createMealDto.dishIds(), userId);
             meal.setDishes(dishes);
         }
 
@@ -72,9 +85,10 @@ public class MealService {
      * @param userId the ID of the user updating the meal
      * @return the updated meal as a DTO, or empty if the meal doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetMealDto> updateMeal(UpdateMealDto updateMealDto, UUID userId) {
-        Optional<Meal> mealOptional = mealRepository.findById(updateMealDto.id());
-        if (mealOptional.isEmpty() || !mealOptional.get().getUser().getId().equals(userId)) {
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(updateMealDto.id(), userId);
+        if (mealOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -85,13 +99,15 @@ public class MealService {
 
         // Update dishes if dish IDs are provided
         if (updateMealDto.dishIds() != null) {
-            List<Dish> dishes = dishRepository.findAllById(updateMealDto.dishIds()).stream()
-                    .filter(dish -> dish.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Dish> dishes = dishRepository.findAllByIdInAndUserId(updateMealDto.dishIds(), userId);
+            NutritionTotals previousTotals = meal.getTotals();
             meal.setDishes(dishes);
+            nutritionTotalsService.updateDietOfMeal(meal, previousTotals);
         }
 
         Meal updatedMeal = mealRepository.save(meal);
+        // the meals are listed with the diets they belong to
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetMealDto(updatedMeal));
     }
 
@@ -102,8 +118,8 @@ public class MealService {
      * @return the meal as a DTO, or empty if the meal doesn't exist or doesn't belong to the user
      */
     public Optional<GetMealDto> getMealById(UUID mealId, UUID userId) {
-        Optional<Meal> mealOptional = mealRepository.findById(mealId);
-        if (mealOptional.isEmpty() || !mealOptional.get().getUser().getId().equals(userId)) {
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(mealId, userId);
+        if (mealOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -113,17 +129,19 @@ public class MealService {
     /**
      * Get all meals for a user.
      * @param userId the ID of the user
-     * @return a list of meals as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of meals as DTOs, or empty if the cursor is invalid
      */
-    public List<GetMealDto> getAllMealsForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return mealRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetMealDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDto<GetMealDto>> getAllMealsForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> {
+                    Window<Meal> meals = mealRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size));
+                    // initialize the dishes of the whole page in batches, or from the second-level cache
+                    meals.forEach(meal -> Hibernate.initialize(meal.getDishes()));
+                    return paginationService.toPage(meals, this::mapToGetMealDto);
+                });
     }
 
     /**
@@ -132,13 +150,16 @@ public class MealService {
      * @param userId the ID of the user deleting the meal
      * @return true if the meal was deleted, false if the meal doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public boolean deleteMeal(UUID mealId, UUID userId) {
-        Optional<Meal> mealOptional = mealRepository.findById(mealId);
-        if (mealOptional.isEmpty() || !mealOptional.get().getUser().getId().equals(userId)) {
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(mealId, userId);
+        if (mealOptional.isEmpty()) {
             return false;
         }
 
+        nutritionTotalsService.removeMealFromDiet(mealOptional.get());
         mealRepository.delete(mealOptional.get());
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return true;
     }
 
@@ -149,21 +170,23 @@ public class MealService {
      * @param userId the ID of the user
      * @return the updated meal as a DTO, or empty if the meal or dish doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetMealDto> addDishToMeal(UUID mealId, UUID dishId, UUID userId) {
-        Optional<Meal> mealOptional = mealRepository.findById(mealId);
-        Optional<Dish> dishOptional = dishRepository.findById(dishId);
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(mealId, userId);
+        Optional<Dish> dishOptional = dishRepository.findByIdAndUserId(dishId, userId);
 
-        if (mealOptional.isEmpty() || dishOptional.isEmpty() || 
-            !mealOptional.get().getUser().getId().equals(userId) || 
-            !dishOptional.get().getUser().getId().equals(userId)) {
+        if (mealOptional.isEmpty() || dishOptional.isEmpty()) {
             return Optional.empty();
         }
 
         Meal meal = mealOptional.get();
         Dish dish = dishOptional.get();
+        NutritionTotals previousTotals = meal.getTotals();
         meal.addDish(dish);
+        nutritionTotalsService.updateDietOfMeal(meal, previousTotals);
 
         Meal updatedMeal = mealRepository.save(meal);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetMealDto(updatedMeal));
     }
 
@@ -174,16 +197,23 @@ public class MealService {
      * @param userId the ID of the user
      * @return the updated meal as a DTO, or empty if the meal doesn't exist or doesn't belong to the user
      */
+    @Transactional
     public Optional<GetMealDto> removeDishFromMeal(UUID mealId, UUID dishId, UUID userId) {
-        Optional<Meal> mealOptional = mealRepository.findById(mealId);
-        if (mealOptional.isEmpty() || !mealOptional.get().getUser().getId().equals(userId)) {
+        Optional<Meal> mealOptional = mealRepository.findByIdAndUserId(mealId, userId);
+        if (mealOptional.isEmpty()) {
             return Optional.empty();
         }
 
         Meal meal = mealOptional.get();
-        meal.getDishes().removeIf(dish -> dish.getId().equals(dishId));
+        NutritionTotals previousTotals = meal.getTotals();
+        meal.getDishes().stream()
+                .filter(dish -> dish.getId().equals(dishId))
+                .toList()
+                .forEach(meal::removeDish);
+        nutritionTotalsService.updateDietOfMeal(meal, previousTotals);
 
         Meal updatedMeal = mealRepository.save(meal);
+        collectionVersionService.bump(VersionedCollection.DIETS, userId);
         return Optional.of(mapToGetMealDto(updatedMeal));
     }
 
@@ -192,7 +222,7 @@ public class MealService {
      * @param meal the meal entity
      * @return the meal DTO
      */
-    private GetMealDto mapToGetMealDto(Meal meal) {
+    GetMealDto mapToGetMealDto(Meal meal) {
         List<GetDishDto> dishDtos = meal.getDishes().stream()
                 .map(dish -> new GetDishDto(
                         dish.getId(),
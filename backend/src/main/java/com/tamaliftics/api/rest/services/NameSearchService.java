@@ -0,0 +1,293 @@
+package com.tamaliftics.api.rest.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tamaliftics.api.rest.models.SearchableEntity;
+import com.tamaliftics.api.rest.models.dtos.search.SearchableNameDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory trigram index of the names of the dishes, diets, exercises and exercise categories of each user.
+ * Answers substring searches without a LIKE '%name%' query, which can't use an index.
+ * The index of a user is built in the background the first time the user searches, until then searches fall back to the database,
+ * unless they continue results that came from the index.
+ * Indexes are evicted when they weren't used for the ttl, or when all indexes together hold more than the max number of names.
+ * Users with more names than the per-user limit are never indexed and always searched in the database.
+ * Changes of names are applied to the indexes once their transaction committed.
+ * The indexes live in memory, so they assume that all writes go through this instance.
+ */
+@Service
+public class NameSearchService {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final AsyncCache<IndexKey, NameIndex> indexes;
+    private final int maxNamesPerUser;
+
+    @Autowired
+    public NameSearchService(@Value("${application.search.index.max-names:200000}") long maxNames,
+                             @Value("${application.search.index.max-names-per-user:5000}") int maxNamesPerUser,
+                             @Value("${application.search.index.ttl:PT30M}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.maxNamesPerUser = maxNamesPerUser;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxNames)
+                .weigher((IndexKey key, NameIndex index) -> index.size() + 1)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes.synchronous(), "name-search-index");
+    }
+
+    /**
+     * Searches the names of the entities of a user.
+     * Exact matches come first, then names starting with the query, then names with a word starting with the query, then any other match.
+     * @param type the type of the entities
+     * @param userId the ID of the user
+     * @param query the substring to search for, case-insensitive
+     * @param waitForIndex whether to wait for the index of the user to be built, instead of leaving the search to the database meanwhile
+     * @param loader loads the names of all entities of the type of the user, to build the index from
+     * @return the IDs of the matching entities, best match first, or empty if the names of the user aren't indexed
+     */
+    public Optional<List<UUID>> search(SearchableEntity type, UUID userId, String query, boolean waitForIndex,
+                                       Supplier<List<SearchableNameDto>> loader) {
+        IndexKey key = new IndexKey(type, userId);
+        CompletableFuture<NameIndex> index = indexes.getIfPresent(key);
+        if (index == null) {
+            index = indexes.get(key, (indexKey, executor) -> CompletableFuture.supplyAsync(() -> build(loader.get()), executor));
+        }
+        if (waitForIndex) {
+            return index.join().search(normalize(query));
+        }
+        if (!index.isDone() || index.isCompletedExceptionally()) {
+            // this search is answered by the database while the index is built
+            return Optional.empty();
+        }
+        return index.join().search(normalize(query));
+    }
+
+    /**
+     * Adds the name of a created entity to the index, or replaces the name of an updated one.
+     * Inside a transaction the index is changed once it committed, so a rolled back name never gets into it.
+     * @param type the type of the entity
+     * @param userId the ID of the user the entity belongs to
+     * @param id the ID of the entity
+     * @param name the name of the entity
+     */
+    public void put(SearchableEntity type, UUID userId, UUID id, String name) {
+        IndexKey key = new IndexKey(type, userId);
+        AfterCommit.run(() -> readyIndex(key).ifPresent(index -> {
+            if (!index.put(id, normalize(name))) {
+                // the user outgrew the index, the next search rebuilds it
+                indexes.synchronous().invalidate(key);
+                return;
+            }
+            // re-weigh the index
+            indexes.put(key, CompletableFuture.completedFuture(index));
+        }));
+    }
+
+    /**
+     * Removes the name of a deleted entity from the index.
+     * Inside a transaction the index is changed once it committed.
+     * @param type the type of the entity
+     * @param userId the ID of the user the entity belongs to
+     * @param id the ID of the entity
+     */
+    public void remove(SearchableEntity type, UUID userId, UUID id) {
+        IndexKey key = new IndexKey(type, userId);
+        AfterCommit.run(() -> readyIndex(key).ifPresent(index -> {
+            index.remove(id);
+            indexes.put(key, CompletableFuture.completedFuture(index));
+        }));
+    }
+
+    /**
+     * Gets an index that can be changed
+     * An index that is still being built may have read the names before the change committed, so it is dropped instead.
+     */
+    private Optional<NameIndex> readyIndex(IndexKey key) {
+        CompletableFuture<NameIndex> index = indexes.getIfPresent(key);
+        if (index == null) {
+            return Optional.empty();
+        }
+        if (!index.isDone() || index.isCompletedExceptionally()) {
+            indexes.synchronous().invalidate(key);
+            return Optional.empty();
+        }
+        NameIndex nameIndex = index.join();
+        return nameIndex.isIndexed() ? Optional.of(nameIndex) : Optional.empty();
+    }
+
+    private NameIndex build(List<SearchableNameDto> names) {
+        if (names.size() > maxNamesPerUser) {
+            return NameIndex.NOT_INDEXED;
+        }
+        NameIndex index = new NameIndex(maxNamesPerUser);
+        names.forEach(name -> index.put(name.id(), normalize(name.name())));
+        return index;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexKey(SearchableEntity type, UUID userId) {
+    }
+
+    private record Match(UUID id, String name, int rank) {
+    }
+
+    /**
+     * The names of the entities of one type of one user, and for each trigram the entities whose name contains it
+     */
+    private static class NameIndex {
+
+        // marks users with too many names to index
+        static final NameIndex NOT_INDEXED = new NameIndex(0);
+
+        private final int maxNames;
+        private final Map<UUID, String> names = new HashMap<>();
+        private final Map<String, Set<UUID>> grams = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        NameIndex(int maxNames) {
+            this.maxNames = maxNames;
+        }
+
+        boolean isIndexed() {
+            return this != NOT_INDEXED;
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return names.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        Optional<List<UUID>> search(String query) {
+            if (!isIndexed()) {
+                return Optional.empty();
+            }
+            lock.readLock().lock();
+            try {
+                // every name containing the query contains all trigrams of the query, the rarest one has the fewest candidates
+                Collection<UUID> candidates = names.keySet();
+                for (String gram : gramsOf(query)) {
+                    Set<UUID> ids = grams.getOrDefault(gram, Set.of());
+                    if (ids.size() < candidates.size()) {
+                        candidates = ids;
+                    }
+                }
+                return Optional.of(candidates.stream()
+                        .map(id -> new Match(id, names.get(id), rank(names.get(id), query)))
+                        .filter(match -> match.rank() >= 0)
+                        .sorted(Comparator.comparingInt(Match::rank)
+                                .thenComparingInt(match -> match.name().length())
+                                .thenComparing(Match::name)
+                                .thenComparing(Match::id))
+                        .map(Match::id)
+                        .toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @return false if the name didn't fit into the index
+         */
+        boolean put(UUID id, String name) {
+            lock.writeLock().lock();
+            try {
+                if (!names.containsKey(id) && names.size() >= maxNames) {
+                    return false;
+                }
+                removeGrams(id);
+                names.put(id, name);
+                for (String gram : gramsOf(name)) {
+                    grams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+                }
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(UUID id) {
+            lock.writeLock().lock();
+            try {
+                removeGrams(id);
+                names.remove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeGrams(UUID id) {
+            String name = names.get(id);
+            if (name == null) {
+                return;
+            }
+            for (String gram : gramsOf(name)) {
+                Set<UUID> ids = grams.get(gram);
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+
+        private static Set<String> gramsOf(String text) {
+            Set<String> textGrams = new HashSet<>();
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                textGrams.add(text.substring(i, i + GRAM_LENGTH));
+            }
+            return textGrams;
+        }
+
+        /**
+         * @return 0 for an exact match, 1 for a prefix, 2 for the start of a word, 3 for any other match, -1 if the name doesn't contain the query
+         */
+        private static int rank(String name, String query) {
+            if (name.equals(query)) {
+                return 0;
+            }
+            if (name.startsWith(query)) {
+                return 1;
+            }
+            int index = name.indexOf(query);
+            if (index < 0) {
+                return -1;
+            }
+            for (; index >= 0; index = name.indexOf(query, index + 1)) {
+                if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                    return 2;
+                }
+            }
+            return 3;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.models.Dish;
+import com.tamaliftics.api.rest.models.Meal;
+import com.tamaliftics.api.rest.models.NutritionTotals;
+import com.tamaliftics.api.rest.models.VersionedCollection;
+import com.tamaliftics.api.rest.repositories.DietRepository;
+import com.tamaliftics.api.rest.repositories.NutritionTotalsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Service for keeping the stored nutrition totals of meals and diets up to date.
+ * Meals maintain their own totals when their dishes change, this service carries the changes over to the diets,
+ * and periodically repairs totals that drifted, e.g., because of concurrent updates.
+ */
+@Service
+public class NutritionTotalsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NutritionTotalsService.class);
+
+    // the meals or diets of a batch are compared with their sums in one query
+    private static final int ROWS_PER_BATCH = 500;
+
+    private final DietRepository dietRepository;
+    private final NutritionTotalsRepository nutritionTotalsRepository;
+    private final CollectionVersionService collectionVersionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public NutritionTotalsService(DietRepository dietRepository, NutritionTotalsRepository nutritionTotalsRepository,
+                                  CollectionVersionService collectionVersionService, TransactionTemplate transactionTemplate) {
+        this.dietRepository = dietRepository;
+        this.nutritionTotalsRepository = nutritionTotalsRepository;
+        this.collectionVersionService = collectionVersionService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Apply the change of the totals of a meal to the diet it belongs to.
+     * Must be called within the transaction that changed the meal.
+     * @param meal the changed meal
+     * @param previousTotals the totals of the meal before the change
+     */
+    @Transactional
+    public void updateDietOfMeal(Meal meal, NutritionTotals previousTotals) {
+        if (meal.getTotals().equals(previousTotals)) {
+            return;
+        }
+
+        dietRepository.findByMealsId(meal.getId())
+                .ifPresent(diet -> diet.applyTotalsDelta(meal.getTotals().minus(previousTotals)));
+    }
+
+    /**
+     * Remove a meal that is about to be deleted from the diet it belongs to.
+     * Must be called within the transaction that deletes the meal.
+     * @param meal the meal
+     */
+    @Transactional
+    public void removeMealFromDiet(Meal meal) {
+        dietRepository.findByMealsId(meal.getId())
+                .ifPresent(diet -> diet.removeMeal(meal));
+    }
+
+    /**
+     * Propagate a change of the macros of a dish to the totals of every meal containing it, and of their diets.
+     * Runs a fixed number of statements however many meals share the dish, without loading them.
+     * Must be called within the transaction that changed the macros of the dish.
+     * @param dish the dish whose macros changed
+     * @param previousMacros the macros of the dish before the change
+     */
+    @Transactional
+    public void updateMealsOfDish(Dish dish, NutritionTotals previousMacros) {
+        NutritionTotals macros = NutritionTotals.of(dish);
+        if (macros.equals(previousMacros)) {
+            return;
+        }
+
+        int updated = nutritionTotalsRepository.applyDishMacrosDelta(dish.getId(), macros.minus(previousMacros));
+        LOG.debug("Propagated the new macros of dish {} to {} meals and diets", dish.getId(), updated);
+    }
+
+    /**
+     * Repair the stored totals of meals and diets that differ from the totals of their dishes.
+     * The meals, then the diets, are compared in batches by plain reads, and only the drifted ones of a batch are rewritten,
+     * each batch in its own short transaction, so meal and dish writes are never blocked for the whole run.
+     * Runs nightly by default, configurable with application.nutrition.totals-repair-cron.
+     * @return the number of repaired meals and diets
+     */
+    @Scheduled(cron = "${application.nutrition.totals-repair-cron:0 30 3 * * *}")
+    public int repairTotals() {
+        int repairedMeals = repairInBatches(nutritionTotalsRepository::findMealIdsAfter,
+                nutritionTotalsRepository::findDriftedMeals, nutritionTotalsRepository::repairMealTotals);
+        // the diets are summed up from the stored totals of their meals, so they are compared once the meals are repaired
+        int repairedDiets = repairInBatches(nutritionTotalsRepository::findDietIdsAfter,
+                nutritionTotalsRepository::findDriftedDiets, nutritionTotalsRepository::repairDietTotals);
+        if (repairedMeals > 0 || repairedDiets > 0) {
+            LOG.warn("Repaired the nutrition totals of {} meals and {} diets", repairedMeals, repairedDiets);
+            collectionVersionService.bumpAll(VersionedCollection.DIETS);
+        }
+        return repairedMeals + repairedDiets;
+    }
+
+    private int repairInBatches(BiFunction<UUID, Integer, List<UUID>> findIdsAfter,
+                                Function<List<UUID>, List<UUID>> findDrifted,
+                                ToIntFunction<List<UUID>> repair) {
+        int repaired = 0;
+        List<UUID> ids = findIdsAfter.apply(null, ROWS_PER_BATCH);
+        while (!ids.isEmpty()) {
+            List<UUID> drifted = findDrifted.apply(ids);
+            if (!drifted.isEmpty()) {
+                repaired += transactionTemplate.execute(status -> repair.applyAsInt(drifted));
+            }
+            ids = findIdsAfter.apply(ids.getLast(), ROWS_PER_BATCH);
+        }
+        return repaired;
+    }
+}
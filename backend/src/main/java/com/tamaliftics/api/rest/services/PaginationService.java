@@ -0,0 +1,192 @@
+package com.tamaliftics.api.rest.services;
+
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the cursor pagination of list endpoints.
+ * Pages are read with keyset queries, so reading a deep page costs the same as reading the first one.
+ * A cursor is the url-safe Base64 encoding of the sort keys of the last item of the previous page, e.g., "date=2024-05-01;id=...".
+ * The key "id" holds a UUID, every other key holds a date.
+ * Ranked lists, e.g., search results, have no sort keys and use an offset cursor instead, "offset=42".
+ */
+@Service
+public class PaginationService {
+
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public PaginationService(@Value("${application.pagination.default-page-size:50}") int defaultPageSize,
+                             @Value("${application.pagination.max-page-size:200}") int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+        this.defaultPageSize = Math.min(defaultPageSize, maxPageSize);
+    }
+
+    /**
+     * Gets the limit of a page
+     * @param size the requested page size, or null for the default page size
+     * @return the requested page size, capped to the max page size
+     */
+    public Limit limit(Integer size) {
+        if (size == null) {
+            return Limit.of(defaultPageSize);
+        }
+        return Limit.of(Math.max(1, Math.min(size, maxPageSize)));
+    }
+
+    /**
+     * Decodes a cursor into the position to continue scrolling from
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param keys the sort keys the cursor must contain
+     * @return the position, or empty if the cursor is malformed or doesn't match the sort keys
+     */
+    public Optional<ScrollPosition> decodeCursor(String cursor, String... keys) {
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.of(ScrollPosition.keyset());
+        }
+        try {
+            Map<String, Object> position = new LinkedHashMap<>();
+            for (String entry : new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(";")) {
+                String[] keyAndValue = entry.split("=", 2);
+                if (keyAndValue.length != 2) {
+                    return Optional.empty();
+                }
+                String key = keyAndValue[0];
+                position.put(key, "id".equals(key) ? UUID.fromString(keyAndValue[1]) : LocalDate.parse(keyAndValue[1]));
+            }
+            if (!position.keySet().equals(Set.of(keys))) {
+                return Optional.empty();
+            }
+            return Optional.of(ScrollPosition.forward(position));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decodes an offset cursor into the position to continue from
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @return the position, or empty if the cursor is malformed or isn't an offset cursor
+     */
+    public Optional<OffsetScrollPosition> decodeOffsetCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.of(ScrollPosition.offset());
+        }
+        try {
+            String[] keyAndValue = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("=", 2);
+            if (keyAndValue.length != 2 || !"offset".equals(keyAndValue[0])) {
+                return Optional.empty();
+            }
+            long offset = Long.parseLong(keyAndValue[1]);
+            return offset < 0 ? Optional.empty() : Optional.of(ScrollPosition.offset(offset));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Builds a page of search results, which come either from the name index of the user or from the database.
+     * Ranked results of the index have offset cursors, results of the database are ordered by ID and have keyset cursors,
+     * so a search keeps paging in the source its first page came from.
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the requested page size, or null for the default page size
+     * @param index searches the index, waiting for it to be built if the argument is true; empty if the user has no index
+     * @param loader loads the DTOs of the IDs of the page, in the same order
+     * @param database searches the database from a position
+     * @return the page, or empty if the cursor is malformed or continues index results the user can't have an index for anymore
+     */
+    public <T> Optional<CursorPageDto<T>> toSearchPage(String cursor, Integer size,
+                                                       Function<Boolean, Optional<List<UUID>>> index,
+                                                       Function<List<UUID>, List<T>> loader,
+                                                       BiFunction<ScrollPosition, Limit, CursorPageDto<T>> database) {
+        Limit limit = limit(size);
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.of(index.apply(false)
+                    .map(ids -> toPage(ids, ScrollPosition.offset(), limit, loader))
+                    .orElseGet(() -> database.apply(ScrollPosition.keyset(), limit)));
+        }
+        Optional<OffsetScrollPosition> offset = decodeOffsetCursor(cursor);
+        if (offset.isPresent()) {
+            // the database orders the matches differently, so the next pages of index results wait for the index
+            return index.apply(true).map(ids -> toPage(ids, offset.get(), limit, loader));
+        }
+        return decodeCursor(cursor, "id").map(position -> database.apply(position, limit));
+    }
+
+    /**
+     * Builds a page of a ranked list whose items are only loaded for the page
+     * @param ranked the keys of all items of the list, in order
+     * @param position the position to continue from
+     * @param limit the size of the page
+     * @param loader loads the DTOs of the keys of the page, in the same order
+     * @return the page, with a cursor to the next page if there is one
+     */
+    public <K, T> CursorPageDto<T> toPage(List<K> ranked, OffsetScrollPosition position, Limit limit, Function<List<K>, List<T>> loader) {
+        // a position points to the last item of the previous page
+        int from = position.isInitial() ? 0 : (int) Math.min(position.getOffset() + 1, ranked.size());
+        int to = Math.min(from + limit.max(), ranked.size());
+        List<T> items = loader.apply(ranked.subList(from, to));
+        if (to == ranked.size()) {
+            return new CursorPageDto<>(items, null);
+        }
+        return new CursorPageDto<>(items, encodeCursor("offset=" + (to - 1)));
+    }
+
+    /**
+     * Maps a window of entities to a page
+     * @param window the window returned by a keyset query
+     * @param mapper maps an entity to its DTO
+     * @return the page, with a cursor to the next page if there is one
+     */
+    public <E, T> CursorPageDto<T> toPage(Window<E> window, Function<E, T> mapper) {
+        return toPage(window, window.getContent().stream()
+                .map(mapper)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Builds a page from the already mapped items of a window
+     * @param window the window returned by a keyset or offset query
+     * @param items the DTOs of the entities of the window, in the same order
+     * @return the page, with a cursor to the next page if there is one
+     */
+    public <T> CursorPageDto<T> toPage(Window<?> window, List<T> items) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return new CursorPageDto<>(items, null);
+        }
+        ScrollPosition last = window.positionAt(window.size() - 1);
+        if (last instanceof OffsetScrollPosition offset) {
+            return new CursorPageDto<>(items, encodeCursor("offset=" + offset.getOffset()));
+        }
+        String keys = ((KeysetScrollPosition) last).getKeys().entrySet().stream()
+                .map(key -> key.getKey() + "=" + key.getValue())
+                .collect(Collectors.joining(";"));
+        return new CursorPageDto<>(items, encodeCursor(keys));
+    }
+
+    private static String encodeCursor(String keys) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+    }
+}
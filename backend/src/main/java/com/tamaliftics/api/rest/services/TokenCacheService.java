@@ -0,0 +1,115 @@
+package com.tamaliftics.api.rest.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tamaliftics.api.rest.models.AuthenticatedUser;
+import com.tamaliftics.api.rest.models.TokenClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded cache of bearer tokens whose signature was already verified and whose user is known to exist.
+ * Tokens are keyed by their SHA-256 digest, so the raw tokens are never kept in memory.
+ * An entry is evicted when the cache is full, when its ttl elapses or when the token expires, whichever comes first.
+ */
+@Service
+public class TokenCacheService {
+
+    private final Cache<String, CachedToken> cache;
+    private final Duration ttl;
+
+    @Autowired
+    public TokenCacheService(@Value("${application.security.jwt.cache.max-size:10000}") long maxSize,
+                             @Value("${application.security.jwt.cache.ttl:PT10M}") Duration ttl,
+                             MeterRegistry meterRegistry) {
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        // exposes hit, miss and eviction counters as cache.* metrics
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt-tokens");
+    }
+
+    /**
+     * Gets the principal that was resolved for a token
+     * @param token the raw bearer token
+     * @return the principal if the token is cached and not expired, empty otherwise
+     */
+    public Optional<AuthenticatedUser> get(String token) {
+        CachedToken cachedToken = cache.getIfPresent(digest(token));
+        if (cachedToken == null || !cachedToken.expiresAt().isAfter(Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(cachedToken.principal());
+    }
+
+    /**
+     * Caches the principal that was resolved for a verified token
+     * @param token the raw bearer token
+     * @param claims the verified claims of the token
+     * @param principal the principal the token belongs to
+     */
+    public void put(String token, TokenClaims claims, AuthenticatedUser principal) {
+        cache.put(digest(token), new CachedToken(principal, claims.expiresAt()));
+    }
+
+    /**
+     * Removes every cached token of a user, e.g., after the user was deleted
+     * @param userId the id of the user
+     */
+    public void invalidateUser(UUID userId) {
+        cache.asMap().values().removeIf(cachedToken -> userId.equals(cachedToken.principal().id()));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedToken(AuthenticatedUser principal, Instant expiresAt) {
+    }
+
+    /**
+     * Expires an entry after the ttl, but never after the expiration of the token itself
+     */
+    private class TokenExpiry implements Expiry<String, CachedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedToken value, long currentTime) {
+            Duration untilTokenExpires = Duration.between(Instant.now(), value.expiresAt());
+            if (untilTokenExpires.isNegative()) {
+                return 0;
+            }
+            return Math.min(ttl.toNanos(), untilTokenExpires.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.tamaliftics.api.rest.services;
 
+import com.tamaliftics.api.rest.configuration.LoginExecutor;
 import com.tamaliftics.api.rest.models.Role;
 import com.tamaliftics.api.rest.models.User;
 import com.tamaliftics.api.rest.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,6 +17,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Primary
 @Service
@@ -22,11 +25,18 @@ public class UserService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenCacheService tokenCacheService;
+    private final LoginExecutor loginExecutor;
 
     @Autowired
-    public UserService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository,
+                       @Lazy PasswordEncoder passwordEncoder,
+                       TokenCacheService tokenCacheService,
+                       LoginExecutor loginExecutor) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenCacheService = tokenCacheService;
+        this.loginExecutor = loginExecutor;
     }
 
     /**
@@ -67,6 +77,17 @@ public class UserService implements UserDetailsService {
         return user.isPresent() && passwordEncoder.matches(password, user.get().getPassword()) ? user : Optional.empty();
     }
 
+    /**
+     * Authenticates a user by username on the bounded login executor, so the password hash is not computed on the calling thread
+     * @param username
+     * @param password
+     * @return a future completing with the user if authentication is successful, empty otherwise
+     * @throws TaskRejectedException if the login executor is saturated
+     */
+    public CompletableFuture<Optional<User>> authenticateUserByUsernameAsync(String username, String password) {
+        return loginExecutor.submit(() -> authenticateUserByUsername(username, password));
+    }
+
     /**
      * Authenticates a user by checking if the email exists and the password matches
      * @param email
@@ -138,11 +159,12 @@ public class UserService implements UserDetailsService {
     }
 
     /**
-     * Deletes a user from the database
+     * Deletes a user from the database and invalidates every cached token of the user
      * @param user
      */
     public void deleteUser(User user) {
         userRepository.delete(user);
+        tokenCacheService.invalidateUser(user.getId());
     }
 
     /**
@@ -1,33 +1,61 @@
 package com.tamaliftics.api.rest.services;
 
+import com.tamaliftics.api.rest.models.DailyWeight;
 import com.tamaliftics.api.rest.models.User;
+import com.tamaliftics.api.rest.models.VersionedCollection;
 import com.tamaliftics.api.rest.models.WeeklyWeight;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.weight.GetWeeklyWeightDto;
+import com.tamaliftics.api.rest.repositories.DailyWeightRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
 import com.tamaliftics.api.rest.repositories.WeeklyWeightRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Service for handling weekly weight-related operations.
- * Note: Weekly weights are automatically created and updated by the DailyWeightService.
+ * Note: Weekly weights are automatically created and updated by the DailyWeightService,
+ * which applies every change of a daily weight as a delta to the running sum and count of its week.
  */
 @Service
 public class WeeklyWeightService {
 
+    // the daily weights of a batch of weeks are looked up by their 7 days each
+    private static final int WEEKS_PER_QUERY = 100;
+    private static final int USERS_PER_BATCH = 100;
+
     private final WeeklyWeightRepository weeklyWeightRepository;
+    private final DailyWeightRepository dailyWeightRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final CollectionVersionService collectionVersionService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public WeeklyWeightService(WeeklyWeightRepository weeklyWeightRepository, UserRepository userRepository) {
+    public WeeklyWeightService(WeeklyWeightRepository weeklyWeightRepository, DailyWeightRepository dailyWeightRepository, UserRepository userRepository, PaginationService paginationService,
+                               CollectionVersionService collectionVersionService, TransactionTemplate transactionTemplate) {
         this.weeklyWeightRepository = weeklyWeightRepository;
+        this.dailyWeightRepository = dailyWeightRepository;
         this.userRepository = userRepository;
+        this.paginationService = paginationService;
+        this.collectionVersionService = collectionVersionService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -37,8 +65,8 @@ public class WeeklyWeightService {
      * @return the weekly weight record as a DTO, or empty if the record doesn't exist or doesn't belong to the user
      */
     public Optional<GetWeeklyWeightDto> getWeeklyWeightById(UUID weeklyWeightId, UUID userId) {
-        Optional<WeeklyWeight> weeklyWeightOptional = weeklyWeightRepository.findById(weeklyWeightId);
-        if (weeklyWeightOptional.isEmpty() || !weeklyWeightOptional.get().getUser().getId().equals(userId)) {
+        Optional<WeeklyWeight> weeklyWeightOptional = weeklyWeightRepository.findByIdAndUserId(weeklyWeightId, userId);
+        if (weeklyWeightOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -48,34 +76,30 @@ public class WeeklyWeightService {
     /**
      * Get all weekly weight records for a user.
      * @param userId the ID of the user
-     * @return a list of weekly weight records as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of weekly weight records as DTOs, or empty if the cursor is invalid
      */
-    public List<GetWeeklyWeightDto> getAllWeeklyWeightsForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return weeklyWeightRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetWeeklyWeightDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetWeeklyWeightDto>> getAllWeeklyWeightsForUser(UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "startDate", "id")
+                .map(position -> paginationService.toPage(
+                        weeklyWeightRepository.findByUserIdOrderByStartDateDescIdDesc(userId, position, paginationService.limit(size)),
+                        this::mapToGetWeeklyWeightDto));
     }
 
     /**
      * Get weekly weight records for a user for a specific year.
      * @param year the year
      * @param userId the ID of the user
-     * @return a list of weekly weight records as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of weekly weight records as DTOs, or empty if the cursor is invalid
      */
-    public List<GetWeeklyWeightDto> getWeeklyWeightsByYear(int year, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return weeklyWeightRepository.findByYearAndUser(year, userOptional.get()).stream()
-                .map(this::mapToGetWeeklyWeightDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetWeeklyWeightDto>> getWeeklyWeightsByYear(int year, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "startDate", "id")
+                .map(position -> paginationService.toPage(
+                        weeklyWeightRepository.findByYearAndUserIdOrderByStartDateDescIdDesc(year, userId, position, paginationService.limit(size)),
+                        this::mapToGetWeeklyWeightDto));
     }
 
     /**
@@ -83,17 +107,16 @@ public class WeeklyWeightService {
      * @param startDate the start date (inclusive)
      * @param endDate the end date (inclusive)
      * @param userId the ID of the user
-     * @return a list of weekly weight records as DTOs
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of weekly weight records as DTOs, or empty if the cursor is invalid
      */
-    public List<GetWeeklyWeightDto> getWeeklyWeightsBetweenDates(LocalDate startDate, LocalDate endDate, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return weeklyWeightRepository.findByStartDateGreaterThanEqualAndEndDateLessThanEqualAndUser(startDate, endDate, userOptional.get()).stream()
-                .map(this::mapToGetWeeklyWeightDto)
-                .collect(Collectors.toList());
+    public Optional<CursorPageDto<GetWeeklyWeightDto>> getWeeklyWeightsBetweenDates(LocalDate startDate, LocalDate endDate, UUID userId, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "startDate", "id")
+                .map(position -> paginationService.toPage(
+                        weeklyWeightRepository.findByStartDateGreaterThanEqualAndEndDateLessThanEqualAndUserIdOrderByStartDateDescIdDesc(
+                                startDate, endDate, userId, position, paginationService.limit(size)),
+                        this::mapToGetWeeklyWeightDto));
     }
 
     /**
@@ -116,6 +139,195 @@ public class WeeklyWeightService {
         return Optional.of(mapToGetWeeklyWeightDto(weeklyWeights.get(0)));
     }
 
+    /**
+     * Apply a change of a daily weight to the weekly weight of its week.
+     * The weekly weight row is locked until the surrounding transaction ends.
+     * If the week has no aggregates to apply the delta to, it is recomputed from its daily weights instead.
+     * @param user the user
+     * @param date the date of the daily weight that changed
+     * @param weightDelta the change of the sum of the daily weights of the week
+     * @param countDelta the change of the number of daily weights of the week
+     */
+    public void applyDailyWeightDelta(User user, LocalDate date, double weightDelta, int countDelta) {
+        collectionVersionService.bump(VersionedCollection.WEEKLY_WEIGHTS, user.getId());
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        int weekNumber = date.get(weekFields.weekOfWeekBasedYear());
+        int year = date.get(weekFields.weekBasedYear());
+
+        Optional<WeeklyWeight> existingWeeklyWeight = weeklyWeightRepository.findForUpdateByWeekNumberAndYearAndUserId(weekNumber, year, user.getId());
+        if (existingWeeklyWeight.isEmpty()) {
+            if (countDelta == 1) {
+                LocalDate startOfWeek = date.with(weekFields.dayOfWeek(), 1);
+                LocalDate endOfWeek = date.with(weekFields.dayOfWeek(), 7);
+                WeeklyWeight weeklyWeight = new WeeklyWeight(weekNumber, year, startOfWeek, endOfWeek, 0.0, user);
+                weeklyWeight.applyDelta(weightDelta, countDelta);
+                weeklyWeightRepository.save(weeklyWeight);
+            } else {
+                // the week was never aggregated, so there is nothing to apply the delta to
+                rebuildWeeklyWeight(user, date);
+            }
+            return;
+        }
+
+        WeeklyWeight weeklyWeight = existingWeeklyWeight.get();
+        if (weeklyWeight.getWeightCount() == 0 || weeklyWeight.getWeightCount() + countDelta < 0) {
+            // the aggregates have drifted from the daily weights, e.g., rows written before they existed
+            rebuildWeeklyWeight(user, date);
+            return;
+        }
+
+        weeklyWeight.applyDelta(weightDelta, countDelta);
+        if (weeklyWeight.getWeightCount() == 0) {
+            weeklyWeightRepository.delete(weeklyWeight);
+            return;
+        }
+        weeklyWeightRepository.save(weeklyWeight);
+    }
+
+    /**
+     * Recompute the weekly weight of a week from its daily weights.
+     * The weekly weight is deleted if the week has no daily weights.
+     * @param user the user
+     * @param date any date of the week
+     */
+    public void rebuildWeeklyWeight(User user, LocalDate date) {
+        collectionVersionService.bump(VersionedCollection.WEEKLY_WEIGHTS, user.getId());
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        int weekNumber = date.get(weekFields.weekOfWeekBasedYear());
+        int year = date.get(weekFields.weekBasedYear());
+        LocalDate startOfWeek = date.with(weekFields.dayOfWeek(), 1);
+        LocalDate endOfWeek = date.with(weekFields.dayOfWeek(), 7);
+
+        Optional<WeeklyWeight> existingWeeklyWeight = weeklyWeightRepository.findForUpdateByWeekNumberAndYearAndUserId(weekNumber, year, user.getId());
+        List<DailyWeight> dailyWeights = dailyWeightRepository.findByDateBetweenAndUser(startOfWeek, endOfWeek, user);
+        saveAggregates(existingWeeklyWeight.orElse(null), dailyWeights, user, weekNumber, year, startOfWeek, endOfWeek);
+    }
+
+    /**
+     * Recompute the weekly weights of every user from their daily weights.
+     * Used to repair aggregates that drifted, e.g., after daily weights were changed directly in the database.
+     * Users are read in batches by ID and rebuilt one by one, each in its own transaction,
+     * so neither the persistence context nor the held locks grow with the number of users.
+     * @return the number of weekly weights that were created, updated or deleted
+     */
+    public int rebuildAllWeeklyWeights() {
+        int changed = 0;
+        List<UUID> userIds = userRepository.findIdsOrderById(Limit.of(USERS_PER_BATCH));
+        while (!userIds.isEmpty()) {
+            for (UUID userId : userIds) {
+                changed += transactionTemplate.execute(status -> rebuildAllWeeklyWeightsOf(userId));
+            }
+            userIds = userRepository.findIdsAfterOrderById(userIds.getLast(), Limit.of(USERS_PER_BATCH));
+        }
+        collectionVersionService.bumpAll(VersionedCollection.WEEKLY_WEIGHTS);
+        return changed;
+    }
+
+    private int rebuildAllWeeklyWeightsOf(UUID userId) {
+        // locked before the daily weights are read, so their snapshot has every daily weight whose delta the rows hold
+        List<WeeklyWeight> weeklyWeights = weeklyWeightRepository.findForUpdateByUserId(userId);
+        User user = userRepository.getReferenceById(userId);
+        return rebuildWeeks(user, dailyWeightRepository.findByUser(user), weeklyWeights);
+    }
+
+    /**
+     * Recompute the weekly weights of the weeks of some dates of a user, so weeks without any of the dates are neither read nor locked.
+     * The weeks are queried in batches, and their weekly weight rows are locked in order until the surrounding transaction ends.
+     * @param user the user
+     * @param dates the dates whose weeks are recomputed
+     */
+    public void rebuildWeeklyWeights(User user, Collection<LocalDate> dates) {
+        collectionVersionService.bump(VersionedCollection.WEEKLY_WEIGHTS, user.getId());
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        List<LocalDate> startsOfWeeks = dates.stream()
+                .map(date -> date.with(weekFields.dayOfWeek(), 1))
+                .distinct()
+                .sorted()
+                .toList();
+
+        List<WeeklyWeight> weeklyWeights = new ArrayList<>();
+        List<DailyWeight> dailyWeights = new ArrayList<>();
+        for (int i = 0; i < startsOfWeeks.size(); i += WEEKS_PER_QUERY) {
+            List<LocalDate> batch = startsOfWeeks.subList(i, Math.min(i + WEEKS_PER_QUERY, startsOfWeeks.size()));
+            List<LocalDate> days = batch.stream()
+                    .flatMap(startOfWeek -> startOfWeek.datesUntil(startOfWeek.plusDays(7)))
+                    .toList();
+            weeklyWeights.addAll(weeklyWeightRepository.findForUpdateByStartDateInAndUserId(batch, user.getId()));
+            dailyWeights.addAll(dailyWeightRepository.findByDateInAndUser(days, user));
+        }
+        rebuildWeeks(user, dailyWeights, weeklyWeights);
+    }
+
+    /**
+     * Overwrite the weekly weights of a user with the aggregates of the given daily weights, week by week.
+     * Weeks that have a weekly weight but no daily weights are deleted, and so are duplicated weekly weights.
+     * @param user the user
+     * @param dailyWeights the daily weights of the weeks to recompute
+     * @param weeklyWeights the existing weekly weights of the same weeks
+     * @return the number of weekly weights that were created, updated or deleted
+     */
+    private int rebuildWeeks(User user, List<DailyWeight> dailyWeights, List<WeeklyWeight> weeklyWeights) {
+        WeekFields weekFields = WeekFields.of(Locale.getDefault());
+        int changed = 0;
+        Map<LocalDate, List<DailyWeight>> dailyWeightsByWeek = dailyWeights.stream()
+                .collect(Collectors.groupingBy(dailyWeight -> dailyWeight.getDate().with(weekFields.dayOfWeek(), 1)));
+        Map<LocalDate, WeeklyWeight> weeklyWeightsByWeek = new HashMap<>();
+        for (WeeklyWeight weeklyWeight : weeklyWeights) {
+            WeeklyWeight duplicate = weeklyWeightsByWeek.putIfAbsent(weeklyWeight.getStartDate(), weeklyWeight);
+            if (duplicate != null) {
+                weeklyWeightRepository.delete(weeklyWeight);
+                changed++;
+            }
+        }
+
+        Set<LocalDate> weeks = new HashSet<>(dailyWeightsByWeek.keySet());
+        weeks.addAll(weeklyWeightsByWeek.keySet());
+        for (LocalDate startOfWeek : weeks) {
+            int weekNumber = startOfWeek.get(weekFields.weekOfWeekBasedYear());
+            int year = startOfWeek.get(weekFields.weekBasedYear());
+            if (saveAggregates(weeklyWeightsByWeek.get(startOfWeek), dailyWeightsByWeek.getOrDefault(startOfWeek, List.of()),
+                    user, weekNumber, year, startOfWeek, startOfWeek.with(weekFields.dayOfWeek(), 7))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Overwrite the aggregates of a weekly weight with the ones of the given daily weights.
+     * @param weeklyWeight the weekly weight, or null if the week has none yet
+     * @param dailyWeights the daily weights of the week
+     * @param user the user
+     * @param weekNumber the week number
+     * @param year the week-based year
+     * @param startOfWeek the first day of the week
+     * @param endOfWeek the last day of the week
+     * @return true if the weekly weight was created, updated or deleted
+     */
+    private boolean saveAggregates(WeeklyWeight weeklyWeight, List<DailyWeight> dailyWeights, User user,
+                                   int weekNumber, int year, LocalDate startOfWeek, LocalDate endOfWeek) {
+        if (dailyWeights.isEmpty()) {
+            if (weeklyWeight == null) {
+                return false;
+            }
+            weeklyWeightRepository.delete(weeklyWeight);
+            return true;
+        }
+
+        double weightSum = dailyWeights.stream().mapToDouble(DailyWeight::getWeight).sum();
+        if (weeklyWeight == null) {
+            weeklyWeight = new WeeklyWeight(weekNumber, year, startOfWeek, endOfWeek, 0.0, user);
+        } else if (weeklyWeight.getWeightCount() == dailyWeights.size() && weeklyWeight.getWeightSum() == weightSum
+                && weeklyWeight.getAverageWeight() == weightSum / dailyWeights.size()) {
+            return false;
+        }
+        weeklyWeight.setWeightSum(0.0);
+        weeklyWeight.setWeightCount(0);
+        weeklyWeight.applyDelta(weightSum, dailyWeights.size());
+        weeklyWeightRepository.save(weeklyWeight);
+        return true;
+    }
+
     /**
      * Map a WeeklyWeight entity to a GetWeeklyWeightDto.
      * @param weeklyWeight the weekly weight entity
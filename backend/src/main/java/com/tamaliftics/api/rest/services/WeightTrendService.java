@@ -0,0 +1,201 @@
+package com.tamaliftics.api.rest.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tamaliftics.api.rest.models.dtos.weight.DailyWeightReadingDto;
+import com.tamaliftics.api.rest.models.dtos.weight.WeightTrendPointDto;
+import com.tamaliftics.api.rest.repositories.DailyWeightRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Smoothed trend of the daily weights of each user: a 7-day moving average, an exponentially weighted trend and its weekly rate of change.
+ * The trend of a user is computed in one pass over the daily weights the first time it is asked for, and kept in memory.
+ * A daily weight of a newer day than the last one extends the kept trend by one point, any other change drops it,
+ * so the next request recomputes it. Trends are evicted when they weren't used for the ttl,
+ * or when all trends together hold more than the max number of days.
+ * The trends live in memory, so they assume that all writes go through this instance.
+ */
+@Service
+public class WeightTrendService {
+
+    private static final int MOVING_AVERAGE_DAYS = 7;
+    private static final int RATE_DAYS = 7;
+
+    private final DailyWeightRepository dailyWeightRepository;
+    private final Cache<UUID, WeightTrend> trends;
+    private final double smoothing;
+
+    @Autowired
+    public WeightTrendService(DailyWeightRepository dailyWeightRepository,
+                              @Value("${application.weight-trend.smoothing:0.1}") double smoothing,
+                              @Value("${application.weight-trend.max-days:1000000}") long maxDays,
+                              @Value("${application.weight-trend.ttl:PT30M}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.dailyWeightRepository = dailyWeightRepository;
+        this.smoothing = smoothing;
+        this.trends = Caffeine.newBuilder()
+                .maximumWeight(maxDays)
+                .weigher((UUID userId, WeightTrend trend) -> trend.size() + 1)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trends, "weight-trends");
+    }
+
+    /**
+     * Get the trend of the weight of a user between two dates.
+     * The averages and the trend take the daily weights before the start date into account.
+     * @param userId the ID of the user
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return one point per daily weight in the range, oldest first
+     */
+    public List<WeightTrendPointDto> getTrend(UUID userId, LocalDate startDate, LocalDate endDate) {
+        return trends.get(userId, this::computeTrend).points(startDate, endDate);
+    }
+
+    /**
+     * Extends the trend of a user by a created daily weight, or drops the trend if the daily weight isn't its newest point.
+     * Inside a transaction the trend is changed once it committed.
+     * A trend that is being computed meanwhile may have read the daily weights before the commit,
+     * so the change waits for the computation and is applied to its result.
+     * @param userId the ID of the user
+     * @param date the date of the daily weight
+     * @param weight the weight
+     */
+    public void addDailyWeight(UUID userId, LocalDate date, double weight) {
+        // unlike computeIfPresent, compute waits for a computation in flight; the same trend re-weighs it, null drops it
+        AfterCommit.run(() -> trends.asMap().compute(userId, (id, trend) -> trend != null && trend.append(date, weight) ? trend : null));
+    }
+
+    /**
+     * Drops the trend of a user, e.g., after a daily weight was moved, deleted or imported.
+     * Inside a transaction the trend is dropped once it committed.
+     * @param userId the ID of the user
+     */
+    public void invalidate(UUID userId) {
+        AfterCommit.run(() -> trends.invalidate(userId));
+    }
+
+    private WeightTrend computeTrend(UUID userId) {
+        List<DailyWeightReadingDto> readings = dailyWeightRepository.findReadingsByUserId(userId);
+        WeightTrend trend = new WeightTrend(smoothing, readings.size());
+        for (DailyWeightReadingDto reading : readings) {
+            trend.append(reading.date(), reading.weight());
+        }
+        return trend;
+    }
+
+    /**
+     * The trend of one user, one point per daily weight in parallel arrays ordered by day.
+     * Every point only depends on the points before it, so appending a point never changes the earlier ones.
+     */
+    private static class WeightTrend {
+
+        private final double smoothing;
+        private int size;
+        private int[] days;
+        private double[] weights;
+        private double[] movingAverages;
+        private double[] smoothedWeights;
+        private double[] weeklyRates;
+
+        WeightTrend(double smoothing, int capacity) {
+            this.smoothing = smoothing;
+            int initialCapacity = Math.max(capacity, 16);
+            this.days = new int[initialCapacity];
+            this.weights = new double[initialCapacity];
+            this.movingAverages = new double[initialCapacity];
+            this.smoothedWeights = new double[initialCapacity];
+            this.weeklyRates = new double[initialCapacity];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Adds the point of a day, or replaces the last point if it is of the same day
+         * @return false if the day is before the last point, so the trend would have to be recomputed
+         */
+        synchronized boolean append(LocalDate date, double weight) {
+            int day = (int) date.toEpochDay();
+            if (size > 0 && day < days[size - 1]) {
+                return false;
+            }
+            if (size > 0 && day == days[size - 1]) {
+                size--;
+            }
+            if (size == days.length) {
+                grow();
+            }
+
+            int i = size;
+            // there is at most one daily weight per day, so the window holds at most 7 points
+            double sum = weight;
+            int count = 1;
+            for (int j = i - 1; j >= 0 && days[j] > day - MOVING_AVERAGE_DAYS; j--) {
+                sum += weights[j];
+                count++;
+            }
+
+            double smoothedWeight = weight;
+            if (i > 0) {
+                // a gap of several days smooths like as many daily steps towards the new weight
+                double factor = 1 - Math.pow(1 - smoothing, day - days[i - 1]);
+                smoothedWeight = smoothedWeights[i - 1] + factor * (weight - smoothedWeights[i - 1]);
+            }
+
+            // the rate is measured against the last point at least a week earlier, or the first point
+            double weeklyRate = 0;
+            if (i > 0) {
+                int k = i - 1;
+                while (k > 0 && days[k] > day - RATE_DAYS) {
+                    k--;
+                }
+                weeklyRate = (smoothedWeight - smoothedWeights[k]) / (day - days[k]) * 7;
+            }
+
+            days[i] = day;
+            weights[i] = weight;
+            movingAverages[i] = sum / count;
+            smoothedWeights[i] = smoothedWeight;
+            weeklyRates[i] = weeklyRate;
+            size++;
+            return true;
+        }
+
+        synchronized List<WeightTrendPointDto> points(LocalDate startDate, LocalDate endDate) {
+            int start = Arrays.binarySearch(days, 0, size, (int) startDate.toEpochDay());
+            if (start < 0) {
+                start = -start - 1;
+            }
+            int endDay = (int) endDate.toEpochDay();
+            List<WeightTrendPointDto> points = new ArrayList<>();
+            for (int i = start; i < size && days[i] <= endDay; i++) {
+                points.add(new WeightTrendPointDto(LocalDate.ofEpochDay(days[i]), weights[i], movingAverages[i], smoothedWeights[i], weeklyRates[i]));
+            }
+            return points;
+        }
+
+        private void grow() {
+            int capacity = days.length * 2;
+            days = Arrays.copyOf(days, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            movingAverages = Arrays.copyOf(movingAverages, capacity);
+            smoothedWeights = Arrays.copyOf(smoothedWeights, capacity);
+            weeklyRates = Arrays.copyOf(weeklyRates, capacity);
+        }
+    }
+}
@@ -4,19 +4,27 @@ import com.tamaliftics.api.rest.models.Day;
 import com.tamaliftics.api.rest.models.Exercise;
 import com.tamaliftics.api.rest.models.User;
 import com.tamaliftics.api.rest.models.WorkoutPlan;
+import com.tamaliftics.api.rest.models.dtos.CursorPageDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.ExerciseTrackPointSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.workout.CreateWorkoutPlanDto;
 import com.tamaliftics.api.rest.models.dtos.workout.GetWorkoutPlanDto;
 import com.tamaliftics.api.rest.models.dtos.workout.UpdateWorkoutPlanDto;
 import com.tamaliftics.api.rest.repositories.ExerciseRepository;
+import com.tamaliftics.api.rest.repositories.ExerciseTrackPointRepository;
 import com.tamaliftics.api.rest.repositories.UserRepository;
 import com.tamaliftics.api.rest.repositories.WorkoutPlanRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -27,18 +35,24 @@ public class WorkoutPlanService {
 
     private final WorkoutPlanRepository workoutPlanRepository;
     private final ExerciseRepository exerciseRepository;
+    private final ExerciseTrackPointRepository exerciseTrackPointRepository;
     private final UserRepository userRepository;
     private final ExerciseService exerciseService;
+    private final PaginationService paginationService;
 
     @Autowired
     public WorkoutPlanService(WorkoutPlanRepository workoutPlanRepository,
                              ExerciseRepository exerciseRepository,
+                             ExerciseTrackPointRepository exerciseTrackPointRepository,
                              UserRepository userRepository,
-                             ExerciseService exerciseService) {
+                             ExerciseService exerciseService,
+                             PaginationService paginationService) {
         this.workoutPlanRepository = workoutPlanRepository;
         this.exerciseRepository = exerciseRepository;
+        this.exerciseTrackPointRepository = exerciseTrackPointRepository;
         this.userRepository = userRepository;
         this.exerciseService = exerciseService;
+        this.paginationService = paginationService;
     }
 
     /**
@@ -63,9 +77,7 @@ public class WorkoutPlanService {
 
         // Add exercises to the workout plan if exercise IDs are provided
         if (createWorkoutPlanDto.exerciseIds() != null && !createWorkoutPlanDto.exerciseIds().isEmpty()) {
-            List<Exercise> exercises = exerciseRepository.findAllById(createWorkoutPlanDto.exerciseIds()).stream()
-                    .filter(exercise -> exercise.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Exercise> exercises = exerciseRepository.findAllByIdInAndUserId(createWorkoutPlanDto.exerciseIds(), userId);
             workoutPlan.setExercises(exercises);
         }
 
@@ -80,8 +92,8 @@ public class WorkoutPlanService {
      * @return the updated workout plan as a DTO, or empty if the plan doesn't exist or doesn't belong to the user
      */
     public Optional<GetWorkoutPlanDto> updateWorkoutPlan(UpdateWorkoutPlanDto updateWorkoutPlanDto, UUID userId) {
-        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findById(updateWorkoutPlanDto.id());
-        if (workoutPlanOptional.isEmpty() || !workoutPlanOptional.get().getUser().getId().equals(userId)) {
+        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findByIdAndUserId(updateWorkoutPlanDto.id(), userId);
+        if (workoutPlanOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -98,9 +110,7 @@ public class WorkoutPlanService {
 
         // Update exercises if exercise IDs are provided
         if (updateWorkoutPlanDto.exerciseIds() != null) {
-            List<Exercise> exercises = exerciseRepository.findAllById(updateWorkoutPlanDto.exerciseIds()).stream()
-                    .filter(exercise -> exercise.getUser().getId().equals(userId))
-                    .collect(Collectors.toList());
+            List<Exercise> exercises = exerciseRepository.findAllByIdInAndUserId(updateWorkoutPlanDto.exerciseIds(), userId);
             workoutPlan.setExercises(exercises);
         }
 
@@ -112,48 +122,48 @@ public class WorkoutPlanService {
      * Get a workout plan by ID.
      * @param workoutPlanId the ID of the workout plan to retrieve
      * @param userId the ID of the user requesting the plan
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
      * @return the workout plan as a DTO, or empty if the plan doesn't exist or doesn't belong to the user
      */
-    public Optional<GetWorkoutPlanDto> getWorkoutPlanById(UUID workoutPlanId, UUID userId) {
-        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findById(workoutPlanId);
-        if (workoutPlanOptional.isEmpty() || !workoutPlanOptional.get().getUser().getId().equals(userId)) {
+    @Transactional(readOnly = true)
+    public Optional<GetWorkoutPlanDto> getWorkoutPlanById(UUID workoutPlanId, UUID userId, boolean includeTrackPointSummary) {
+        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findWithExercisesByIdAndUserId(workoutPlanId, userId);
+        if (workoutPlanOptional.isEmpty()) {
             return Optional.empty();
         }
 
-        return Optional.of(mapToGetWorkoutPlanDto(workoutPlanOptional.get()));
+        return Optional.of(mapToGetWorkoutPlanDtos(List.of(workoutPlanOptional.get()), includeTrackPointSummary).get(0));
     }
 
     /**
      * Get all workout plans for a user.
      * @param userId the ID of the user
-     * @return a list of workout plans as DTOs
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of workout plans as DTOs, or empty if the cursor is invalid
      */
-    public List<GetWorkoutPlanDto> getAllWorkoutPlansForUser(UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return workoutPlanRepository.findByUser(userOptional.get()).stream()
-                .map(this::mapToGetWorkoutPlanDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDto<GetWorkoutPlanDto>> getAllWorkoutPlansForUser(UUID userId, boolean includeTrackPointSummary, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> toPage(workoutPlanRepository.findByUserIdOrderByIdAsc(userId, position, paginationService.limit(size)),
+                        includeTrackPointSummary));
     }
 
     /**
      * Get workout plans for a specific day.
      * @param day the day of the week
      * @param userId the ID of the user
-     * @return a list of workout plans as DTOs
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @param size the size of the page, or null for the default page size
+     * @return a page of workout plans as DTOs, or empty if the cursor is invalid
      */
-    public List<GetWorkoutPlanDto> getWorkoutPlansByDay(Day day, UUID userId) {
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isEmpty()) {
-            return List.of();
-        }
-
-        return workoutPlanRepository.findAllByDayAndUser(day, userOptional.get()).stream()
-                .map(this::mapToGetWorkoutPlanDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Optional<CursorPageDto<GetWorkoutPlanDto>> getWorkoutPlansByDay(Day day, UUID userId, boolean includeTrackPointSummary, String cursor, Integer size) {
+        return paginationService.decodeCursor(cursor, "id")
+                .map(position -> toPage(workoutPlanRepository.findByDayAndUserIdOrderByIdAsc(day, userId, position, paginationService.limit(size)),
+                        includeTrackPointSummary));
     }
 
     /**
@@ -163,8 +173,8 @@ public class WorkoutPlanService {
      * @return true if the plan was deleted, false if the plan doesn't exist or doesn't belong to the user
      */
     public boolean deleteWorkoutPlan(UUID workoutPlanId, UUID userId) {
-        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findById(workoutPlanId);
-        if (workoutPlanOptional.isEmpty() || !workoutPlanOptional.get().getUser().getId().equals(userId)) {
+        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findByIdAndUserId(workoutPlanId, userId);
+        if (workoutPlanOptional.isEmpty()) {
             return false;
         }
 
@@ -180,12 +190,10 @@ public class WorkoutPlanService {
      * @return the updated workout plan as a DTO, or empty if the plan or exercise doesn't exist or doesn't belong to the user
      */
     public Optional<GetWorkoutPlanDto> addExerciseToWorkoutPlan(UUID workoutPlanId, UUID exerciseId, UUID userId) {
-        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findById(workoutPlanId);
-        Optional<Exercise> exerciseOptional = exerciseRepository.findById(exerciseId);
+        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findByIdAndUserId(workoutPlanId, userId);
+        Optional<Exercise> exerciseOptional = exerciseRepository.findByIdAndUserId(exerciseId, userId);
 
-        if (workoutPlanOptional.isEmpty() || exerciseOptional.isEmpty() || 
-            !workoutPlanOptional.get().getUser().getId().equals(userId) || 
-            !exerciseOptional.get().getUser().getId().equals(userId)) {
+        if (workoutPlanOptional.isEmpty() || exerciseOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -205,8 +213,8 @@ public class WorkoutPlanService {
      * @return the updated workout plan as a DTO, or empty if the plan doesn't exist or doesn't belong to the user
      */
     public Optional<GetWorkoutPlanDto> removeExerciseFromWorkoutPlan(UUID workoutPlanId, UUID exerciseId, UUID userId) {
-        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findById(workoutPlanId);
-        if (workoutPlanOptional.isEmpty() || !workoutPlanOptional.get().getUser().getId().equals(userId)) {
+        Optional<WorkoutPlan> workoutPlanOptional = workoutPlanRepository.findByIdAndUserId(workoutPlanId, userId);
+        if (workoutPlanOptional.isEmpty()) {
             return Optional.empty();
         }
 
@@ -223,10 +231,58 @@ public class WorkoutPlanService {
      * @return the workout plan DTO
      */
     private GetWorkoutPlanDto mapToGetWorkoutPlanDto(WorkoutPlan workoutPlan) {
+        return mapToGetWorkoutPlanDto(workoutPlan, Map.of());
+    }
+
+    /**
+     * Map a window of workout plans to a page, initializing the exercises of the whole page in batches of 50 workout plans.
+     * Exercises and categories that are in the second-level cache are taken from there.
+     * Must be called in the same transaction the workout plans were loaded in.
+     * @param workoutPlans the window of workout plans
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @return the page of workout plans as DTOs
+     */
+    private CursorPageDto<GetWorkoutPlanDto> toPage(Window<WorkoutPlan> workoutPlans, boolean includeTrackPointSummary) {
+        workoutPlans.forEach(workoutPlan -> Hibernate.initialize(workoutPlan.getExercises()));
+        return paginationService.toPage(workoutPlans, mapToGetWorkoutPlanDtos(workoutPlans.getContent(), includeTrackPointSummary));
+    }
+
+    /**
+     * Map workout plans whose exercises and categories were already fetched to GetWorkoutPlanDtos.
+     * The track points of the exercises are never loaded; if requested, they are summarized with one aggregate query.
+     * @param workoutPlans the workout plan entities
+     * @param includeTrackPointSummary whether to summarize the track points of each exercise
+     * @return the workout plan DTOs, in the same order
+     */
+    private List<GetWorkoutPlanDto> mapToGetWorkoutPlanDtos(List<WorkoutPlan> workoutPlans, boolean includeTrackPointSummary) {
+        Map<UUID, ExerciseTrackPointSummaryDto> summaries = Map.of();
+        if (includeTrackPointSummary) {
+            List<UUID> exerciseIds = workoutPlans.stream()
+                    .flatMap(workoutPlan -> workoutPlan.getExercises().stream())
+                    .map(Exercise::getId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!exerciseIds.isEmpty()) {
+                summaries = exerciseTrackPointRepository.summarizeByExerciseIdIn(exerciseIds).stream()
+                        .collect(Collectors.toMap(ExerciseTrackPointSummaryDto::exerciseId, Function.identity()));
+            }
+        }
+
+        Map<UUID, ExerciseTrackPointSummaryDto> trackPointSummaries = summaries;
+        return workoutPlans.stream()
+                .map(workoutPlan -> mapToGetWorkoutPlanDto(workoutPlan, trackPointSummaries))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Map a WorkoutPlan entity to a GetWorkoutPlanDto.
+     * @param workoutPlan the workout plan entity
+     * @param trackPointSummaries the track point summaries by exercise ID, empty if they weren't requested
+     * @return the workout plan DTO
+     */
+    private GetWorkoutPlanDto mapToGetWorkoutPlanDto(WorkoutPlan workoutPlan, Map<UUID, ExerciseTrackPointSummaryDto> trackPointSummaries) {
         List<GetExerciseDto> exerciseDtos = workoutPlan.getExercises().stream()
-                .map(exercise -> exerciseService.getExerciseById(exercise.getId(), workoutPlan.getUser().getId()))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
+                .map(exercise -> exerciseService.mapToGetExerciseDtoWithoutTrackPoints(exercise, trackPointSummaries.get(exercise.getId())))
                 .collect(Collectors.toList());
 
         return new GetWorkoutPlanDto(
@@ -0,0 +1,190 @@
+-- Schema as it was generated by hibernate before migrations were introduced.
+-- Databases that already have these tables are baselined at this version, so this script only runs on empty databases.
+
+create table daily_weights (
+    date date not null,
+    weight float(53) not null,
+    id binary(16) not null,
+    user_id binary(16) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table diets (
+    id binary(16) not null,
+    user_id binary(16) not null,
+    description TEXT,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table dishes (
+    calories float(53) not null,
+    carbs float(53) not null,
+    fat float(53) not null,
+    protein float(53) not null,
+    id binary(16) not null,
+    user_id binary(16) not null,
+    description TEXT,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table exercise_categories (
+    id binary(16) not null,
+    user_id binary(16) not null,
+    description TEXT,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table exercise_track_points (
+    date date not null,
+    reps_count integer not null,
+    sets_count integer not null,
+    weight float(23),
+    exercise_id binary(16) not null,
+    id binary(16) not null,
+    description TEXT,
+    primary key (id)
+) engine=InnoDB;
+
+create table exercises (
+    category_id binary(16) not null,
+    id binary(16) not null,
+    user_id binary(16) not null,
+    description TEXT,
+    name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table meal_dishes (
+    dish_id binary(16) not null,
+    meal_id binary(16) not null
+) engine=InnoDB;
+
+create table meals (
+    diet_id binary(16),
+    id binary(16) not null,
+    user_id binary(16) not null,
+    type enum ('BREAKFAST','DINNER','LUNCH','SNACKS') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    creation_date date,
+    role tinyint,
+    id binary(16) not null,
+    email varchar(255) not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    password varchar(255) not null,
+    profile_picture varchar(255),
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table weekly_weights (
+    average_weight float(53) not null,
+    end_date date not null,
+    start_date date not null,
+    week_number integer not null,
+    year integer not null,
+    id binary(16) not null,
+    user_id binary(16) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table workout_plan_exercises (
+    exercise_id binary(16) not null,
+    workout_plan_id binary(16) not null
+) engine=InnoDB;
+
+create table workout_plans (
+    id binary(16) not null,
+    user_id binary(16) not null,
+    description TEXT,
+    day enum ('FRIDAY','MONDAY','SATURDAY','SUNDAY','THURSDAY','TUESDAY','WEDNESDAY') not null,
+    type enum ('ABS','LEGS_1','LEGS_2','PUSH_AND_PULL_1','PUSH_AND_PULL_2') not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table users
+   add constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users
+   add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table daily_weights
+   add constraint FK41noyqdwkfylm143by33xnjeq
+   foreign key (user_id)
+   references users (id);
+
+alter table diets
+   add constraint FKciaw2xciw59ijv3ihnf05lilb
+   foreign key (user_id)
+   references users (id);
+
+alter table dishes
+   add constraint FK6yk5s1r95yjgkdemsg3p9d2k6
+   foreign key (user_id)
+   references users (id);
+
+alter table exercise_categories
+   add constraint FK2g28xbmmpc7y1ybndk0905trl
+   foreign key (user_id)
+   references users (id);
+
+alter table exercise_track_points
+   add constraint FKagyacvubq0g6j90pv6as5brse
+   foreign key (exercise_id)
+   references exercises (id);
+
+alter table exercises
+   add constraint FK3sg2qg35rvsckwj6vxr4ubd51
+   foreign key (category_id)
+   references exercise_categories (id);
+
+alter table exercises
+   add constraint FKkiftckymv693t6yxogsb50n4y
+   foreign key (user_id)
+   references users (id);
+
+alter table meal_dishes
+   add constraint FKgljmqy9ajogra7fpgetwqgcna
+   foreign key (dish_id)
+   references dishes (id);
+
+alter table meal_dishes
+   add constraint FKflpbgqvmeyks4gsmbvg9dr657
+   foreign key (meal_id)
+   references meals (id);
+
+alter table meals
+   add constraint FK677c66qpjr7234luomahc1ale
+   foreign key (user_id)
+   references users (id);
+
+alter table meals
+   add constraint FK4s2mu2wawl3g7og83p2aby5pj
+   foreign key (diet_id)
+   references diets (id);
+
+alter table weekly_weights
+   add constraint FK1g14rq5vgt5yymcqq7nt7clma
+   foreign key (user_id)
+   references users (id);
+
+alter table workout_plan_exercises
+   add constraint FKl8kdtyeeevi0lq6nlvh1m82ms
+   foreign key (exercise_id)
+   references exercises (id);
+
+alter table workout_plan_exercises
+   add constraint FKlq9qnfhdx33fcv09t951b2sj8
+   foreign key (workout_plan_id)
+   references workout_plans (id);
+
+alter table workout_plans
+   add constraint FK4vr09ve028fenv5fb6e9akqlx
+   foreign key (user_id)
+   references users (id);
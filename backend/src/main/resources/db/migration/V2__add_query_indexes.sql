@@ -0,0 +1,23 @@
+-- Composite indexes for the hot query shapes. InnoDB appends the primary key to every secondary index,
+-- so the keyset pagination on (..., id) is served by the same indexes.
+
+-- One daily weight per user and date. Duplicates can only have been written by concurrent requests, keep one of each.
+-- Weekly weights of affected weeks can be repaired with POST /weekly-weights/rebuild.
+delete d1 from daily_weights d1
+    join daily_weights d2 on d1.user_id = d2.user_id and d1.date = d2.date and d1.id < d2.id;
+
+alter table daily_weights
+   add constraint uk_daily_weights_user_date unique (user_id, date);
+
+-- One weekly weight per user and week
+delete w1 from weekly_weights w1
+    join weekly_weights w2 on w1.user_id = w2.user_id and w1.year = w2.year and w1.week_number = w2.week_number and w1.id < w2.id;
+
+alter table weekly_weights
+   add constraint uk_weekly_weights_user_year_week unique (user_id, year, week_number);
+
+create index idx_weekly_weights_user_start_date on weekly_weights (user_id, start_date);
+
+create index idx_exercise_track_points_exercise_date on exercise_track_points (exercise_id, date);
+
+create index idx_workout_plans_user_day on workout_plans (user_id, day);
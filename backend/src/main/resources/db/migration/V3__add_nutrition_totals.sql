@@ -0,0 +1,36 @@
+-- Stored nutrition totals of meals and diets, maintained by the application on every change of dishes and meals.
+
+alter table meals
+    add column total_calories float(53) not null default 0,
+    add column total_carbs float(53) not null default 0,
+    add column total_fat float(53) not null default 0,
+    add column total_protein float(53) not null default 0;
+
+alter table diets
+    add column total_calories float(53) not null default 0,
+    add column total_carbs float(53) not null default 0,
+    add column total_fat float(53) not null default 0,
+    add column total_protein float(53) not null default 0;
+
+-- Backfill the meals from their dishes, then the diets from their meals
+update meals m
+    join (select md.meal_id, sum(d.calories) as calories, sum(d.carbs) as carbs,
+                 sum(d.fat) as fat, sum(d.protein) as protein
+          from meal_dishes md
+          join dishes d on d.id = md.dish_id
+          group by md.meal_id) t on t.meal_id = m.id
+set m.total_calories = t.calories,
+    m.total_carbs = t.carbs,
+    m.total_fat = t.fat,
+    m.total_protein = t.protein;
+
+update diets d
+    join (select m.diet_id, sum(m.total_calories) as calories, sum(m.total_carbs) as carbs,
+                 sum(m.total_fat) as fat, sum(m.total_protein) as protein
+          from meals m
+          where m.diet_id is not null
+          group by m.diet_id) t on t.diet_id = d.id
+set d.total_calories = t.calories,
+    d.total_carbs = t.carbs,
+    d.total_fat = t.fat,
+    d.total_protein = t.protein;
@@ -0,0 +1,4 @@
+-- Reverse index from a dish to the meals containing it, covering the lookup of the meals of a dish
+-- when a change of its macros is propagated to the totals of its meals and diets.
+-- The meals of the diets are found through the foreign key index on meals (diet_id).
+create index idx_meal_dishes_dish_meal on meal_dishes (dish_id, meal_id);
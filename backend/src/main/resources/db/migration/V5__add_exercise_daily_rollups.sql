@@ -0,0 +1,30 @@
+-- Per exercise and day sums of the track points, maintained by the application on every change of track points,
+-- so progression charts read one row per training day instead of every track point.
+-- The rows of an exercise are deleted with the exercise.
+create table exercise_daily_rollups (
+    exercise_id binary(16) not null,
+    date date not null,
+    volume float(53) not null,
+    best_estimated_one_rep_max float(53) not null,
+    max_weight float(23) not null,
+    total_sets integer not null,
+    total_reps integer not null,
+    primary key (exercise_id, date)
+) engine=InnoDB;
+
+alter table exercise_daily_rollups
+   add constraint fk_exercise_daily_rollups_exercise
+   foreign key (exercise_id)
+   references exercises (id)
+   on delete cascade;
+
+-- Backfill from the existing track points
+insert into exercise_daily_rollups (exercise_id, date, volume, best_estimated_one_rep_max, max_weight, total_sets, total_reps)
+select exercise_id, date,
+       sum(sets_count * reps_count * coalesce(weight, 0)),
+       max(coalesce(weight, 0) * case when reps_count <= 1 then 1 else 1 + reps_count / 30 end),
+       max(coalesce(weight, 0)),
+       sum(sets_count),
+       sum(sets_count * reps_count)
+from exercise_track_points
+group by exercise_id, date;
@@ -0,0 +1,16 @@
+-- Running sum and count of the daily weights of each week, so a change of a daily weight is applied to its week as a delta.
+
+alter table weekly_weights
+    add column weight_sum float(53) not null default 0,
+    add column weight_count integer not null default 0;
+
+-- Backfill from the daily weights of each week. Weeks without daily weights keep a count of 0,
+-- they are recomputed from their daily weights on their next change.
+update weekly_weights w
+    join (select w2.id, sum(d.weight) as weight_sum, count(*) as weight_count
+          from weekly_weights w2
+          join daily_weights d on d.user_id = w2.user_id and d.date between w2.start_date and w2.end_date
+          group by w2.id) t on t.id = w.id
+set w.weight_sum = t.weight_sum,
+    w.weight_count = t.weight_count,
+    w.average_weight = t.weight_sum / t.weight_count;
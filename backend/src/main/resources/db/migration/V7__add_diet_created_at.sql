@@ -0,0 +1,21 @@
+-- Creation time of the diets, the latest diet of a user is shown as the current one.
+-- Diets created before UUIDv7 IDs have random IDs, so the IDs can't tell which diet is the latest.
+
+alter table diets
+    add column created_at datetime(6);
+
+-- UUIDv7 IDs start with the creation time in milliseconds since the epoch
+update diets
+set created_at = from_unixtime(conv(substr(hex(id), 1, 12), 16, 10) / 1000)
+where substr(hex(id), 13, 1) = '7';
+
+-- Older diets were created before every diet with a UUIDv7 ID, the creation date of their user is the best known time
+update diets d
+    join users u on u.id = d.user_id
+set d.created_at = coalesce(u.creation_date, '1970-01-01')
+where d.created_at is null;
+
+alter table diets
+    modify column created_at datetime(6) not null;
+
+create index idx_diets_user_created_at on diets (user_id, created_at);
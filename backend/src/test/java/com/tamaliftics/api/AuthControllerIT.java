@@ -1,28 +1,43 @@
 package com.tamaliftics.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.rest.models.dtos.auth.LoginRequestDto;
 import com.tamaliftics.api.utils.AuthenticationHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
 public class AuthControllerIT {
 
     private final MockMvc mockMvc;
+    private final String baseUrl;
 
     @Autowired
-    public AuthControllerIT(MockMvc mockMvc) {
+    public AuthControllerIT(MockMvc mockMvc, @LocalServerPort int port) {
         this.mockMvc = mockMvc;
+        this.baseUrl = "http://localhost:" + port;
     }
 
     @Test
@@ -46,6 +61,59 @@ public class AuthControllerIT {
         mockMvc.perform(MockMvcRequestBuilders.delete("/auth/delete/users/test")
                         .header("Authorization", bearerToken))
                 .andExpect(status().isOk());
+
+        // The token of the deleted user must not be served from the token cache anymore
+        mockMvc.perform(MockMvcRequestBuilders.get("/daily-weights")
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    public void loginStormDoesNotBlockReads() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        String loginJson = new ObjectMapper().writeValueAsString(new LoginRequestDto("tamalito", "123456"));
+
+        // The requests go through Tomcat on a real port, so the logins occupy its connections and threads concurrently
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(loginJson))
+                .build();
+        HttpRequest read = HttpRequest.newBuilder(URI.create(baseUrl + "/daily-weights"))
+                .header("Authorization", bearerToken)
+                .GET()
+                .build();
+
+        // Fire more logins than the login executor can run or queue, all at once
+        CompletableFuture<Void> saturated = new CompletableFuture<>();
+        List<CompletableFuture<HttpResponse<Void>>> logins = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            logins.add(client.sendAsync(login, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, e) -> {
+                        if (response != null && response.statusCode() == 429) {
+                            saturated.complete(null);
+                        }
+                    }));
+        }
+
+        // Once the first login was rejected the executor is full, reads are still served by the servlet threads
+        saturated.get(30, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        HttpResponse<Void> readResponse = client.send(read, HttpResponse.BodyHandlers.discarding());
+        Duration readLatency = Duration.ofNanos(System.nanoTime() - start);
+        assertEquals(200, readResponse.statusCode());
+        assertTrue(readLatency.compareTo(Duration.ofSeconds(1)) < 0, "Read took " + readLatency);
+
+        // Excess logins are rejected right away instead of queueing
+        int rejected = 0;
+        for (CompletableFuture<HttpResponse<Void>> future : logins) {
+            int loginStatus = future.get(60, TimeUnit.SECONDS).statusCode();
+            assertTrue(loginStatus == 200 || loginStatus == 429, "Unexpected status " + loginStatus);
+            if (loginStatus == 429) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0);
     }
 
     @Test
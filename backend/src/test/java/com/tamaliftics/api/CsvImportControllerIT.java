@@ -0,0 +1,124 @@
+package com.tamaliftics.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.utils.AuthenticationHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CsvImportControllerIT {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CsvImportControllerIT(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = new ObjectMapper();
+        // Configure ObjectMapper to handle Java 8 date/time types
+        objectMapper.findAndRegisterModules();
+    }
+
+    @Test
+    public void testImportExerciseTrackPointsCreatesExercisesByName() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        String exerciseName = "Imported Squat " + UUID.randomUUID();
+        String csv = "date,exercise,category,sets,reps,weight,description\n" +
+                "2020-03-02," + exerciseName + ",Imported Legs,3,5,100.5,\"heavy, but fine\"\n" +
+                "2020-03-04," + exerciseName.toUpperCase() + ",,3,5,102.5,\n" +
+                "2020-03-06," + exerciseName + ",Imported Legs,3,0,105,\n" +
+                "06.03.2020," + exerciseName + ",Imported Legs,3,5,105,\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/exercise-track-points")
+                        .header("Authorization", bearerToken)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(4))
+                .andExpect(jsonPath("$.errors[1].row").value(5));
+
+        // the exercise was created once, the second row found it by name
+        String searchJson = mockMvc.perform(MockMvcRequestBuilders.get("/exercises/search")
+                        .param("name", exerciseName)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode exercises = objectMapper.readTree(searchJson).get("items");
+        assertEquals(1, exercises.size());
+        String exerciseId = exercises.get(0).get("id").asText();
+        String categoryId = exercises.get(0).get("category").get("id").asText();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/exercise-track-points/exercise/" + exerciseId)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].description").value("heavy, but fine"));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/exercises/" + exerciseId)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/exercise-categories/" + categoryId)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testImportDailyWeights() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        String csv = "weight,date\n" +
+                "70.5,1995-04-03\n" +
+                "71.0,1995-04-04\n" +
+                "71.5,1995-04-04\n" +
+                "heavy,1995-04-05\n" +
+                // the separators count towards the length of a row
+                ",".repeat(10000) + "\n";
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/daily-weights")
+                        .header("Authorization", bearerToken)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.errors[1].row").value(6))
+                .andExpect(jsonPath("$.complete").value(true));
+
+        String dailyWeightsJson = mockMvc.perform(MockMvcRequestBuilders.get("/daily-weights/range")
+                        .param("startDate", "1995-04-01")
+                        .param("endDate", "1995-04-07")
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        for (JsonNode dailyWeight : objectMapper.readTree(dailyWeightsJson).get("items")) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/daily-weights/" + dailyWeight.get("id").asText())
+                            .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testImportWithoutRequiredColumns() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/import/daily-weights")
+                        .header("Authorization", bearerToken)
+                        .contentType("text/csv")
+                        .content("day,kilograms\n1995-04-03,70.5\n"))
+                .andExpect(status().isBadRequest());
+    }
+}
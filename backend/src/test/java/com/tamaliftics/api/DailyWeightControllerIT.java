@@ -1,6 +1,8 @@
 package com.tamaliftics.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightItemResultDto;
+import com.tamaliftics.api.rest.models.dtos.weight.BulkDailyWeightResultDto;
 import com.tamaliftics.api.rest.models.dtos.weight.GetDailyWeightDto;
 import com.tamaliftics.api.utils.AuthenticationHelper;
 import org.junit.jupiter.api.Test;
@@ -17,6 +19,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -64,6 +67,19 @@ public class DailyWeightControllerIT {
                 .header("Authorization", bearerToken))
                 .andExpect(status().isOk());
         
+        // Get the first page of daily weight records
+        mockMvc.perform(MockMvcRequestBuilders.get("/daily-weights")
+                .param("size", "1")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+        
+        // A cursor that was not issued by the server is rejected
+        mockMvc.perform(MockMvcRequestBuilders.get("/daily-weights")
+                .param("cursor", "not-a-cursor")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isBadRequest());
+        
         // Get daily weight records in a date range
         LocalDate startDate = LocalDate.now().minusDays(7);
         LocalDate endDate = LocalDate.now();
@@ -94,4 +110,61 @@ public class DailyWeightControllerIT {
                 .header("Authorization", bearerToken))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBulkUpsertDailyWeights() throws Exception {
+        // Login with existing user
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        
+        // Two readings of the same day, one of the next day and one without a weight
+        String readingsJson = """
+                [
+                  {"date": "2001-01-01", "weight": 80.0},
+                  {"date": "2001-01-01", "weight": 81.0},
+                  {"date": "2001-01-02", "weight": 82.0},
+                  {"date": "2001-01-03"}
+                ]
+                """;
+        
+        MvcResult bulkResult = mockMvc.perform(MockMvcRequestBuilders.post("/daily-weights/bulk")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(readingsJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.results[1].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[3].status").value("INVALID"))
+                .andReturn();
+        
+        BulkDailyWeightResultDto result = objectMapper.readValue(bulkResult.getResponse().getContentAsString(), BulkDailyWeightResultDto.class);
+        try {
+            // The weekly weight of the readings was recomputed once, with the last reading of the duplicated day
+            mockMvc.perform(MockMvcRequestBuilders.get("/weekly-weights/date")
+                    .param("date", "2001-01-02")
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.averageWeight").value(81.5));
+
+            // The trend has one point per day, the moving average of the second day covers both days
+            mockMvc.perform(MockMvcRequestBuilders.get("/daily-weights/trend")
+                    .param("startDate", "2001-01-01")
+                    .param("endDate", "2001-01-02")
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[1].weight").value(82.0))
+                    .andExpect(jsonPath("$[1].movingAverage").value(81.5));
+        } finally {
+            // Clean up by deleting the created daily weight records
+            for (BulkDailyWeightItemResultDto item : result.results()) {
+                if (item.id() != null) {
+                    mockMvc.perform(MockMvcRequestBuilders.delete("/daily-weights/" + item.id())
+                            .header("Authorization", bearerToken))
+                            .andExpect(status().isOk());
+                }
+            }
+        }
+    }
+}
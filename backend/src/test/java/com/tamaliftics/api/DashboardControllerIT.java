@@ -0,0 +1,69 @@
+package com.tamaliftics.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.rest.models.dtos.diet.CreateDietDto;
+import com.tamaliftics.api.rest.models.dtos.diet.GetDietDto;
+import com.tamaliftics.api.utils.AuthenticationHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DashboardControllerIT {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public DashboardControllerIT(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = new ObjectMapper();
+        // Configure ObjectMapper to handle Java 8 date/time types
+        objectMapper.findAndRegisterModules();
+    }
+
+    @Test
+    public void testGetDashboard() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+
+        // the latest diet is the current one
+        String dietJson = mockMvc.perform(MockMvcRequestBuilders.post("/diets")
+                        .header("Authorization", bearerToken)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new CreateDietDto("Dashboard Diet", "Latest diet", List.of()))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        UUID dietId = objectMapper.readValue(dietJson, GetDietDto.class).id();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/dashboard")
+                        .param("date", "2024-05-01")
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value("2024-05-01"))
+                .andExpect(jsonPath("$.day").value("WEDNESDAY"))
+                .andExpect(jsonPath("$.workoutPlans").isArray())
+                .andExpect(jsonPath("$.recentDailyWeights").isArray())
+                .andExpect(jsonPath("$.recentWeeklyWeights").isArray())
+                .andExpect(jsonPath("$.currentDiet.id").value(dietId.toString()));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testGetDashboardUnauthorized() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/dashboard"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -1,8 +1,18 @@
 package com.tamaliftics.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.rest.models.MealType;
+import com.tamaliftics.api.rest.models.dtos.diet.CreateDietDto;
+import com.tamaliftics.api.rest.models.dtos.diet.DietSummaryDto;
 import com.tamaliftics.api.rest.models.dtos.diet.GetDietDto;
+import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
+import com.tamaliftics.api.rest.models.dtos.dish.UpdateDishDto;
+import com.tamaliftics.api.rest.models.dtos.meal.CreateMealDto;
+import com.tamaliftics.api.rest.models.dtos.meal.GetMealDto;
 import com.tamaliftics.api.utils.AuthenticationHelper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -13,20 +23,28 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureMockMvc
 public class DietControllerIT {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
+    private final Statistics statistics;
 
     @Autowired
-    public DietControllerIT(MockMvc mockMvc) {
+    public DietControllerIT(MockMvc mockMvc, EntityManagerFactory entityManagerFactory) {
         this.mockMvc = mockMvc;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
         this.objectMapper = new ObjectMapper();
         // Configure ObjectMapper to handle Java 8 date/time types
         objectMapper.findAndRegisterModules();
@@ -89,4 +107,249 @@ public class DietControllerIT {
                 .header("Authorization", bearerToken))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetAllDietsStatementCountDoesNotGrowWithMealsAndDishes() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        List<UUID> dishIds = new ArrayList<>();
+        List<UUID> dietIds = new ArrayList<>();
+
+        dietIds.add(createDietWithMeals(bearerToken, 1, 1, dishIds));
+        long statementsWithSmallDiet = countStatementsOfGetAllDiets(bearerToken);
+
+        dietIds.add(createDietWithMeals(bearerToken, 4, 3, dishIds));
+        long statementsWithLargeDiet = countStatementsOfGetAllDiets(bearerToken);
+
+        // the page of diets, their meals, then the dishes of all meals
+        assertTrue(statementsWithLargeDiet <= 3, "GET /diets executed " + statementsWithLargeDiet + " statements");
+        assertEquals(statementsWithSmallDiet, statementsWithLargeDiet);
+
+        for (UUID dietId : dietIds) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+        for (UUID dishId : dishIds) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/dishes/" + dishId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testGetAllDietsServesDishesFromSecondLevelCache() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        List<UUID> dishIds = new ArrayList<>();
+        UUID dietId = createDietWithMeals(bearerToken, 3, 2, dishIds);
+
+        long statementsWithColdCache = countStatementsOfGetAllDiets(bearerToken);
+        long statementsWithWarmCache = countStatementsOfGetAllDiets(bearerToken);
+
+        // once loaded, the dishes of the meals come from the second-level cache
+        assertTrue(statementsWithWarmCache < statementsWithColdCache,
+                "GET /diets executed " + statementsWithWarmCache + " statements with a warm cache, " + statementsWithColdCache + " with a cold one");
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        for (UUID dishId : dishIds) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/dishes/" + dishId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testDietSummaryFollowsChangesOfDishes() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        List<UUID> dishIds = new ArrayList<>();
+        UUID dietId = createDietWithMeals(bearerToken, 2, 2, dishIds);
+
+        // 4 dishes of 500 calories and 30 protein each
+        DietSummaryDto summary = getDietSummary(bearerToken, dietId);
+        assertEquals(2000.0, summary.totalCalories(), 0.001);
+        assertEquals(120.0, summary.totalProtein(), 0.001);
+
+        // changing the macros of a dish updates the totals of its meal and diet
+        mockMvc.perform(MockMvcRequestBuilders.put("/dishes")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new UpdateDishDto(dishIds.get(0), null, null, 600.0, null, null, 35.0))))
+                .andExpect(status().isOk());
+        summary = getDietSummary(bearerToken, dietId);
+        assertEquals(2100.0, summary.totalCalories(), 0.001);
+        assertEquals(125.0, summary.totalProtein(), 0.001);
+
+        // the stored totals match the totals of the full diet
+        String dietJson = mockMvc.perform(MockMvcRequestBuilders.get("/diets/" + dietId)
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        GetDietDto diet = objectMapper.readValue(dietJson, GetDietDto.class);
+        double caloriesOfDishes = diet.meals().stream()
+                .flatMap(meal -> meal.dishes().stream())
+                .mapToDouble(GetDishDto::calories)
+                .sum();
+        assertEquals(caloriesOfDishes, diet.totalCalories(), 0.001);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/diets/" + dietId + "/summary")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isNotFound());
+        for (UUID dishId : dishIds) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/dishes/" + dishId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testChangeOfSharedDishUpdatesAllMealsAndDiets() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        String createDishDtoJson = new String(Files.readAllBytes(Path.of("src/test/resources/dish/create/createDishDto.json")));
+        String dishJson = mockMvc.perform(MockMvcRequestBuilders.post("/dishes")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(createDishDtoJson))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        UUID dishId = objectMapper.readValue(dishJson, GetDishDto.class).id();
+
+        // two diets of three meals each, every meal contains the shared dish
+        List<UUID> dietIds = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            List<UUID> mealIds = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                String mealJson = mockMvc.perform(MockMvcRequestBuilders.post("/meals")
+                        .header("Authorization", bearerToken)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new CreateMealDto(MealType.values()[j], List.of(dishId)))))
+                        .andExpect(status().isCreated())
+                        .andReturn().getResponse().getContentAsString();
+                mealIds.add(objectMapper.readValue(mealJson, GetMealDto.class).id());
+            }
+            String dietJson = mockMvc.perform(MockMvcRequestBuilders.post("/diets")
+                    .header("Authorization", bearerToken)
+                    .contentType("application/json")
+                    .content(objectMapper.writeValueAsString(new CreateDietDto("Shared Dish Diet", "Diet sharing a dish", mealIds))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            dietIds.add(objectMapper.readValue(dietJson, GetDietDto.class).id());
+        }
+
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.put("/dishes")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new UpdateDishDto(dishId, null, null, 400.0, null, null, null))))
+                .andExpect(status().isOk());
+        // the meals and diets are updated by set-based statements, not loaded one by one
+        assertTrue(statistics.getEntityLoadCount() <= 2, "Loaded " + statistics.getEntityLoadCount() + " entities");
+
+        for (UUID dietId : dietIds) {
+            assertEquals(1200.0, getDietSummary(bearerToken, dietId).totalCalories(), 0.001);
+            mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(MockMvcRequestBuilders.delete("/dishes/" + dishId)
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testUnchangedPollOfDietsIssuesNoStatements() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/diets")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/diets")
+                .header("Authorization", bearerToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        // the version of the diets is kept in memory, the database isn't touched
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // creating a diet changes the version, so the same poll gets the new page
+        String createDietDtoJson = new String(Files.readAllBytes(Path.of("src/test/resources/diet/create/createDietDto.json")));
+        String dietJson = mockMvc.perform(MockMvcRequestBuilders.post("/diets")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(createDietDtoJson))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        UUID dietId = objectMapper.readValue(dietJson, GetDietDto.class).id();
+
+        String newEtag = mockMvc.perform(MockMvcRequestBuilders.get("/diets")
+                .header("Authorization", bearerToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/diets")
+                .header("Authorization", bearerToken)
+                .header("If-None-Match", newEtag))
+                .andExpect(status().isOk());
+    }
+
+    private DietSummaryDto getDietSummary(String bearerToken, UUID dietId) throws Exception {
+        String summaryJson = mockMvc.perform(MockMvcRequestBuilders.get("/diets/" + dietId + "/summary")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(summaryJson, DietSummaryDto.class);
+    }
+
+    private long countStatementsOfGetAllDiets(String bearerToken) throws Exception {
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/diets")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private UUID createDietWithMeals(String bearerToken, int mealCount, int dishesPerMeal, List<UUID> createdDishIds) throws Exception {
+        String createDishDtoJson = new String(Files.readAllBytes(Path.of("src/test/resources/dish/create/createDishDto.json")));
+        List<UUID> mealIds = new ArrayList<>();
+        for (int i = 0; i < mealCount; i++) {
+            List<UUID> dishIds = new ArrayList<>();
+            for (int j = 0; j < dishesPerMeal; j++) {
+                String dishJson = mockMvc.perform(MockMvcRequestBuilders.post("/dishes")
+                        .header("Authorization", bearerToken)
+                        .contentType("application/json")
+                        .content(createDishDtoJson))
+                        .andExpect(status().isCreated())
+                        .andReturn().getResponse().getContentAsString();
+                dishIds.add(objectMapper.readValue(dishJson, GetDishDto.class).id());
+            }
+            createdDishIds.addAll(dishIds);
+
+            String mealJson = mockMvc.perform(MockMvcRequestBuilders.post("/meals")
+                    .header("Authorization", bearerToken)
+                    .contentType("application/json")
+                    .content(objectMapper.writeValueAsString(new CreateMealDto(MealType.values()[i % MealType.values().length], dishIds))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            mealIds.add(objectMapper.readValue(mealJson, GetMealDto.class).id());
+        }
+
+        String dietJson = mockMvc.perform(MockMvcRequestBuilders.post("/diets")
+                .header("Authorization", bearerToken)
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(new CreateDietDto("Statement Count Diet", "Diet with dishes", mealIds))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(dietJson, GetDietDto.class).id();
+    }
+}
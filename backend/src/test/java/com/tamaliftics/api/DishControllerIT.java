@@ -1,6 +1,8 @@
 package com.tamaliftics.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.tamaliftics.api.rest.models.dtos.dish.CreateDishDto;
 import com.tamaliftics.api.rest.models.dtos.dish.GetDishDto;
 import com.tamaliftics.api.utils.AuthenticationHelper;
 import org.junit.jupiter.api.Test;
@@ -9,12 +11,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -89,4 +98,86 @@ public class DishControllerIT {
                 .header("Authorization", bearerToken))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchDishesRanksBestMatchesFirst() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        // a token no other dish of the user contains
+        String token = "qz" + UUID.randomUUID().toString().substring(0, 6);
+        List<String> namesInRankOrder = List.of(token, token + " bowl", "green " + token + " salad", "x" + token + "x");
+
+        List<UUID> dishIds = new ArrayList<>();
+        for (String name : namesInRankOrder.reversed()) {
+            String dishJson = mockMvc.perform(MockMvcRequestBuilders.post("/dishes")
+                    .header("Authorization", bearerToken)
+                    .contentType("application/json")
+                    .content(objectMapper.writeValueAsString(new CreateDishDto(name, null, 100.0, 10.0, 5.0, 5.0))))
+                    .andExpect(status().isCreated())
+                    .andReturn().getResponse().getContentAsString();
+            dishIds.add(objectMapper.readValue(dishJson, GetDishDto.class).id());
+        }
+
+        // the pages of a search continue in the source of its first page, so they hold every match exactly once
+        List<String> pagedNames = new ArrayList<>();
+        SearchPage page = searchDishNames(bearerToken, token, null, 1);
+        pagedNames.addAll(page.names());
+        while (page.nextCursor() != null) {
+            page = searchDishNames(bearerToken, token, page.nextCursor(), 1);
+            pagedNames.addAll(page.names());
+        }
+        assertEquals(namesInRankOrder.size(), pagedNames.size());
+        assertEquals(Set.copyOf(namesInRankOrder), Set.copyOf(pagedNames));
+
+        // the first searches are answered by the database while the index is built in the background
+        List<String> names = List.of();
+        for (int attempt = 0; attempt < 50 && !names.equals(namesInRankOrder); attempt++) {
+            Thread.sleep(100);
+            names = searchDishNames(bearerToken, token.toUpperCase(), null, null).names();
+        }
+        assertEquals(namesInRankOrder, names);
+
+        // pages of a ranked search continue where the previous page stopped
+        SearchPage firstPage = searchDishNames(bearerToken, token, null, 3);
+        assertEquals(namesInRankOrder.subList(0, 3), firstPage.names());
+        assertNotNull(firstPage.nextCursor());
+        SearchPage secondPage = searchDishNames(bearerToken, token, firstPage.nextCursor(), 3);
+        assertEquals(namesInRankOrder.subList(3, 4), secondPage.names());
+        assertNull(secondPage.nextCursor());
+
+        // the index follows updates and deletes
+        for (UUID dishId : dishIds) {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/dishes/" + dishId)
+                    .header("Authorization", bearerToken))
+                    .andExpect(status().isOk());
+        }
+        assertEquals(List.of(), searchDishNames(bearerToken, token, null, null).names());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/dishes/search")
+                .param("name", token)
+                .param("cursor", "not-a-cursor")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    private SearchPage searchDishNames(String bearerToken, String name, String cursor, Integer size) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get("/dishes/search")
+                .param("name", name)
+                .header("Authorization", bearerToken);
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        if (size != null) {
+            request.param("size", size.toString());
+        }
+        String pageJson = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode page = objectMapper.readTree(pageJson);
+        List<String> names = new ArrayList<>();
+        page.get("items").forEach(item -> names.add(item.get("name").asText()));
+        return new SearchPage(names, page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText());
+    }
+
+    private record SearchPage(List<String> names, String nextCursor) {
+    }
+}
@@ -3,12 +3,16 @@ package com.tamaliftics.api;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.BulkExerciseTrackPointItemResultDto;
+import com.tamaliftics.api.rest.models.dtos.trackpoint.BulkExerciseTrackPointResultDto;
 import com.tamaliftics.api.rest.models.dtos.trackpoint.GetExerciseTrackPointDto;
+import com.tamaliftics.api.rest.services.ExerciseRollupService;
 import com.tamaliftics.api.utils.AuthenticationHelper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -19,6 +23,8 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -27,10 +33,14 @@ public class ExerciseTrackPointControllerIT {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExerciseRollupService exerciseRollupService;
 
     @Autowired
-    public ExerciseTrackPointControllerIT(MockMvc mockMvc) {
+    public ExerciseTrackPointControllerIT(MockMvc mockMvc, JdbcTemplate jdbcTemplate, ExerciseRollupService exerciseRollupService) {
         this.mockMvc = mockMvc;
+        this.jdbcTemplate = jdbcTemplate;
+        this.exerciseRollupService = exerciseRollupService;
         this.objectMapper = new ObjectMapper();
         // Configure ObjectMapper to handle Java 8 date/time types
         objectMapper.findAndRegisterModules();
@@ -140,6 +150,63 @@ public class ExerciseTrackPointControllerIT {
                     mockMvc.perform(MockMvcRequestBuilders.get("/exercise-track-points/" + trackPointId)
                             .header("Authorization", bearerToken))
                             .andExpect(status().isNotFound());
+                    
+                    // Log a whole session of 50 sets at once, plus one set of an unknown exercise
+                    StringBuilder sessionJson = new StringBuilder("[");
+                    for (int i = 0; i < 50; i++) {
+                        sessionJson.append("{\"date\": \"2024-01-01\", \"repsCount\": 5, \"setsCount\": 1, \"weight\": ")
+                                .append(60 + i).append(", \"exerciseId\": \"").append(exerciseId).append("\"},");
+                    }
+                    sessionJson.append("{\"date\": \"2024-01-01\", \"repsCount\": 5, \"setsCount\": 1, \"exerciseId\": \"").append(UUID.randomUUID()).append("\"}]");
+                    
+                    MvcResult bulkResult = mockMvc.perform(MockMvcRequestBuilders.post("/exercise-track-points/bulk")
+                            .header("Authorization", bearerToken)
+                            .contentType("application/json")
+                            .content(sessionJson.toString()))
+                            .andExpect(status().isCreated())
+                            .andExpect(jsonPath("$.created").value(50))
+                            .andExpect(jsonPath("$.rejected").value(1))
+                            .andExpect(jsonPath("$.results[50].status").value("INVALID"))
+                            .andReturn();
+                    
+                    // The session is summed up into one point, its first day sets no personal record
+                    mockMvc.perform(MockMvcRequestBuilders.get("/exercise-track-points/exercise/" + exerciseId + "/progression")
+                            .param("bucket", "DAY")
+                            .param("startDate", "2024-01-01")
+                            .param("endDate", "2024-01-31")
+                            .header("Authorization", bearerToken))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.points.length()").value(1))
+                            .andExpect(jsonPath("$.points[0].sets").value(50))
+                            .andExpect(jsonPath("$.points[0].reps").value(250))
+                            .andExpect(jsonPath("$.points[0].volume").value(21125.0))
+                            .andExpect(jsonPath("$.points[0].maxWeight").value(109.0))
+                            .andExpect(jsonPath("$.personalRecords.length()").value(0));
+
+                    // A rollup that drifted from its track points is found and repaired by the rebuild
+                    jdbcTemplate.update("update exercise_daily_rollups set volume = 0 where exercise_id = unhex(replace(?, '-', ''))", exerciseId.toString());
+                    assertTrue(exerciseRollupService.rebuildAllRollups() >= 1);
+                    mockMvc.perform(MockMvcRequestBuilders.get("/exercise-track-points/exercise/" + exerciseId + "/progression")
+                            .param("bucket", "DAY")
+                            .header("Authorization", bearerToken))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.points[0].volume").value(21125.0));
+
+                    // Delete the created track points
+                    BulkExerciseTrackPointResultDto bulkTrackPoints = objectMapper.readValue(bulkResult.getResponse().getContentAsString(), BulkExerciseTrackPointResultDto.class);
+                    for (BulkExerciseTrackPointItemResultDto item : bulkTrackPoints.results()) {
+                        if (item.id() != null) {
+                            mockMvc.perform(MockMvcRequestBuilders.delete("/exercise-track-points/" + item.id())
+                                    .header("Authorization", bearerToken))
+                                    .andExpect(status().isOk());
+                        }
+                    }
+                    
+                    // The rollup of the day is gone with its track points
+                    mockMvc.perform(MockMvcRequestBuilders.get("/exercise-track-points/exercise/" + exerciseId + "/progression")
+                            .header("Authorization", bearerToken))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.points.length()").value(0));
                 } finally {
                     // Attempt to delete the track point if it still exists (cleanup)
                     try {
@@ -0,0 +1,77 @@
+package com.tamaliftics.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tamaliftics.api.rest.models.dtos.diet.CreateDietDto;
+import com.tamaliftics.api.rest.models.dtos.diet.GetDietDto;
+import com.tamaliftics.api.utils.AuthenticationHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportControllerIT {
+
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportControllerIT(MockMvc mockMvc) {
+        this.mockMvc = mockMvc;
+        this.objectMapper = new ObjectMapper();
+        // Configure ObjectMapper to handle Java 8 date/time types
+        objectMapper.findAndRegisterModules();
+    }
+
+    @Test
+    public void testExportUserData() throws Exception {
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+
+        String dietJson = mockMvc.perform(MockMvcRequestBuilders.post("/diets")
+                        .header("Authorization", bearerToken)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new CreateDietDto("Export Diet", "Diet to export", List.of()))))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        UUID dietId = objectMapper.readValue(dietJson, GetDietDto.class).id();
+
+        String export = mockMvc.perform(MockMvcRequestBuilders.get("/export")
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // every line is one record
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : export.split("\n")) {
+            records.add(objectMapper.readTree(line));
+        }
+        assertTrue(records.stream().allMatch(record -> record.hasNonNull("type") && record.has("data")));
+        assertTrue(records.stream().anyMatch(record -> "DIET".equals(record.get("type").asText())
+                && dietId.toString().equals(record.get("data").get("id").asText())
+                && "Export Diet".equals(record.get("data").get("name").asText())));
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/diets/" + dietId)
+                        .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testExportUnauthorized() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/export"))
+                .andExpect(status().isForbidden());
+    }
+}
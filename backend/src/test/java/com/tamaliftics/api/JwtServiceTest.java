@@ -0,0 +1,56 @@
+package com.tamaliftics.api;
+
+import com.tamaliftics.api.rest.models.Role;
+import com.tamaliftics.api.rest.models.TokenClaims;
+import com.tamaliftics.api.rest.services.JwtService;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtServiceTest {
+
+    private static final String SECRET_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final JwtService jwtService = new JwtService(SECRET_KEY, 60_000);
+
+    @Test
+    public void testParseTokenReadsTheClaims() {
+        UUID userId = UUID.randomUUID();
+        Optional<TokenClaims> claims = jwtService.parseToken(signed(token().claim("userId", userId.toString())));
+
+        assertTrue(claims.isPresent());
+        assertEquals(userId, claims.get().userId());
+        assertEquals("tamalito", claims.get().username());
+        assertEquals(Role.USER, claims.get().role());
+    }
+
+    @Test
+    public void testParseTokenRejectsSignedTokensWithMissingOrMalformedClaims() {
+        // the signature is valid, so these only fail on their claims
+        assertTrue(jwtService.parseToken(signed(token())).isEmpty());
+        assertTrue(jwtService.parseToken(signed(token().claim("userId", "not-a-uuid"))).isEmpty());
+        assertTrue(jwtService.parseToken(signed(token().claim("userId", 42))).isEmpty());
+        assertTrue(jwtService.parseToken(signed(token().claim("userId", UUID.randomUUID().toString()).claim("role", "ROOT"))).isEmpty());
+        assertTrue(jwtService.parseToken(signed(Jwts.builder().subject("tamalito").claim("userId", UUID.randomUUID().toString()))).isEmpty());
+    }
+
+    private static JwtBuilder token() {
+        return Jwts.builder()
+                .subject("tamalito")
+                .expiration(new Date(System.currentTimeMillis() + 60_000));
+    }
+
+    private static String signed(JwtBuilder builder) {
+        return builder.signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY))).compact();
+    }
+}
@@ -0,0 +1,74 @@
+package com.tamaliftics.api;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Fails if one of the hot queries is not served by an index, i.e., if mysql falls back to a full table scan.
+ */
+@SpringBootTest
+public class QueryIndexIT {
+
+    private static final String USER_ID = "unhex(replace('0190a4b2-7c3e-7000-8000-000000000001', '-', ''))";
+    private static final String EXERCISE_ID = "unhex(replace('0190a4b2-7c3e-7000-8000-000000000002', '-', ''))";
+    private static final String DISH_ID = "unhex(replace('0190a4b2-7c3e-7000-8000-000000000003', '-', ''))";
+    private static final String MEAL_ID = "unhex(replace('0190a4b2-7c3e-7000-8000-000000000004', '-', ''))";
+    private static final String DIET_ID = "unhex(replace('0190a4b2-7c3e-7000-8000-000000000005', '-', ''))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public QueryIndexIT(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // DailyWeightRepository.findByDateBetweenAndUser and the keyset pages of daily weights
+            "select * from daily_weights where user_id = " + USER_ID + " and date between '2024-01-01' and '2024-01-07'",
+            "select * from daily_weights where user_id = " + USER_ID + " order by date desc, id desc limit 51",
+            // ExerciseTrackPointRepository.findByExerciseIdAndDateBetween and the keyset pages of track points
+            "select * from exercise_track_points where exercise_id = " + EXERCISE_ID + " and date between '2024-01-01' and '2024-01-31'",
+            "select * from exercise_track_points where exercise_id = " + EXERCISE_ID + " order by date desc, id desc limit 51",
+            // WeeklyWeightRepository.findByWeekNumberAndYearAndUser and the keyset pages of weekly weights
+            "select * from weekly_weights where week_number = 1 and year = 2024 and user_id = " + USER_ID,
+            "select * from weekly_weights where user_id = " + USER_ID + " order by start_date desc, id desc limit 51",
+            // WeeklyWeightRepository.findForUpdateByStartDateInAndUserId and DailyWeightRepository.findByDateInAndUser of the bulk upsert
+            "select * from weekly_weights where start_date in ('2020-01-06', '2024-01-01') and user_id = " + USER_ID + " for update",
+            "select * from daily_weights where date in ('2020-01-06', '2024-01-01') and user_id = " + USER_ID,
+            // WeeklyWeightRepository.findForUpdateByUserId of the rebuild of all weekly weights, user by user
+            "select * from weekly_weights where user_id = " + USER_ID + " for update",
+            // DietRepository.findSummariesByUserIdOrderByCreatedAtDesc, the current diet of the dashboard
+            "select * from diets where user_id = " + USER_ID + " order by created_at desc, id desc limit 1",
+            // WorkoutPlanRepository.findAllByDayAndUser
+            "select * from workout_plans where day = 'MONDAY' and user_id = " + USER_ID,
+            // NutritionTotalsRepository.applyDishMacrosDelta, the meals containing a dish
+            "select meal_id, count(*) from meal_dishes where dish_id = " + DISH_ID + " group by meal_id",
+            // NutritionTotalsRepository.findDriftedMeals and findDriftedDiets, the sums of a batch of meals and diets
+            "select meal_id, count(*) from meal_dishes where meal_id in (" + MEAL_ID + ") group by meal_id",
+            "select diet_id, sum(total_calories) from meals where diet_id in (" + DIET_ID + ") group by diet_id",
+            // ExerciseDailyRollupRepository.refreshDays, the track points of one day of an exercise
+            "select sum(sets_count * reps_count) from exercise_track_points where exercise_id = " + EXERCISE_ID + " and date = '2024-01-01'",
+            // ExerciseDailyRollupRepository.findDriftedDays, the track points and rollups of a batch of exercises
+            "select exercise_id, date, sum(sets_count) from exercise_track_points where exercise_id in (" + EXERCISE_ID + ") group by exercise_id, date",
+            "select * from exercise_daily_rollups where exercise_id in (" + EXERCISE_ID + ")",
+            // ExerciseDailyRollupRepository.findByExerciseIdAndUserId
+            "select * from exercise_daily_rollups where exercise_id = " + EXERCISE_ID + " order by date"
+    })
+    public void testHotQueryUsesIndex(String query) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + query);
+        assertFalse(plan.isEmpty());
+        for (Map<String, Object> step : plan) {
+            assertNotEquals("ALL", step.get("type"), "Full table scan for: " + query + " " + plan);
+        }
+    }
+}
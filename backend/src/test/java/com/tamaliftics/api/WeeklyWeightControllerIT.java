@@ -64,7 +64,7 @@ public class WeeklyWeightControllerIT {
             
             // Extract the weekly weights
             String getAllResponseJson = getAllResult.getResponse().getContentAsString();
-            GetWeeklyWeightDto[] weeklyWeights = objectMapper.readValue(getAllResponseJson, GetWeeklyWeightDto[].class);
+            GetWeeklyWeightDto[] weeklyWeights = objectMapper.treeToValue(objectMapper.readTree(getAllResponseJson).get("items"), GetWeeklyWeightDto[].class);
             
             // Ensure we have at least one weekly weight
             if (weeklyWeights.length > 0) {
@@ -104,4 +104,14 @@ public class WeeklyWeightControllerIT {
                     .andExpect(status().isOk());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRebuildWeeklyWeightsRequiresAdmin() throws Exception {
+        // Login with existing user, which is not an admin
+        String bearerToken = AuthenticationHelper.loginUser(mockMvc, "tamalito", "123456");
+        
+        mockMvc.perform(MockMvcRequestBuilders.post("/weekly-weights/rebuild")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isForbidden());
+    }
+}
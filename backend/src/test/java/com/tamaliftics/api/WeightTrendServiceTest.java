@@ -0,0 +1,64 @@
+package com.tamaliftics.api;
+
+import com.tamaliftics.api.rest.models.dtos.weight.DailyWeightReadingDto;
+import com.tamaliftics.api.rest.models.dtos.weight.WeightTrendPointDto;
+import com.tamaliftics.api.rest.repositories.DailyWeightRepository;
+import com.tamaliftics.api.rest.services.WeightTrendService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WeightTrendServiceTest {
+
+    @Test
+    public void dailyWeightAddedWhileTheTrendIsComputedIsNotLost() throws Exception {
+        UUID userId = UUID.randomUUID();
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        CountDownLatch readingsLoading = new CountDownLatch(1);
+        CountDownLatch addStarted = new CountDownLatch(1);
+        CountDownLatch addReturned = new CountDownLatch(1);
+
+        // The trend is computed from the daily weights as they were before the new daily weight committed.
+        // The computation holds on until the daily weight is added: an add that waits for the computation can't return meanwhile,
+        // so the bounded wait always runs out, while an add that doesn't wait returns at once and its daily weight is lost.
+        DailyWeightRepository dailyWeightRepository = mock(DailyWeightRepository.class);
+        when(dailyWeightRepository.findReadingsByUserId(userId)).thenAnswer(invocation -> {
+            readingsLoading.countDown();
+            assertTrue(addStarted.await(10, TimeUnit.SECONDS));
+            assertFalse(addReturned.await(500, TimeUnit.MILLISECONDS));
+            return List.of(new DailyWeightReadingDto(monday, 80.0));
+        });
+        WeightTrendService weightTrendService = new WeightTrendService(dailyWeightRepository, 0.1, 1000, Duration.ofMinutes(30), new SimpleMeterRegistry());
+
+        CompletableFuture<List<WeightTrendPointDto>> computed = CompletableFuture.supplyAsync(
+                () -> weightTrendService.getTrend(userId, monday, monday.plusDays(6)));
+        assertTrue(readingsLoading.await(10, TimeUnit.SECONDS));
+
+        // The daily weight commits while the trend is being computed
+        CompletableFuture<Void> added = CompletableFuture.runAsync(() -> {
+            addStarted.countDown();
+            weightTrendService.addDailyWeight(userId, monday.plusDays(1), 81.0);
+            addReturned.countDown();
+        });
+        computed.get(10, TimeUnit.SECONDS);
+        added.get(10, TimeUnit.SECONDS);
+
+        List<WeightTrendPointDto> trend = weightTrendService.getTrend(userId, monday, monday.plusDays(6));
+        assertEquals(2, trend.size());
+        assertEquals(81.0, trend.get(1).weight());
+        assertEquals(80.5, trend.get(1).movingAverage());
+    }
+}
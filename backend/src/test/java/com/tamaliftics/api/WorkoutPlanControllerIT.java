@@ -6,6 +6,9 @@ import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseDto;
 import com.tamaliftics.api.rest.models.dtos.exercise.GetExerciseCategoryDto;
 import com.tamaliftics.api.rest.models.dtos.workout.GetWorkoutPlanDto;
 import com.tamaliftics.api.utils.AuthenticationHelper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -18,6 +21,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -26,10 +31,12 @@ public class WorkoutPlanControllerIT {
 
     private final MockMvc mockMvc;
     private final ObjectMapper objectMapper;
+    private final Statistics statistics;
 
     @Autowired
-    public WorkoutPlanControllerIT(MockMvc mockMvc) {
+    public WorkoutPlanControllerIT(MockMvc mockMvc, EntityManagerFactory entityManagerFactory) {
         this.mockMvc = mockMvc;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
         this.objectMapper = new ObjectMapper();
         // Configure ObjectMapper to handle Java 8 date/time types
         objectMapper.findAndRegisterModules();
@@ -105,11 +112,25 @@ public class WorkoutPlanControllerIT {
                             .header("Authorization", bearerToken))
                             .andExpect(status().isOk());
                     
+                    // Get all workout plans with a summary of the track points instead of the track points
+                    mockMvc.perform(MockMvcRequestBuilders.get("/workout-plans")
+                            .param("includeTrackPointSummary", "true")
+                            .header("Authorization", bearerToken))
+                            .andExpect(status().isOk())
+                            .andExpect(jsonPath("$.items[*].exercises[*].trackPoints[*]").isEmpty());
+                    
                     // Add an exercise to the workout plan
                     mockMvc.perform(MockMvcRequestBuilders.post("/workout-plans/" + workoutPlanId + "/exercises/" + exerciseId)
                             .header("Authorization", bearerToken))
                             .andExpect(status().isOk());
                     
+                    // Once loaded, the exercises of the workout plans are served from the second-level cache
+                    long statementsWithColdCache = countStatementsOfGetAllWorkoutPlans(bearerToken);
+                    long statementsWithWarmCache = countStatementsOfGetAllWorkoutPlans(bearerToken);
+                    assertTrue(statementsWithWarmCache < statementsWithColdCache,
+                            "GET /workout-plans executed " + statementsWithWarmCache + " statements with a warm cache, " + statementsWithColdCache + " with a cold one");
+                    assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+                    
                     // Update the workout plan
                     String updateWorkoutPlanDtoJson = new String(Files.readAllBytes(Path.of("src/test/resources/workout-plan/update/updateWorkoutPlanDto.json")));
                     // Replace the placeholder ID with the actual ID
@@ -155,4 +176,12 @@ public class WorkoutPlanControllerIT {
                     .header("Authorization", bearerToken));
         }
     }
-}
\ No newline at end of file
+
+    private long countStatementsOfGetAllWorkoutPlans(String bearerToken) throws Exception {
+        statistics.clear();
+        mockMvc.perform(MockMvcRequestBuilders.get("/workout-plans")
+                .header("Authorization", bearerToken))
+                .andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+}
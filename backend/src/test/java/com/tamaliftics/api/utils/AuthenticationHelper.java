@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tamaliftics.api.rest.models.dtos.auth.AuthResponseDto;
 import com.tamaliftics.api.rest.models.dtos.auth.LoginRequestDto;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Optional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class AuthenticationHelper {
@@ -26,9 +29,14 @@ public class AuthenticationHelper {
 
         String json = objectMapper.writeValueAsString(new LoginRequestDto(username, password));
 
-        ResultActions result = mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+        // the login is verified asynchronously on the login executor
+        MvcResult asyncResult = mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
                         .contentType("application/json")
                         .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions result = mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk());
 
         String jwtToken = objectMapper.readValue(result.andReturn().getResponse().getContentAsString(), AuthResponseDto.class).token();
@@ -0,0 +1,21 @@
+import { AxiosResponse } from 'axios';
+import { useCallback } from 'react';
+import useApi from './useApi.ts';
+import { routes } from '../../routes/apiRoutes.ts';
+
+export const useGetDashboard = (): [
+  (date?: string) => Promise<AxiosResponse | undefined>,
+] => {
+  const { get } = useApi();
+  const callback = useCallback(
+    (date?: string) => {
+      const params = new URLSearchParams();
+      if (date) {
+        params.append('date', date);
+      }
+      return get(routes.dashboard.get, params);
+    },
+    [get],
+  );
+  return [callback];
+};
@@ -10,6 +10,7 @@ export const constants = {
   // Daily Weights
   dailyWeights: 'daily-weights',
   range: 'range',
+  trend: 'trend',
 
   // Diets
   diets: 'diets',
@@ -30,6 +31,7 @@ export const constants = {
   exerciseTrackPoints: 'exercise-track-points',
   exercise: 'exercise',
   dateRange: 'date-range',
+  progression: 'progression',
 
   // Meals
 
@@ -41,6 +43,15 @@ export const constants = {
   // Workout Plans
   workoutPlans: 'workout-plans',
   day: 'day',
+
+  // Dashboard
+  dashboard: 'dashboard',
+
+  // Export
+  export: 'export',
+
+  // Import
+  import: 'import',
 };
 
 export const routes = {
@@ -62,6 +73,7 @@ export const routes = {
     },
     getAll: constants.dailyWeights,
     getRange: `${constants.dailyWeights}/${constants.range}`,
+    getTrend: `${constants.dailyWeights}/${constants.trend}`,
     create: constants.dailyWeights,
     update: constants.dailyWeights,
     delete: (id: string) => {
@@ -151,6 +163,9 @@ export const routes = {
     getForExerciseDateRange: (exerciseId: string) => {
       return `${constants.exerciseTrackPoints}/${constants.exercise}/${exerciseId}/${constants.dateRange}`;
     },
+    getProgressionForExercise: (exerciseId: string) => {
+      return `${constants.exerciseTrackPoints}/${constants.exercise}/${exerciseId}/${constants.progression}`;
+    },
     create: constants.exerciseTrackPoints,
     update: constants.exerciseTrackPoints,
     delete: (id: string) => {
@@ -214,4 +229,20 @@ export const routes = {
       return `${constants.workoutPlans}/${planId}/${constants.exercises}/${exerciseId}`;
     },
   },
+
+  //Dashboard Controller
+  dashboard: {
+    get: constants.dashboard,
+  },
+
+  //Export Controller
+  export: {
+    get: constants.export,
+  },
+
+  //Import Controller
+  import: {
+    exerciseTrackPoints: `${constants.import}/exercise-track-points`,
+    dailyWeights: `${constants.import}/daily-weights`,
+  },
 };